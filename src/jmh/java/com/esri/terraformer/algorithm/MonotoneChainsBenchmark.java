@@ -0,0 +1,48 @@
+package com.esri.terraformer.algorithm;
+
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a large ring for self-intersections. The ring is simple, so every candidate pair has to be looked at.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MonotoneChainsBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int vertices;
+
+    private LineString ring;
+
+    @Setup
+    public void setup() {
+        ring = new LineString(vertices + 1);
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            ring.add(new Point(Math.cos(angle), Math.sin(angle)));
+        }
+        ring.add(new Point(ring.get(0)));
+    }
+
+    @Benchmark
+    public boolean isSelfIntersecting() {
+        return new MonotoneChains(ring).isSelfIntersecting();
+    }
+}
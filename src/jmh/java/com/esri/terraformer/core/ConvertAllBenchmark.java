@@ -0,0 +1,81 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a batch of Esri JSON polygons to GeoJSON one after another, with convertAll on the common ForkJoinPool,
+ * and with convertAll on a fixed thread pool of one thread per core. The speedup of the parallel ones depends on the
+ * number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConvertAllBenchmark {
+    @Param({"10000"})
+    public int batchSize;
+
+    private final Terraformer terraformer = new Terraformer(new EsriJson(), new GeoJson());
+    private List<String> inputs;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() {
+        inputs = new ArrayList<String>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            double x = -117 + (i % 100) * 0.01;
+            double y = 34 + (i / 100) * 0.01;
+            inputs.add("{\"rings\":[[[" + x + "," + y + "],[" + x + "," + (y + 0.005) + "],[" + (x + 0.005) + "," +
+                    (y + 0.005) + "],[" + (x + 0.005) + "," + y + "],[" + x + "," + y + "]]]," +
+                    "\"spatialReference\":{\"wkid\":4326}}");
+        }
+
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> loop() throws TerraformerException {
+        List<String> outputs = new ArrayList<String>(inputs.size());
+        for (String input : inputs) {
+            outputs.add(terraformer.convert(input));
+        }
+
+        return outputs;
+    }
+
+    @Benchmark
+    public List<Terraformer.ConversionResult> convertAll() throws InterruptedException {
+        return terraformer.convertAll(inputs);
+    }
+
+    @Benchmark
+    public List<Terraformer.ConversionResult> convertAllPooled() throws InterruptedException {
+        return terraformer.convertAll(inputs, pool);
+    }
+}
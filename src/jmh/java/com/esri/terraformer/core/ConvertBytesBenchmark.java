@@ -0,0 +1,67 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a UTF-8 GeoJSON polygon Feature to Esri JSON bytes by way of Strings, as a caller of the String
+ * interfaces has to, and bytes to bytes with {@link Terraformer#convert(ByteBuffer, java.io.OutputStream)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConvertBytesBenchmark {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"1000"})
+    public int points;
+
+    private final Terraformer terraformer = new Terraformer(new GeoJson(), new EsriJson());
+    private byte[] input;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[");
+        for (int i = 0; i < points; i++) {
+            double angle = 2 * Math.PI * i / points;
+            sb.append(i == 0 ? "[" : ",[").append(-117 + Math.cos(angle)).append(",").append(34 + Math.sin(angle))
+                    .append("]");
+        }
+        sb.append(",[").append(-116.0).append(",").append(34.0).append("]]]},\"properties\":{\"name\":\"ring\"}}");
+        input = sb.toString().getBytes(UTF_8);
+        out = new ByteArrayOutputStream(input.length * 2);
+    }
+
+    @Benchmark
+    public byte[] convertStrings() throws TerraformerException {
+        return terraformer.convert(new String(input, UTF_8)).getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public int convertBytes() throws TerraformerException, IOException {
+        out.reset();
+        terraformer.convert(ByteBuffer.wrap(input), out);
+        return out.size();
+    }
+}
@@ -0,0 +1,98 @@
+package com.esri.terraformer.core;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Synthetic geometries for the benchmarks, the same for every run. The sizes the benchmarks take as a parameter:
+ * <ul>
+ *     <li>small: a Point Feature, the common case for a REST service</li>
+ *     <li>medium: a Feature with a 10,000 vertex Polygon that has a hole</li>
+ *     <li>huge: a FeatureCollection of 100,000 Features from the {@link GeometryGenerator}, with 16 vertex rings and
+ *     polylines</li>
+ * </ul>
+ */
+public final class Fixtures {
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String HUGE = "huge";
+
+    private static final int MEDIUM_VERTICES = 10000;
+    private static final int HUGE_FEATURES = 100000;
+
+    private Fixtures() {}
+
+    public static BaseGeometry<?> get(String size) {
+        if (SMALL.equals(size)) {
+            return new Feature(new Point(-117.1625, 34.0522), properties(0));
+        } else if (MEDIUM.equals(size)) {
+            return new Feature(polygon(-117.1625, 34.0522, 0.5, MEDIUM_VERTICES), properties(0));
+        } else if (HUGE.equals(size)) {
+            return features(HUGE_FEATURES);
+        }
+
+        throw new IllegalArgumentException("Unknown fixture size: " + size);
+    }
+
+    /**
+     * @return a FeatureCollection of small Features of every kind, scattered over the world
+     */
+    public static FeatureCollection features(int count) {
+        GeometryGenerator generator = new GeometryGenerator(count);
+        generator.setVertices(16);
+        generator.setHoles(1);
+        return generator.featureCollection(count);
+    }
+
+    /**
+     * @return a Polygon with a clockwise outer ring of the given number of vertices and a counterclockwise hole of
+     * a tenth of that
+     */
+    public static Polygon polygon(double x, double y, double radius, int vertices) {
+        return new Polygon(ring(x, y, radius, vertices, true), ring(x, y, radius / 2, Math.max(vertices / 10, 3),
+                false));
+    }
+
+    /**
+     * @return a MultiPolygon of shells in a row, each with a grid of holes, the input for Esri JSON hole assignment
+     */
+    public static MultiPolygon holes(int shells, int holesPerShell) {
+        int grid = (int) Math.ceil(Math.sqrt(holesPerShell));
+        double spacing = 1.0 / grid;
+
+        MultiPolygon mp = new MultiPolygon();
+        for (int s = 0; s < shells; s++) {
+            double x = -117 + 3 * s;
+            double y = 34;
+            Polygon p = new Polygon(ring(x, y, 1, 64, true));
+            for (int h = 0; h < holesPerShell; h++) {
+                double hx = x - 0.5 + spacing * (h % grid + 0.5);
+                double hy = y - 0.5 + spacing * (h / grid + 0.5);
+                p.add(ring(hx, hy, spacing * 0.3, 8, false));
+            }
+            mp.add(p);
+        }
+        return mp;
+    }
+
+    /**
+     * @return a closed ring around (x, y), with the radius wobbling so that it isn't a regular polygon
+     */
+    public static LineString ring(double x, double y, double radius, int vertices, boolean clockwise) {
+        LineString ring = new LineString();
+        for (int i = 0; i < vertices; i++) {
+            double angle = (clockwise ? -2 : 2) * Math.PI * i / vertices;
+            double r = radius * (1 + 0.1 * Math.sin(7 * angle));
+            ring.add(new Point(x + r * Math.cos(angle), y + r * Math.sin(angle)));
+        }
+        ring.add(new Point(ring.get(0)));
+        return ring;
+    }
+
+    private static JsonObject properties(int i) {
+        JsonObject properties = new JsonObject();
+        properties.addProperty("id", i);
+        properties.addProperty("name", "feature " + i);
+        properties.addProperty("area", i * 0.25);
+        return properties;
+    }
+}
@@ -0,0 +1,57 @@
+package com.esri.terraformer.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a ring with a copy of itself that starts halfway round, and validates a Polygon, for rings of a range of
+ * sizes. Neither should allocate much; run with -prof gc to check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GeometryBenchmark {
+    @Param({"16", "10000", "100000"})
+    public int vertices;
+
+    private LineString ring;
+    private LineString rotated;
+    private Polygon polygon;
+
+    @Setup
+    public void setup() {
+        ring = Fixtures.ring(-117.1625, 34.0522, 0.5, vertices, true);
+
+        rotated = new LineString(vertices + 1);
+        for (int i = 0; i < vertices; i++) {
+            rotated.add(new Point(ring.get((i + vertices / 2) % vertices)));
+        }
+        rotated.add(new Point(rotated.get(0)));
+
+        polygon = Fixtures.polygon(-117.1625, 34.0522, 0.5, vertices);
+    }
+
+    @Benchmark
+    public boolean lineStringIsEquivalentTo() {
+        return ring.isEquivalentTo(rotated);
+    }
+
+    @Benchmark
+    public boolean polygonIsValid() {
+        return polygon.isValid();
+    }
+}
@@ -0,0 +1,54 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the small and medium {@link Fixtures} from Esri JSON to GeoJSON and back with Terraformer.convert. Run
+ * with -prof gc for the bytes allocated per conversion (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TerraformerBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM})
+    public String size;
+
+    private final Terraformer esriToGeoJson = new Terraformer(new EsriJson(), new GeoJson());
+    private final Terraformer geoJsonToEsri = new Terraformer(new GeoJson(), new EsriJson());
+    private String esriJson;
+    private String geoJson;
+
+    @Setup
+    public void setup() {
+        BaseGeometry<?> geometry = Fixtures.get(size);
+        esriJson = new EsriJson().encode(geometry);
+        geoJson = GeoJson.toJson(geometry);
+    }
+
+    @Benchmark
+    public String esriJsonToGeoJson() throws TerraformerException {
+        return esriToGeoJson.convert(esriJson);
+    }
+
+    @Benchmark
+    public String geoJsonToEsriJson() throws TerraformerException {
+        return geoJsonToEsri.convert(geoJson);
+    }
+}
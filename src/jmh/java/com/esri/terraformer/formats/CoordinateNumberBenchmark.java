@@ -0,0 +1,90 @@
+package com.esri.terraformer.formats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and formats longitude and latitude sized coordinates with {@link DoubleParser} and {@link DoubleFormatter},
+ * and with the JDK's {@link Double#parseDouble(String)} and {@link Double#toString(double)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CoordinateNumberBenchmark {
+    @Param({"1000"})
+    public int count;
+
+    private double[] values;
+    private String[] strings;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        values = new double[count];
+        strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextDouble() * 360 - 180;
+            strings[i] = Double.toString(values[i]);
+        }
+    }
+
+    @Benchmark
+    public double parse() {
+        double sum = 0;
+        for (String s : strings) {
+            sum += DoubleParser.parse(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parseJdk() {
+        double sum = 0;
+        for (String s : strings) {
+            sum += Double.parseDouble(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int format() {
+        int length = 0;
+        for (double v : values) {
+            length += DoubleFormatter.format(v).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int formatJdk() {
+        int length = 0;
+        for (double v : values) {
+            length += Double.toString(v).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int formatSixPlaces() {
+        int length = 0;
+        for (double v : values) {
+            length += DoubleFormatter.format(v, 6).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,77 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a densely digitized MultiPolygon as GeoJSON and Esri JSON with full and reduced coordinate precision,
+ * with and without dropping collapsed vertices. The payload sizes are printed by setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CoordinatePrecisionBenchmark {
+    @Param({"1000"})
+    public int points;
+
+    @Param({"-1", "6", "4"})
+    public int precision;
+
+    @Param({"false", "true"})
+    public boolean dropCollapsedVertices;
+
+    private final GeoJson geoJson = new GeoJson();
+    private final EsriJson esriJson = new EsriJson();
+    private MultiPolygon geometry;
+
+    @Setup
+    public void setup() {
+        // rings about 50 meters across in degrees, so neighboring vertices are centimeters apart
+        geometry = new MultiPolygon();
+        for (int p = 0; p < 4; p++) {
+            LineString ring = new LineString();
+            for (int i = 0; i < points / 4; i++) {
+                double angle = 2 * Math.PI * i / (points / 4);
+                ring.add(new Point(-117.1625 + p * 0.001 + 0.00025 * Math.cos(angle), 34.0522 + 0.00025 *
+                        Math.sin(angle)));
+            }
+            ring.add(new Point(ring.get(0)));
+            geometry.add(new Polygon(ring));
+        }
+
+        geoJson.setCoordinatePrecision(precision);
+        geoJson.setDropCollapsedVertices(dropCollapsedVertices);
+        esriJson.setCoordinatePrecision(precision);
+        esriJson.setDropCollapsedVertices(dropCollapsedVertices);
+        System.out.println("GeoJSON " + geoJson.encode(geometry).length() + " chars, Esri JSON " +
+                esriJson.encode(geometry).length() + " chars");
+    }
+
+    @Benchmark
+    public String encodeGeoJson() {
+        return geoJson.encode(geometry);
+    }
+
+    @Benchmark
+    public String encodeEsriJson() {
+        return esriJson.encode(geometry);
+    }
+}
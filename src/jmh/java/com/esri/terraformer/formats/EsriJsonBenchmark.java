@@ -0,0 +1,54 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Fixtures;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes and encodes Esri JSON Strings for the small and medium {@link Fixtures}. There is no huge one, since Esri
+ * JSON has no FeatureCollection for the decoder to read back. Run with -prof gc for the bytes allocated per
+ * operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EsriJsonBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM})
+    public String size;
+
+    private final EsriJson esriJson = new EsriJson();
+    private BaseGeometry<?> geometry;
+    private String json;
+
+    @Setup
+    public void setup() {
+        geometry = Fixtures.get(size);
+        json = esriJson.encode(geometry);
+    }
+
+    @Benchmark
+    public BaseGeometry decode() throws TerraformerException {
+        return esriJson.decode(json);
+    }
+
+    @Benchmark
+    public String encode() {
+        return esriJson.encode(geometry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Fixtures;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes Esri JSON polygons with many rings, where most of the time goes into working out which outer ring each
+ * hole belongs to. The shells are in a row and each has a grid of holes, so every hole has a single shell whose
+ * envelope contains it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EsriJsonHolesBenchmark {
+    @Param({"1", "100"})
+    public int shells;
+
+    @Param({"10", "1000"})
+    public int holesPerShell;
+
+    private final EsriJson esriJson = new EsriJson();
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = esriJson.encode(Fixtures.holes(shells, holesPerShell));
+    }
+
+    @Benchmark
+    public BaseGeometry decode() throws TerraformerException {
+        return esriJson.decode(json);
+    }
+}
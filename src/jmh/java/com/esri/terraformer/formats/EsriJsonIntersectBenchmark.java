@@ -0,0 +1,74 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.algorithm.MonotoneChains;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests a large outer ring against a small hole well inside it, in both directions. The bounding boxes of the two
+ * rings overlap but the rings don't intersect, so every candidate segment pair has to be looked at. The chains are
+ * built once in setup, as the decoder builds them once per ring; {@link #buildChains()} measures building them. Run
+ * with -prof gc to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EsriJsonIntersectBenchmark {
+    private static final int HOLE_VERTICES = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int vertices;
+
+    private LineString outerRing;
+    private MonotoneChains outer;
+    private MonotoneChains hole;
+
+    @Setup
+    public void setup() {
+        outerRing = circle(vertices, 1);
+        outer = new MonotoneChains(outerRing);
+        hole = new MonotoneChains(circle(HOLE_VERTICES, 0.5));
+    }
+
+    @Benchmark
+    public MonotoneChains buildChains() {
+        return new MonotoneChains(outerRing);
+    }
+
+    @Benchmark
+    public boolean outerAgainstHole() {
+        return EsriJson.lineStringsIntersect(outer, hole);
+    }
+
+    @Benchmark
+    public boolean holeAgainstOuter() {
+        return EsriJson.lineStringsIntersect(hole, outer);
+    }
+
+    private static LineString circle(int vertices, double radius) {
+        LineString ring = new LineString(vertices + 1);
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            ring.add(new Point(-117.1956 + radius * Math.cos(angle), 34.0572 + radius * Math.sin(angle)));
+        }
+        ring.add(new Point(ring.get(0)));
+
+        return ring;
+    }
+}
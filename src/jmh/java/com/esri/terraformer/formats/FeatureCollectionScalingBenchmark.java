@@ -0,0 +1,69 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.FeatureCollection;
+import com.esri.terraformer.core.GeometryGenerator;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes generated GeoJSON FeatureCollections of a range of sizes, as a tree with decodeFeatureCollection and a
+ * Feature at a time with iterateFeatureCollection, to show how each scales. The Features are GeometryGenerator's
+ * mix, with 256 vertex rings and polylines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FeatureCollectionScalingBenchmark {
+    @Param({"65536", "4194304", "67108864"})
+    public long bytes;
+
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        GeometryGenerator generator = new GeometryGenerator(bytes);
+        generator.setVertices(256);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeGeoJson(out, bytes);
+        json = out.toString("US-ASCII");
+    }
+
+    @Benchmark
+    public FeatureCollection decodeFeatureCollection() throws TerraformerException {
+        return GeoJson.decodeFeatureCollection(json);
+    }
+
+    @Benchmark
+    public int iterateFeatureCollection() throws IOException {
+        FeatureIterator features = GeoJson.iterateFeatureCollection(new StringReader(json));
+        try {
+            int count = 0;
+            while (features.hasNext()) {
+                count += features.next().size();
+            }
+
+            return count;
+        } finally {
+            features.close();
+        }
+    }
+}
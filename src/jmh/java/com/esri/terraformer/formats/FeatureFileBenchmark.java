@@ -0,0 +1,105 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a file of newline-delimited GeoJSON polygon Features by reading each line into a String and calling
+ * decodeFeature, and with a FeatureFileReader on a pool with a thread per processor. Only the number of Features
+ * is kept, as an ingest job that writes them somewhere else would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FeatureFileBenchmark {
+    @Param({"100000"})
+    public int features;
+
+    private final GeoJson geoJson = new GeoJson();
+    private File file;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("features", ".geojsonl");
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (int i = 0; i < features; i++) {
+                double x = -117 + (i % 1000) * 0.001;
+                double y = 34 + (i / 1000) * 0.001;
+                out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[" + x + "," +
+                        y + "],[" + (x + 0.0005) + "," + y + "],[" + (x + 0.0005) + "," + (y + 0.0005) + "],[" + x +
+                        "," + y + "]]]},\"properties\":{\"id\":" + i + ",\"name\":\"parcel " + i + "\"}}\n");
+            }
+        } finally {
+            out.close();
+        }
+
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public int readLineDecodeFeature() throws IOException, TerraformerException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            int count = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                Feature f = GeoJson.decodeFeature(line);
+                count += f.size();
+            }
+
+            return count;
+        } finally {
+            lines.close();
+        }
+    }
+
+    @Benchmark
+    public int featureFileReader() throws IOException {
+        FeatureFileReader reader = geoJson.readFeatureFile(file, pool);
+        try {
+            int count = 0;
+            while (reader.hasNext()) {
+                count += reader.next().size();
+            }
+
+            return count;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Fixtures;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes and encodes GeoJSON Strings for each of the {@link Fixtures} sizes. Run with -prof gc for the bytes
+ * allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GeoJsonBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.HUGE})
+    public String size;
+
+    private BaseGeometry<?> geometry;
+    private String json;
+
+    @Setup
+    public void setup() {
+        geometry = Fixtures.get(size);
+        json = GeoJson.toJson(geometry);
+    }
+
+    @Benchmark
+    public BaseGeometry<?> fromJson() throws TerraformerException {
+        return GeoJson.fromJson(json, GeoJson.GEOJSON_ERROR_PREFIX);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return GeoJson.toJson(geometry);
+    }
+}
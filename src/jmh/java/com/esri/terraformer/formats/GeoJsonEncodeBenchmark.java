@@ -0,0 +1,63 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.Polygon;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a single large Polygon to a GeoJSON String, with the hand-written coordinate writer and with the
+ * reflective gson.toJsonTree path it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoJsonEncodeBenchmark {
+    @Param({"10000", "100000"})
+    public int vertices;
+
+    private final Gson gson = new Gson();
+    private Polygon polygon;
+
+    @Setup
+    public void setup() {
+        LineString ring = new LineString(vertices + 1);
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            ring.add(new Point(-117.1956 + Math.cos(angle), 34.0572 + Math.sin(angle)));
+        }
+        ring.add(new Point(ring.get(0)));
+
+        polygon = new Polygon(ring);
+    }
+
+    @Benchmark
+    public String handWritten() {
+        return GeoJson.toJson(polygon);
+    }
+
+    @Benchmark
+    public String reflectiveTree() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty(GeoJson.TYPE_KEY, polygon.getType().toString());
+        obj.add(GeoJson.COORDINATES_KEY, gson.toJsonTree(polygon));
+        return gson.toJson(obj);
+    }
+}
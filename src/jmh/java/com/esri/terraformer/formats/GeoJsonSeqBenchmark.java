@@ -0,0 +1,93 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes newline-delimited GeoJSON polygon Features by splitting the lines and calling decodeFeature on each, with
+ * one GeoJsonSeqReader, and in parallel chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GeoJsonSeqBenchmark {
+    @Param({"10000"})
+    public int features;
+
+    private String ndjson;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < features; i++) {
+            double x = -117 + (i % 100) * 0.01;
+            double y = 34 + (i / 100) * 0.01;
+            sb.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[").append(x)
+                    .append(",").append(y).append("],[").append(x + 0.005).append(",").append(y).append("],[")
+                    .append(x + 0.005).append(",").append(y + 0.005).append("],[").append(x).append(",")
+                    .append(y).append("]]]},\"properties\":{\"id\":").append(i).append(",\"name\":\"parcel ")
+                    .append(i).append("\"}}\n");
+        }
+        ndjson = sb.toString();
+
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Feature> decodeFeaturePerLine() throws IOException, TerraformerException {
+        List<Feature> result = new ArrayList<Feature>();
+        BufferedReader lines = new BufferedReader(new StringReader(ndjson));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            result.add(GeoJson.decodeFeature(line));
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public List<Feature> seqReader() {
+        List<Feature> result = new ArrayList<Feature>();
+        GeoJsonSeqReader reader = GeoJson.readFeatureSequence(new StringReader(ndjson));
+        while (reader.hasNext()) {
+            result.add(reader.next());
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public List<Feature> parallelChunks() throws IOException, TerraformerException, InterruptedException {
+        return GeoJson.decodeFeatureSequence(new StringReader(ndjson), pool);
+    }
+}
@@ -0,0 +1,61 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Terraformer;
+import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a small GeoJSON payload, the common case for a REST service, through a shared Gson and through a new
+ * Gson per call as FormatUtils used to. Both parse to a JsonElement and build the geometry from it the same way, so
+ * they differ only in where the Gson comes from. Also converts it to Esri JSON with one Terraformer shared by all
+ * the benchmark threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class GeoJsonSetupBenchmark {
+    private static final String POLYGON = "{\"type\":\"Polygon\",\"coordinates\":[[[100.0,0.0],[104.0,0.0]," +
+            "[104.0,4.0],[100.0,4.0],[100.0,0.0]],[[101.0,0.5],[103.0,0.5],[103.0,1.0],[101.0,1.0],[101.0,0.5]]]}";
+
+    private static final Gson SHARED_GSON = new Gson();
+
+    private final Terraformer terraformer = new Terraformer(new GeoJson(), new EsriJson());
+
+    @Benchmark
+    public BaseGeometry<?> sharedGson() throws TerraformerException {
+        return decode(SHARED_GSON);
+    }
+
+    @Benchmark
+    public BaseGeometry<?> gsonPerCall() throws TerraformerException {
+        return decode(new Gson());
+    }
+
+    @Benchmark
+    public String sharedTerraformer() throws TerraformerException {
+        return terraformer.convert(POLYGON);
+    }
+
+    private static BaseGeometry<?> decode(Gson gson) throws TerraformerException {
+        JsonElement elem = gson.fromJson(POLYGON, JsonElement.class);
+        return GeoJson.fromJsonObject(elem, GeoJson.GEOJSON_ERROR_PREFIX);
+    }
+}
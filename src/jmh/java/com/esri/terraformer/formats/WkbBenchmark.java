@@ -0,0 +1,86 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.Polygon;
+import com.esri.terraformer.core.TerraformerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a MultiPolygon as WKB bytes and as GeoJSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WkbBenchmark {
+    @Param({"1000"})
+    public int points;
+
+    private final Wkb wkb = new Wkb();
+    private final Wkb wkbPacked = new Wkb();
+    private final GeoJson geoJson = new GeoJson();
+
+    private MultiPolygon geometry;
+    private byte[] bytes;
+    private String json;
+
+    @Setup
+    public void setup() {
+        geometry = new MultiPolygon();
+        for (int p = 0; p < 4; p++) {
+            LineString ring = new LineString();
+            for (int i = 0; i < points / 4; i++) {
+                double angle = 2 * Math.PI * i / (points / 4);
+                ring.add(new Point(p * 10 + Math.cos(angle), Math.sin(angle)));
+            }
+            ring.add(new Point(ring.get(0)));
+            geometry.add(new Polygon(ring));
+        }
+
+        wkbPacked.setPackCoordinates(true);
+        bytes = wkb.encodeBytes(geometry);
+        json = geoJson.encode(geometry);
+    }
+
+    @Benchmark
+    public byte[] encodeWkb() {
+        return wkb.encodeBytes(geometry);
+    }
+
+    @Benchmark
+    public String encodeGeoJson() {
+        return geoJson.encode(geometry);
+    }
+
+    @Benchmark
+    public BaseGeometry decodeWkb() throws TerraformerException {
+        return wkb.decode(bytes);
+    }
+
+    @Benchmark
+    public BaseGeometry decodeWkbPacked() throws TerraformerException {
+        return wkbPacked.decode(bytes);
+    }
+
+    @Benchmark
+    public BaseGeometry decodeGeoJson() throws TerraformerException {
+        return geoJson.decode(json);
+    }
+}
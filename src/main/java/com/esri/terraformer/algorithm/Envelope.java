@@ -0,0 +1,162 @@
+package com.esri.terraformer.algorithm;
+
+import com.esri.terraformer.core.CoordinateSequence;
+
+/**
+ * An axis aligned bounding box in x and y. Envelopes are immutable; an empty one contains and intersects nothing.
+ */
+public final class Envelope {
+    public static final Envelope EMPTY = new Envelope(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    public Envelope(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * @param points
+     * @return the envelope of all the points, or {@link #EMPTY} if there are none
+     */
+    public static Envelope of(CoordinateSequence points) {
+        int size = points.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size; i++) {
+            double x = points.getX(i);
+            double y = points.getY(i);
+
+            if (x < minX) {
+                minX = x;
+            }
+            if (x > maxX) {
+                maxX = x;
+            }
+            if (y < minY) {
+                minY = y;
+            }
+            if (y > maxY) {
+                maxY = y;
+            }
+        }
+
+        return new Envelope(minX, minY, maxX, maxY);
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public boolean isEmpty() {
+        return !(minX <= maxX && minY <= maxY);
+    }
+
+    /**
+     * Whether the envelopes share at least one point, including points on their edges.
+     *
+     * @param other
+     * @return
+     */
+    public boolean intersects(Envelope other) {
+        return other.minX <= maxX && other.maxX >= minX && other.minY <= maxY && other.maxY >= minY;
+    }
+
+    /**
+     * Whether other lies entirely within this envelope, including on its edges.
+     *
+     * @param other
+     * @return
+     */
+    public boolean contains(Envelope other) {
+        return !other.isEmpty() && other.minX >= minX && other.maxX <= maxX && other.minY >= minY &&
+                other.maxY <= maxY;
+    }
+
+    /**
+     * @param other
+     * @return the smallest envelope containing both
+     */
+    public Envelope union(Envelope other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+
+        if (isEmpty()) {
+            return other;
+        }
+
+        return new Envelope(Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+
+    public double getCenterX() {
+        return (minX + maxX) / 2;
+    }
+
+    public double getCenterY() {
+        return (minY + maxY) / 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof Envelope)) {
+            return false;
+        }
+
+        Envelope other = (Envelope) o;
+        if (isEmpty() || other.isEmpty()) {
+            return isEmpty() && other.isEmpty();
+        }
+
+        return Double.compare(minX, other.minX) == 0 && Double.compare(minY, other.minY) == 0 &&
+                Double.compare(maxX, other.maxX) == 0 && Double.compare(maxY, other.maxY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (isEmpty()) {
+            return 0;
+        }
+
+        long bits = Double.doubleToLongBits(minX);
+        bits = 31 * bits + Double.doubleToLongBits(minY);
+        bits = 31 * bits + Double.doubleToLongBits(maxX);
+        bits = 31 * bits + Double.doubleToLongBits(maxY);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Envelope[" + minX + ", " + minY + ", " + maxX + ", " + maxY + "]";
+    }
+}
@@ -0,0 +1,320 @@
+package com.esri.terraformer.algorithm;
+
+import com.esri.terraformer.core.CoordinateSequence;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A sequence of points split into monotone chains, for finding out whether two LineStrings intersect or whether
+ * one intersects itself.
+ *
+ * A monotone chain is a run of segments along which x and y each only go one way, so the envelope of any part of
+ * it is the envelope of that part's end points, and segments of a single chain can't cross each other. Chains are
+ * swept in order of their minimum x, and only the pairs whose envelopes overlap are tested, by halving them until
+ * single segments are left. Segments are closed: touching counts as intersecting. Only x and y are looked at.
+ *
+ * Consecutive repeated points are dropped when the chains are built. The chains are a snapshot: changing the
+ * points afterwards doesn't change them.
+ */
+public final class MonotoneChains {
+    private final double[] xs;
+    private final double[] ys;
+    // chain i runs from point chainStarts[i] to point chainStarts[i + 1]
+    private final int[] chainStarts;
+    // chain indices in order of their minimum x
+    private final int[] order;
+    private final Envelope envelope;
+    private final boolean closed;
+
+    public MonotoneChains(CoordinateSequence points) {
+        int size = points.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            double px = points.getX(i);
+            double py = points.getY(i);
+            if (count == 0 || px != x[count - 1] || py != y[count - 1]) {
+                x[count] = px;
+                y[count] = py;
+                count++;
+            }
+        }
+
+        // all the points are the same; keep them as a segment of zero length, which still intersects things
+        if (count == 1 && size > 1) {
+            x[1] = x[0];
+            y[1] = y[0];
+            count = 2;
+        }
+
+        xs = count == size ? x : Arrays.copyOf(x, count);
+        ys = count == size ? y : Arrays.copyOf(y, count);
+        closed = count > 2 && xs[0] == xs[count - 1] && ys[0] == ys[count - 1];
+
+        if (count < 2) {
+            chainStarts = new int[0];
+            order = new int[0];
+            envelope = Envelope.EMPTY;
+            return;
+        }
+
+        int[] starts = new int[count];
+        int chains = 0;
+        starts[chains++] = 0;
+        for (int i = 1; i < count - 1; i++) {
+            if (quadrant(i) != quadrant(i - 1)) {
+                starts[chains++] = i;
+            }
+        }
+        starts[chains] = count - 1;
+        chainStarts = Arrays.copyOf(starts, chains + 1);
+
+        Integer[] sorted = new Integer[chains];
+        for (int i = 0; i < chains; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer c1, Integer c2) {
+                return Double.compare(chainMinX(c1), chainMinX(c2));
+            }
+        });
+
+        order = new int[chains];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < chains; i++) {
+            order[i] = sorted[i];
+            minX = Math.min(minX, chainMinX(i));
+            minY = Math.min(minY, chainMinY(i));
+            maxX = Math.max(maxX, chainMaxX(i));
+            maxY = Math.max(maxY, chainMaxY(i));
+        }
+        envelope = new Envelope(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * @return the envelope of the points, or {@link Envelope#EMPTY} if there are no segments
+     */
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * @return the number of monotone chains
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Whether any segment of these points touches any segment of the other points. Points with fewer than two
+     * points have no segments and intersect nothing.
+     *
+     * @param other
+     * @return
+     */
+    public boolean intersects(MonotoneChains other) {
+        if (!envelope.intersects(other.envelope)) {
+            return false;
+        }
+
+        // sweep over the chains of both in order of their minimum x, one cursor in each. Each chain is tested
+        // against the chains of the other that haven't been swept yet and start before it ends, so every pair
+        // that overlaps in x is seen once. Once one side runs out, the rest of the other has been tested already.
+        int i = 0;
+        int j = 0;
+        while (i < order.length && j < other.order.length) {
+            int c = order[i];
+            int d = other.order[j];
+            if (chainMinX(c) <= other.chainMinX(d)) {
+                double cMaxX = chainMaxX(c);
+                for (int l = j; l < other.order.length; l++) {
+                    d = other.order[l];
+                    if (other.chainMinX(d) > cMaxX) {
+                        break;
+                    }
+
+                    if (chainsIntersect(other, chainStarts[c], chainStarts[c + 1],
+                            other.chainStarts[d], other.chainStarts[d + 1], false)) {
+                        return true;
+                    }
+                }
+                i++;
+            } else {
+                double dMaxX = other.chainMaxX(d);
+                for (int l = i; l < order.length; l++) {
+                    c = order[l];
+                    if (chainMinX(c) > dMaxX) {
+                        break;
+                    }
+
+                    if (chainsIntersect(other, chainStarts[c], chainStarts[c + 1],
+                            other.chainStarts[d], other.chainStarts[d + 1], false)) {
+                        return true;
+                    }
+                }
+                j++;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether any two segments touch, other than consecutive segments at the point they share. Consecutive
+     * segments that fold back over each other do intersect. When the first and last points are the same, the
+     * first and last segments are consecutive too, so a valid polygon ring isn't self-intersecting.
+     *
+     * @return
+     */
+    public boolean isSelfIntersecting() {
+        for (int k = 0; k < order.length; k++) {
+            int c = order[k];
+            double cMaxX = chainMaxX(c);
+
+            for (int l = k + 1; l < order.length; l++) {
+                int d = order[l];
+                if (chainMinX(d) > cMaxX) {
+                    break;
+                }
+
+                if (chainsIntersect(this, chainStarts[c], chainStarts[c + 1], chainStarts[d], chainStarts[d + 1],
+                        true)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether the segments from point aStart to aEnd of this intersect the segments from point bStart to bEnd of
+     * b, halving the longer of the two until both are single segments.
+     */
+    private boolean chainsIntersect(MonotoneChains b, int aStart, int aEnd, int bStart, int bEnd, boolean self) {
+        if (Math.min(xs[aStart], xs[aEnd]) > Math.max(b.xs[bStart], b.xs[bEnd]) ||
+                Math.max(xs[aStart], xs[aEnd]) < Math.min(b.xs[bStart], b.xs[bEnd]) ||
+                Math.min(ys[aStart], ys[aEnd]) > Math.max(b.ys[bStart], b.ys[bEnd]) ||
+                Math.max(ys[aStart], ys[aEnd]) < Math.min(b.ys[bStart], b.ys[bEnd])) {
+            return false;
+        }
+
+        if (aEnd - aStart == 1 && bEnd - bStart == 1) {
+            if (self) {
+                return selfSegmentsIntersect(Math.min(aStart, bStart), Math.max(aStart, bStart));
+            }
+
+            return segmentsIntersect(xs[aStart], ys[aStart], xs[aEnd], ys[aEnd],
+                    b.xs[bStart], b.ys[bStart], b.xs[bEnd], b.ys[bEnd]);
+        }
+
+        if (aEnd - aStart >= bEnd - bStart) {
+            int mid = (aStart + aEnd) / 2;
+            return chainsIntersect(b, aStart, mid, bStart, bEnd, self) ||
+                    chainsIntersect(b, mid, aEnd, bStart, bEnd, self);
+        }
+
+        int mid = (bStart + bEnd) / 2;
+        return chainsIntersect(b, aStart, aEnd, bStart, mid, self) ||
+                chainsIntersect(b, aStart, aEnd, mid, bEnd, self);
+    }
+
+    /**
+     * Whether segment i and segment j of these points intersect, where i < j. Consecutive segments only
+     * intersect if they fold back over each other at the point they share.
+     */
+    private boolean selfSegmentsIntersect(int i, int j) {
+        int shared = -1;
+        int iOther = -1;
+        int jOther = -1;
+        if (j == i + 1) {
+            shared = j;
+            iOther = i;
+            jOther = j + 1;
+        } else if (closed && i == 0 && j == xs.length - 2) {
+            shared = 0;
+            iOther = 1;
+            jOther = j;
+        }
+
+        if (shared < 0) {
+            return segmentsIntersect(xs[i], ys[i], xs[i + 1], ys[i + 1], xs[j], ys[j], xs[j + 1], ys[j + 1]);
+        }
+
+        double px = xs[shared];
+        double py = ys[shared];
+        double ix = xs[iOther] - px;
+        double iy = ys[iOther] - py;
+        double jx = xs[jOther] - px;
+        double jy = ys[jOther] - py;
+
+        // collinear, and pointing the same way from the shared point
+        return ix * jy - iy * jx == 0 && ix * jx + iy * jy > 0;
+    }
+
+    /**
+     * Whether the closed segments a1-a2 and b1-b2 share at least one point. Either may have zero length.
+     */
+    static boolean segmentsIntersect(double a1x, double a1y, double a2x, double a2y,
+                                     double b1x, double b1y, double b2x, double b2y) {
+        double o1 = Math.signum(orientation(a1x, a1y, a2x, a2y, b1x, b1y));
+        double o2 = Math.signum(orientation(a1x, a1y, a2x, a2y, b2x, b2y));
+        double o3 = Math.signum(orientation(b1x, b1y, b2x, b2y, a1x, a1y));
+        double o4 = Math.signum(orientation(b1x, b1y, b2x, b2y, a2x, a2y));
+
+        if (o1 * o2 < 0 && o3 * o4 < 0) {
+            // a proper crossing
+            return true;
+        }
+
+        // otherwise they can only meet where an end point of one lies on the other
+        return (o1 == 0 && inBox(a1x, a1y, a2x, a2y, b1x, b1y)) ||
+                (o2 == 0 && inBox(a1x, a1y, a2x, a2y, b2x, b2y)) ||
+                (o3 == 0 && inBox(b1x, b1y, b2x, b2y, a1x, a1y)) ||
+                (o4 == 0 && inBox(b1x, b1y, b2x, b2y, a2x, a2y));
+    }
+
+    /**
+     * Twice the signed area of the triangle p, q, r: positive if r is to the left of p-q, negative if it's to the
+     * right and 0 if the three are collinear.
+     */
+    private static double orientation(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qx - px) * (ry - py) - (qy - py) * (rx - px);
+    }
+
+    /**
+     * Whether r is in the envelope of p and q. When r is collinear with p and q this means it's on the segment.
+     */
+    private static boolean inBox(double px, double py, double qx, double qy, double rx, double ry) {
+        return rx >= Math.min(px, qx) && rx <= Math.max(px, qx) && ry >= Math.min(py, qy) && ry <= Math.max(py, qy);
+    }
+
+    private int quadrant(int segment) {
+        double dx = xs[segment + 1] - xs[segment];
+        double dy = ys[segment + 1] - ys[segment];
+        return (dx >= 0 ? 0 : 1) | (dy >= 0 ? 0 : 2);
+    }
+
+    private double chainMinX(int chain) {
+        return Math.min(xs[chainStarts[chain]], xs[chainStarts[chain + 1]]);
+    }
+
+    private double chainMaxX(int chain) {
+        return Math.max(xs[chainStarts[chain]], xs[chainStarts[chain + 1]]);
+    }
+
+    private double chainMinY(int chain) {
+        return Math.min(ys[chainStarts[chain]], ys[chainStarts[chain + 1]]);
+    }
+
+    private double chainMaxY(int chain) {
+        return Math.max(ys[chainStarts[chain]], ys[chainStarts[chain + 1]]);
+    }
+}
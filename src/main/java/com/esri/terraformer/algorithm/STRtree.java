@@ -0,0 +1,186 @@
+package com.esri.terraformer.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A read-only R-tree packed with the Sort-Tile-Recursive algorithm, for finding the items whose envelopes
+ * intersect a search envelope.
+ *
+ * Insert all the items, then query. The tree is built by the first query; inserting after that throws an
+ * {@link IllegalStateException}. Query results come back in the order the items were inserted.
+ *
+ * Leutenegger, Lopez and Edgington, "STR: A Simple and Efficient Algorithm for R-Tree Packing", 1997.
+ *
+ * @param <T>
+ */
+public class STRtree<T> {
+    private static final int DEFAULT_NODE_CAPACITY = 10;
+
+    private final int nodeCapacity;
+    private final List<Envelope> envelopes = new ArrayList<Envelope>();
+    private final List<T> items = new ArrayList<T>();
+    private Node root;
+
+    public STRtree() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param nodeCapacity the maximum number of children of each node, at least 2
+     */
+    public STRtree(int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2: " + nodeCapacity);
+        }
+
+        this.nodeCapacity = nodeCapacity;
+    }
+
+    public void insert(Envelope envelope, T item) {
+        if (root != null) {
+            throw new IllegalStateException("Items can't be inserted once the tree has been queried.");
+        }
+
+        envelopes.add(envelope);
+        items.add(item);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * @param searchEnvelope
+     * @return the items whose envelopes intersect searchEnvelope, in the order they were inserted
+     */
+    public List<T> query(Envelope searchEnvelope) {
+        build();
+
+        List<T> results = new ArrayList<T>();
+        if (!root.envelope.intersects(searchEnvelope)) {
+            return results;
+        }
+
+        int[] found = new int[4];
+        int count = 0;
+
+        List<Node> stack = new ArrayList<Node>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+
+            if (node.children == null) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = node.item;
+                continue;
+            }
+
+            for (Node child : node.children) {
+                if (child.envelope.intersects(searchEnvelope)) {
+                    stack.add(child);
+                }
+            }
+        }
+
+        Arrays.sort(found, 0, count);
+        for (int i = 0; i < count; i++) {
+            results.add(items.get(found[i]));
+        }
+
+        return results;
+    }
+
+    private void build() {
+        if (root != null) {
+            return;
+        }
+
+        List<Node> level = new ArrayList<Node>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Envelope envelope = envelopes.get(i);
+            if (!envelope.isEmpty()) {
+                level.add(new Node(envelope, i));
+            }
+        }
+
+        if (level.isEmpty()) {
+            root = new Node(Envelope.EMPTY, new Node[0]);
+            return;
+        }
+
+        while (level.size() > 1) {
+            level = packLevel(level);
+        }
+
+        root = level.get(0);
+    }
+
+    /**
+     * Groups the nodes into parents: sorted by x into vertical slices, then by y within each slice.
+     */
+    private List<Node> packLevel(List<Node> nodes) {
+        int parentCount = (nodes.size() + nodeCapacity - 1) / nodeCapacity;
+        int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        int sliceSize = sliceCount * nodeCapacity;
+
+        Collections.sort(nodes, X_ORDER);
+
+        List<Node> parents = new ArrayList<Node>(parentCount);
+        for (int sliceStart = 0; sliceStart < nodes.size(); sliceStart += sliceSize) {
+            List<Node> slice = new ArrayList<Node>(nodes.subList(sliceStart,
+                    Math.min(sliceStart + sliceSize, nodes.size())));
+            Collections.sort(slice, Y_ORDER);
+
+            for (int start = 0; start < slice.size(); start += nodeCapacity) {
+                List<Node> children = slice.subList(start, Math.min(start + nodeCapacity, slice.size()));
+
+                Envelope envelope = Envelope.EMPTY;
+                for (Node child : children) {
+                    envelope = envelope.union(child.envelope);
+                }
+
+                parents.add(new Node(envelope, children.toArray(new Node[children.size()])));
+            }
+        }
+
+        return parents;
+    }
+
+    private static final Comparator<Node> X_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+            return Double.compare(n1.envelope.getCenterX(), n2.envelope.getCenterX());
+        }
+    };
+
+    private static final Comparator<Node> Y_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+            return Double.compare(n1.envelope.getCenterY(), n2.envelope.getCenterY());
+        }
+    };
+
+    private static final class Node {
+        final Envelope envelope;
+        final Node[] children;
+        final int item;
+
+        Node(Envelope envelope, int item) {
+            this.envelope = envelope;
+            this.children = null;
+            this.item = item;
+        }
+
+        Node(Envelope envelope, Node[] children) {
+            this.envelope = envelope;
+            this.children = children;
+            this.item = -1;
+        }
+    }
+}
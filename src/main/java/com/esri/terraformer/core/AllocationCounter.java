@@ -0,0 +1,45 @@
+package com.esri.terraformer.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Package private.
+ *
+ * Reads how many bytes the current thread has allocated, on JVMs whose ThreadMXBean can tell (HotSpot and OpenJ9).
+ * Elsewhere, or if allocation counting has been turned off, every read is -1.
+ */
+final class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean BEAN = bean();
+
+    private AllocationCounter() { }
+
+    static long currentThread() {
+        if (BEAN == null) {
+            return -1;
+        }
+
+        try {
+            return BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean bean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                    return sunBean;
+                }
+            }
+        } catch (LinkageError e) {
+            // no java.lang.management or com.sun.management, as on Android
+        } catch (SecurityException e) {
+            // not allowed to look
+        }
+        return null;
+    }
+}
@@ -1,7 +1,9 @@
 package com.esri.terraformer.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 public abstract class BaseGeometry<T> extends ArrayList<T> {
     protected BaseGeometry() {}
@@ -43,6 +45,187 @@ public abstract class BaseGeometry<T> extends ArrayList<T> {
      */
     public abstract boolean isEquivalentTo(BaseGeometry<?> obj);
 
+    /**
+     * Packs the coordinates of every {@link LineString} and {@link MultiPoint} in this geometry, including
+     * polygon rings and the members of collections, to reduce the memory they take. See {@link PointCollection}.
+     */
+    public void pack() {
+        for (T member : this) {
+            if (member instanceof BaseGeometry) {
+                ((BaseGeometry<?>) member).pack();
+            }
+        }
+    }
+
+    /**
+     * A hash code that equivalent geometries share: if a.isEquivalentTo(b) then a.fingerprint() == b.fingerprint().
+     * Unlike {@link #hashCode()} it doesn't change when Points or members are reordered in the ways
+     * {@link #isEquivalentTo} ignores, so geometries with different fingerprints are never equivalent. See
+     * {@link EquivalenceKey} for using it with hash-based collections.
+     *
+     * It isn't cached: each call looks at every Point, and sorts the member hashes of collections. A geometry can
+     * be changed in place, through a member that doesn't know which geometries hold it, so a cache couldn't tell
+     * when it had gone stale. {@link EquivalenceKey} computes it once per key.
+     *
+     * @return
+     */
+    public int fingerprint() {
+        return equivalenceHash();
+    }
+
+    /**
+     * Package private. Computes {@link #fingerprint()}.
+     *
+     * @return
+     */
+    int equivalenceHash() {
+        GeometryType type = getType();
+        return type == null ? 0 : type.ordinal();
+    }
+
+    /**
+     * Package private. Combines the equivalence hashes of members that are matched up in any order, ignoring
+     * nulls. See {@link #unorderedHash}.
+     *
+     * @param members
+     * @return
+     */
+    static int membersHash(List<? extends BaseGeometry<?>> members) {
+        int[] hashes = new int[members.size()];
+        int count = 0;
+        for (BaseGeometry<?> member : members) {
+            if (member != null) {
+                hashes[count++] = member.equivalenceHash();
+            }
+        }
+
+        return unorderedHash(hashes, count, members.size());
+    }
+
+    /**
+     * Package private. Combines every distinct hash among the first count, so that neither their order nor how
+     * often each one is repeated changes the result: {@link #isEquivalentTo} matches the members of collections
+     * both ways, so a collection with a repeated member can be equivalent to one without. The size, which
+     * equivalent collections share, goes in as well. Sorts the hashes in place.
+     *
+     * @param hashes
+     * @param count
+     * @param size
+     * @return
+     */
+    static int unorderedHash(int[] hashes, int count, int size) {
+        Arrays.sort(hashes, 0, count);
+
+        int sum = 0;
+        int xor = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && hashes[i] == hashes[i - 1]) {
+                continue;
+            }
+
+            // spread the bits, so that members whose hashes differ in only a few bits don't cancel out
+            int mixed = hashes[i] * 0x9E3779B9;
+            mixed ^= mixed >>> 16;
+            sum += mixed;
+            xor ^= mixed;
+        }
+
+        return 31 * (31 * size + sum) + xor;
+    }
+
+    /**
+     * Package private. Whether every non-null member of members is equivalent to some member of others. Only the
+     * members of others with the same equivalence hash are compared, so this takes O(n log n) time unless a lot of
+     * members share a hash.
+     *
+     * @param members
+     * @param others
+     * @return
+     */
+    static boolean containsEquivalents(List<? extends BaseGeometry<?>> members,
+                                       List<? extends BaseGeometry<?>> others) {
+        long[] keys = sortedHashes(others);
+
+        for (BaseGeometry<?> member : members) {
+            if (member == null) {
+                continue;
+            }
+
+            boolean success = false;
+
+            int hash = member.equivalenceHash();
+            for (int k = firstWithHash(keys, hash); k < keys.length && keyHash(keys[k]) == hash; k++) {
+                if (member.isEquivalentTo(others.get(keyIndex(keys[k])))) {
+                    success = true;
+                    break;
+                }
+            }
+
+            if (!success) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Package private. Sort keys holding a hash in the high 32 bits and an index in the low 32 bits, so that
+     * sorting them groups the indices by hash. Use {@link #firstWithHash}, {@link #keyHash} and {@link #keyIndex}
+     * to read them.
+     *
+     * @param hashes
+     * @return
+     */
+    static long[] sortedKeys(int[] hashes) {
+        long[] keys = new long[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            keys[i] = ((long) hashes[i] << 32) | i;
+        }
+
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Package private. The index of the first key with the given hash, or of the first key with a larger hash if
+     * there isn't one.
+     */
+    static int firstWithHash(long[] keys, int hash) {
+        long target = (long) hash << 32;
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    static int keyHash(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int keyIndex(long key) {
+        return (int) key;
+    }
+
+    private static long[] sortedHashes(List<? extends BaseGeometry<?>> geometries) {
+        int[] hashes = new int[geometries.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            BaseGeometry<?> geometry = geometries.get(i);
+            // null members are never equivalent to anything; give them a hash, they just won't match
+            hashes[i] = geometry == null ? 0 : geometry.equivalenceHash();
+        }
+
+        return sortedKeys(hashes);
+    }
+
     /**
      * Package private.
      *
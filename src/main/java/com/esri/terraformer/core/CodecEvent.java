@@ -0,0 +1,161 @@
+package com.esri.terraformer.core;
+
+/**
+ * One decode or encode, as reported to a {@link CodecListener}. The feature and vertex counts are worked out from
+ * the geometry the first time they are asked for, so listeners that don't want them don't pay for them.
+ *
+ * The bytes allocated are counted by the JVM for the calling thread, so they are only known on JVMs whose
+ * ThreadMXBean counts them, such as HotSpot. They include everything the thread allocated during the call, the
+ * geometry and output as well as the garbage.
+ */
+public final class CodecEvent {
+    /** The length given for an input or output whose size isn't known, such as a Reader or Writer. */
+    public static final long UNKNOWN_LENGTH = -1;
+
+    /** The allocated bytes given when the JVM can't count them. */
+    public static final long UNKNOWN_ALLOCATED_BYTES = -1;
+
+    private final String format;
+    private final BaseGeometry<?> geometry;
+    private final long nanos;
+    private final long length;
+    private final long allocatedBytes;
+    private int featureCount = -1;
+    private int vertexCount = -1;
+
+    /**
+     * @param format
+     * @param geometry the geometry that was decoded or encoded
+     * @param nanos
+     * @param length see {@link #getLength()}
+     */
+    public CodecEvent(String format, BaseGeometry<?> geometry, long nanos, long length) {
+        this(format, geometry, nanos, length, UNKNOWN_ALLOCATED_BYTES);
+    }
+
+    /**
+     * @param format
+     * @param geometry the geometry that was decoded or encoded
+     * @param nanos
+     * @param length see {@link #getLength()}
+     * @param allocatedBytes see {@link #getAllocatedBytes()}
+     */
+    public CodecEvent(String format, BaseGeometry<?> geometry, long nanos, long length, long allocatedBytes) {
+        this.format = format;
+        this.geometry = geometry;
+        this.nanos = nanos;
+        this.length = length;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * For decoders and encoders that report their own events: read this before the call and pass it to
+     * {@link #allocatedSince(long)} after. {@link CodecTimer} does both.
+     *
+     * @return the bytes the current thread has allocated since it started, or {@link #UNKNOWN_ALLOCATED_BYTES}
+     */
+    public static long threadAllocatedBytes() {
+        return AllocationCounter.currentThread();
+    }
+
+    /**
+     * @param start what {@link #threadAllocatedBytes()} returned before the call
+     * @return the bytes the current thread has allocated since then, or {@link #UNKNOWN_ALLOCATED_BYTES}
+     */
+    public static long allocatedSince(long start) {
+        if (start < 0) {
+            return UNKNOWN_ALLOCATED_BYTES;
+        }
+
+        long now = AllocationCounter.currentThread();
+        return now < 0 ? UNKNOWN_ALLOCATED_BYTES : now - start;
+    }
+
+    /**
+     * @return the name of the format, such as "GeoJSON": the decoder or encoder's
+     * {@link Terraformer.Named#getFormatName()}, or else its class name
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the geometry that was decoded or encoded. Listeners shouldn't change it.
+     */
+    public BaseGeometry<?> getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return the type of the geometry, or null if there wasn't one
+     */
+    public GeometryType getGeometryType() {
+        return geometry == null ? null : geometry.getType();
+    }
+
+    /**
+     * @return how long the decode or encode took, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the size of the input decoded or the output encoded: bytes for a ByteBuffer or OutputStream,
+     * characters for a String, or {@link #UNKNOWN_LENGTH}
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the bytes allocated by the thread during the decode or encode, or {@link #UNKNOWN_ALLOCATED_BYTES}
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the number of Features: the size of a FeatureCollection, 1 for a Feature and 0 for anything else
+     */
+    public int getFeatureCount() {
+        if (featureCount < 0) {
+            if (geometry instanceof FeatureCollection) {
+                featureCount = geometry.size();
+            } else {
+                featureCount = geometry instanceof Feature ? 1 : 0;
+            }
+        }
+
+        return featureCount;
+    }
+
+    /**
+     * @return the number of Points in the geometry, counting those of every ring, member and Feature
+     */
+    public int getVertexCount() {
+        if (vertexCount < 0) {
+            vertexCount = vertexCount(geometry);
+        }
+
+        return vertexCount;
+    }
+
+    private static int vertexCount(BaseGeometry<?> geometry) {
+        if (geometry == null) {
+            return 0;
+        } else if (geometry instanceof Point) {
+            return geometry.isEmpty() ? 0 : 1;
+        } else if (geometry instanceof PointCollection) {
+            return geometry.size();
+        }
+
+        int count = 0;
+        for (Object member : geometry) {
+            if (member instanceof BaseGeometry) {
+                count += vertexCount((BaseGeometry<?>) member);
+            }
+        }
+        return count;
+    }
+}
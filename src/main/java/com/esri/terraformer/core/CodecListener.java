@@ -0,0 +1,42 @@
+package com.esri.terraformer.core;
+
+/**
+ * Is told about each decode and encode done by a {@link Terraformer} or a codec such as
+ * {@link com.esri.terraformer.formats.GeoJson} or {@link com.esri.terraformer.formats.EsriJson}, with how long it
+ * took and how big it was, so they can be recorded as metrics. Set one with {@link Terraformer#setListener} or the
+ * codec's setListener. Override the methods for the events wanted; the others do nothing.
+ *
+ * Listeners are called on the thread that did the work, after it is done, so a listener shared by a Terraformer or
+ * codec that is used from several threads must be thread-safe, and should be quick. Calls that fail aren't reported.
+ *
+ * Nothing is timed or counted unless a listener is set: the default is {@link #NONE}, which the Terraformer and
+ * codecs check for and skip.
+ */
+public abstract class CodecListener {
+    /** Listens to nothing. */
+    public static final CodecListener NONE = new CodecListener() {};
+
+    /**
+     * Called after an input has been decoded.
+     *
+     * @param event
+     */
+    public void decoded(CodecEvent event) {}
+
+    /**
+     * Called after a geometry has been encoded.
+     *
+     * @param event
+     */
+    public void encoded(CodecEvent event) {}
+
+    /**
+     * Called after the rings of an Esri JSON polygon have been sorted into outer rings and the holes inside them,
+     * which is the part of decoding that grows fastest with the number of rings.
+     *
+     * @param outerRings the number of clockwise rings
+     * @param holes the number of counterclockwise rings
+     * @param nanos
+     */
+    public void holesAssigned(int outerRings, int holes, long nanos) {}
+}
@@ -0,0 +1,50 @@
+package com.esri.terraformer.core;
+
+/**
+ * Times one decode or encode for a {@link CodecListener}. Start one just before the call; it is only made when
+ * there is a listener, so nothing is timed or counted otherwise. After the call, tell it what was decoded or
+ * encoded and it reports the {@link CodecEvent}.
+ */
+public final class CodecTimer {
+    private final CodecListener listener;
+    private final String format;
+    private final long allocated;
+    private final long start;
+
+    private CodecTimer(CodecListener listener, String format) {
+        this.listener = listener;
+        this.format = format;
+        allocated = CodecEvent.threadAllocatedBytes();
+        start = System.nanoTime();
+    }
+
+    /**
+     * @param listener
+     * @param format see {@link CodecEvent#getFormat()}
+     * @return a timer started now, or null if the listener is {@link CodecListener#NONE}
+     */
+    public static CodecTimer start(CodecListener listener, String format) {
+        return listener == CodecListener.NONE ? null : new CodecTimer(listener, format);
+    }
+
+    /**
+     * @param geometry the geometry decoded
+     * @param length see {@link CodecEvent#getLength()}
+     */
+    public void decoded(BaseGeometry<?> geometry, long length) {
+        listener.decoded(event(geometry, length));
+    }
+
+    /**
+     * @param geometry the geometry encoded
+     * @param length see {@link CodecEvent#getLength()}
+     */
+    public void encoded(BaseGeometry<?> geometry, long length) {
+        listener.encoded(event(geometry, length));
+    }
+
+    private CodecEvent event(BaseGeometry<?> geometry, long length) {
+        long nanos = System.nanoTime() - start;
+        return new CodecEvent(format, geometry, nanos, length, CodecEvent.allocatedSince(allocated));
+    }
+}
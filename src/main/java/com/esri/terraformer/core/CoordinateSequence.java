@@ -0,0 +1,43 @@
+package com.esri.terraformer.core;
+
+/**
+ * Read access to the coordinates of a sequence of Points as primitive doubles, without going through
+ * {@link Point} objects. {@link LineString} and {@link MultiPoint} (through {@link PointCollection}) are
+ * coordinate sequences, so polygon rings are too.
+ *
+ * When the coordinates are packed (see {@link PointCollection#pack()}) every Point has the same dimension and
+ * none of the methods allocate. Otherwise they read from the Points, and fail the same way the Point getters
+ * do for a null Point or a missing coordinate.
+ */
+public interface CoordinateSequence {
+    /**
+     * @return the number of Points
+     */
+    public int size();
+
+    /**
+     * @return the number of coordinates in each Point, or in the first Point if they differ. 0 if there are none.
+     */
+    public int getDimension();
+
+    /**
+     * @param index
+     * @return the number of coordinates in the Point at index
+     */
+    public int getDimension(int index);
+
+    /**
+     * @param index the index of the Point
+     * @param ordinate 0 for x, 1 for y, 2 for z, 3 for m
+     * @return
+     */
+    public double getOrdinate(int index, int ordinate);
+
+    public double getX(int index);
+
+    public double getY(int index);
+
+    public double getZ(int index);
+
+    public double getM(int index);
+}
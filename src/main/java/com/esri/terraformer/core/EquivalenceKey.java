@@ -0,0 +1,50 @@
+package com.esri.terraformer.core;
+
+/**
+ * Wraps a geometry for use as a key of a HashMap or HashSet, so that keys are equal when their geometries are
+ * equivalent (see {@link BaseGeometry#isEquivalentTo}) instead of equal. The hash code is the geometry's
+ * {@link BaseGeometry#fingerprint()}, worked out once when the key is made.
+ *
+ * The geometry isn't copied; don't change it while the key is in a collection.
+ */
+public final class EquivalenceKey {
+    private final BaseGeometry<?> geometry;
+    private final int hash;
+
+    public EquivalenceKey(BaseGeometry<?> geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException("Geometry must not be null");
+        }
+
+        this.geometry = geometry;
+        hash = geometry.fingerprint();
+    }
+
+    public BaseGeometry<?> getGeometry() {
+        return geometry;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof EquivalenceKey)) {
+            return false;
+        }
+
+        EquivalenceKey other = (EquivalenceKey) o;
+        return hash == other.hash && geometry.isEquivalentTo(other.geometry);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "EquivalenceKey[" + geometry + "]";
+    }
+}
@@ -1,17 +1,27 @@
 package com.esri.terraformer.core;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import java.util.Collection;
 import java.util.List;
 
 /**
  * Feature contains a single Geometry, and this is enforced during editing.
+ *
+ * Decoders can give a Feature its properties as JSON text with {@link #setRawProperties(String)}, which is only parsed
+ * into a JsonObject if {@link #getProperties()} is called. Encoders never call that, since it changes the Feature;
+ * they write from the text through {@link #getRawProperties()} and {@link #peekProperties()}, giving the same output
+ * the parsed object would. The same goes for properties held in a {@link PropertyTable} by
+ * {@link FeatureCollection#packProperties()}.
  */
 public class Feature extends BaseGeometry<Geometry<?>> {
     public static final String ERROR_PREFIX = "Error while parsing Feature: ";
 
     private JsonObject mProperties = new JsonObject();
+    private String mRawProperties = null;
+    private PropertyTable mPropertyTable = null;
+    private int mPropertyRow;
     private String mId = null;
 
     /**
@@ -252,7 +262,39 @@ public class Feature extends BaseGeometry<Geometry<?>> {
     @Deprecated
     public final void ensureCapacity(int i) {}
 
+    /**
+     * Parses the properties first if they were set with {@link #setRawProperties(String)}, or reads them from the
+     * Feature's row if they are in a {@link PropertyTable}. Since the returned object can be changed, the text or row
+     * is dropped once the object has been made, and encoders write the object instead.
+     *
+     * @return
+     */
     public JsonObject getProperties() {
+        if (mRawProperties != null) {
+            mProperties = JsonParser.parseString(mRawProperties).getAsJsonObject();
+            mRawProperties = null;
+        } else if (mPropertyTable != null) {
+            mProperties = mPropertyTable.toJsonObject(mPropertyRow);
+            mPropertyTable = null;
+        }
+
+        return mProperties;
+    }
+
+    /**
+     * The properties as {@link #getProperties()} would return them, but without changing the Feature, so threads
+     * that share it can all call this. Properties held as text or in a {@link PropertyTable} come back as a new
+     * object each time, and changes to it aren't kept.
+     *
+     * @return
+     */
+    public JsonObject peekProperties() {
+        if (mRawProperties != null) {
+            return JsonParser.parseString(mRawProperties).getAsJsonObject();
+        } else if (mPropertyTable != null) {
+            return mPropertyTable.toJsonObject(mPropertyRow);
+        }
+
         return mProperties;
     }
 
@@ -263,6 +305,56 @@ public class Feature extends BaseGeometry<Geometry<?>> {
      */
     public void setProperties(JsonObject properties) {
         mProperties = properties;
+        mRawProperties = null;
+        mPropertyTable = null;
+    }
+
+    /**
+     * Sets the properties as the JSON text of an object, to be parsed if and when {@link #getProperties()} is
+     * called. The text isn't checked here, so it must come from a parser that has already read it as an object.
+     *
+     * @param json the properties object as JSON text, or null for no properties
+     */
+    public void setRawProperties(String json) {
+        mRawProperties = json;
+        mProperties = null;
+        mPropertyTable = null;
+    }
+
+    /**
+     * @return the JSON text given to {@link #setRawProperties(String)}, or null if there wasn't any or it has since
+     * been parsed by {@link #getProperties()} or replaced by {@link #setProperties(JsonObject)}
+     */
+    public String getRawProperties() {
+        return mRawProperties;
+    }
+
+    /**
+     * Package private. Moves the properties to a row of a table that has already copied them.
+     *
+     * @param table
+     * @param row
+     */
+    void setPropertyRow(PropertyTable table, int row) {
+        mPropertyTable = table;
+        mPropertyRow = row;
+        mProperties = null;
+        mRawProperties = null;
+    }
+
+    /**
+     * @return the table holding the properties, or null if they aren't in one or have since been taken out of it by
+     * {@link #getProperties()} or replaced
+     */
+    public PropertyTable getPropertyTable() {
+        return mPropertyTable;
+    }
+
+    /**
+     * @return the row of {@link #getPropertyTable()} holding the properties; meaningless if that is null
+     */
+    public int getPropertyRow() {
+        return mPropertyRow;
     }
 
     /** Set the unique identifier for this Feature. */
@@ -313,4 +405,10 @@ public class Feature extends BaseGeometry<Geometry<?>> {
 
         return geo.isEquivalentTo(other.get(0));
     }
+
+    @Override
+    int equivalenceHash() {
+        Geometry<?> geo = isEmpty() ? null : get(0);
+        return geo == null ? 0 : geo.equivalenceHash();
+    }
 }
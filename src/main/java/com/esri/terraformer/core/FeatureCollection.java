@@ -6,6 +6,8 @@ import java.util.Collection;
 public final class FeatureCollection extends BaseGeometry<Feature> {
     public static final String ERROR_PREFIX = "Error while parsing FeatureCollection: ";
 
+    private transient PropertyTable propertyTable;
+
     /**
      * A valid FeatureCollection contains 0 or more non-null {@link Feature}'s.
      *
@@ -23,6 +25,37 @@ public final class FeatureCollection extends BaseGeometry<Feature> {
         super(c);
     }
 
+    /**
+     * Moves the properties of every Feature into a single {@link PropertyTable}, which holds them by column to take a
+     * fraction of the memory, and whose getters scan a column without creating objects. Row i of the table is the
+     * Feature at index i now; each Feature keeps its row until its properties are asked for or replaced, so
+     * {@link Feature#getProperties()} still works as before and encoders write the properties from the table.
+     *
+     * Features added afterwards keep their own properties, and the table stays as it is when the collection changes;
+     * call this again to build a new one.
+     *
+     * @return the table, also kept as {@link #getPropertyTable()}
+     */
+    public PropertyTable packProperties() {
+        PropertyTable table = PropertyTable.build(this);
+        for (int row = 0; row < size(); row++) {
+            Feature feat = get(row);
+            if (feat != null && table.hasProperties(row)) {
+                feat.setPropertyRow(table, row);
+            }
+        }
+
+        propertyTable = table;
+        return table;
+    }
+
+    /**
+     * @return the table built by the last call to {@link #packProperties()}, or null if there hasn't been one
+     */
+    public PropertyTable getPropertyTable() {
+        return propertyTable;
+    }
+
     @Override
     public GeometryType getType() {
         return GeometryType.FEATURECOLLECTION;
@@ -58,25 +91,11 @@ public final class FeatureCollection extends BaseGeometry<Feature> {
     }
 
     static boolean featureCollectionContainsOther(FeatureCollection fc1, FeatureCollection fc2) {
-        for (Feature feat : fc1) {
-            if (feat == null) {
-                continue;
-            }
-
-            boolean success = false;
-
-            for (Feature otherFeat : fc2) {
-                if (feat.isEquivalentTo(otherFeat)) {
-                    success = true;
-                    break;
-                }
-            }
-
-            if (!success) {
-                return false;
-            }
-        }
+        return containsEquivalents(fc1, fc2);
+    }
 
-        return true;
+    @Override
+    int equivalenceHash() {
+        return membersHash(this);
     }
 }
@@ -8,6 +8,7 @@ import java.util.Collection;
 public final class GeometryCollection extends Geometry<Geometry<?>> {
     public static final String ERROR_PREFIX = "Error while parsing GeometryCollection: ";
 
+
     /**
      * A valid GeometryCollection contains 0 or more non-null {@link Geometry}'s.
      *
@@ -71,25 +72,11 @@ public final class GeometryCollection extends Geometry<Geometry<?>> {
     }
 
     static boolean geometryCollectionContainsOther(GeometryCollection gc1, GeometryCollection gc2) {
-        for (Geometry<?> geo : gc1) {
-            if (geo == null) {
-                continue;
-            }
-
-            boolean success = false;
-
-            for (Geometry<?> otherGeo : gc2) {
-                if (geo.isEquivalentTo(otherGeo)) {
-                    success = true;
-                    break;
-                }
-            }
-
-            if (!success) {
-                return false;
-            }
-        }
+        return containsEquivalents(gc1, gc2);
+    }
 
-        return true;
+    @Override
+    int equivalenceHash() {
+        return membersHash(this);
     }
 }
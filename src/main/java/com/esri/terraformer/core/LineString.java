@@ -4,7 +4,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
-public final class LineString extends Geometry<Point> {
+public final class LineString extends PointCollection {
     public static final String ERROR_PREFIX = "Error while parsing LineString: ";
 
     /**
@@ -34,13 +34,7 @@ public final class LineString extends Geometry<Point> {
 
     @Override
     public boolean isValid() {
-        for (Point p : this) {
-            if (p == null || !p.isValid()) {
-                return false;
-            }
-        }
-
-        return size() > 1;
+        return pointsAreValid() && size() > 1;
     }
 
     @Override
@@ -66,14 +60,23 @@ public final class LineString extends Geometry<Point> {
             return compareLinearRings(this, other);
         }
 
-        LineString reversed = new LineString(other);
-        Collections.reverse(reversed);
+        return equals(other) || equalsReversed(other);
+    }
+
+    @Override
+    int equivalenceHash() {
+        // a sum, so that it doesn't depend on the direction or, for rings, on where the ring starts
+        int count = isLinearRing() ? size() - 1 : size();
+        int hash = 0;
+        for (int i = 0; i < count; i++) {
+            hash += pointHash(i);
+        }
 
-        return equals(other) || equals(reversed);
+        return 31 * size() + hash;
     }
 
     public boolean isLinearRing() {
-        return size() > 3 && get(0).equals(get(size() -1));
+        return size() > 3 && pointsEqual(0, size() - 1);
     }
 
     /**
@@ -95,6 +98,10 @@ public final class LineString extends Geometry<Point> {
     /**
      * Package private. Might return null.
      *
+     * Whether the rings have the same Points in the same cyclic order, in either direction. Looks for lr1 in lr2
+     * followed by itself, forwards and then backwards, with the Knuth-Morris-Pratt algorithm, so it takes linear
+     * time and doesn't copy either ring.
+     *
      * @param lr1
      * @param lr2
      * @return
@@ -112,27 +119,67 @@ public final class LineString extends Geometry<Point> {
             return false;
         }
 
-        // copy lr1 and lr2 for editing
-        LineString lr1Copy = new LineString(lr1);
-        LineString lr2Copy = new LineString(lr2);
-        LineString lr2Reverse = new LineString(lr2);
-        Collections.reverse(lr2Reverse);
-
-        // remove wrap points
+        // leave out the wrap points
         int size = lr1.size() - 1;
-        lr1Copy.remove(size);
-        lr2Copy.remove(size);
-        lr2Reverse.remove(size);
 
-        // Rotate in both directions and compare at each rotation.
-        for (int i = 0; i < size; i++) {
-            Collections.rotate(lr2Copy, i);
-            Collections.rotate(lr2Reverse, i);
-            if (lr1Copy.equals(lr2Copy) || lr1Copy.equals(lr2Reverse)) {
+        // failure[i] is the length of the longest proper prefix of lr1[0..i] that is also a suffix of it
+        int[] failure = new int[size];
+        int matched = 0;
+        for (int i = 1; i < size; i++) {
+            while (matched > 0 && !lr1.pointsEqual(i, lr1, matched)) {
+                matched = failure[matched - 1];
+            }
+
+            if (lr1.pointsEqual(i, lr1, matched)) {
+                matched++;
+            }
+
+            failure[i] = matched;
+        }
+
+        return occursInRing(lr1, failure, lr2, false) || occursInRing(lr1, failure, lr2, true);
+    }
+
+    /**
+     * Whether the first size() - 1 Points of pattern occur in ring read twice around, starting anywhere.
+     */
+    private static boolean occursInRing(LineString pattern, int[] failure, LineString ring, boolean reversed) {
+        int size = failure.length;
+        int matched = 0;
+        for (int k = 0; k < 2 * size - 1; k++) {
+            int index = reversed ? (2 * size - k) % size : k % size;
+
+            while (matched > 0 && !pattern.pointsEqual(matched, ring, index)) {
+                matched = failure[matched - 1];
+            }
+
+            if (pattern.pointsEqual(matched, ring, index)) {
+                matched++;
+            }
+
+            if (matched == size) {
                 return true;
             }
         }
 
         return false;
     }
+
+    /**
+     * Whether other has the same Points as this in reverse order.
+     */
+    private boolean equalsReversed(LineString other) {
+        int size = size();
+        if (size != other.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!pointsEqual(i, other, size - 1 - i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
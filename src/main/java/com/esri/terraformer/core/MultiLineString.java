@@ -6,6 +6,7 @@ import java.util.Collection;
 public final class MultiLineString extends Geometry<LineString> {
     public static final String ERROR_PREFIX = "Error while parsing MultiLineString: ";
 
+
     /**
      * A valid MultiLineString contains 0 or more non-null {@link LineString}'s.
      *
@@ -58,25 +59,11 @@ public final class MultiLineString extends Geometry<LineString> {
     }
 
     static boolean multiLineStringContainsOther(MultiLineString mls1, MultiLineString mls2) {
-        for (LineString ls : mls1) {
-            if (ls == null) {
-                continue;
-            }
-
-            boolean success = false;
-
-            for (LineString otherLS : mls2) {
-                if (ls.isEquivalentTo(otherLS)) {
-                    success = true;
-                    break;
-                }
-            }
-
-            if (!success) {
-                return false;
-            }
-        }
+        return containsEquivalents(mls1, mls2);
+    }
 
-        return true;
+    @Override
+    int equivalenceHash() {
+        return membersHash(this);
     }
 }
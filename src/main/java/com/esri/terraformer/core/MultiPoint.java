@@ -3,7 +3,7 @@ package com.esri.terraformer.core;
 import java.util.Arrays;
 import java.util.Collection;
 
-public final class MultiPoint extends Geometry<Point> {
+public final class MultiPoint extends PointCollection {
     public static final String ERROR_PREFIX = "Error while parsing MultiPoint: ";
 
     /**
@@ -30,13 +30,7 @@ public final class MultiPoint extends Geometry<Point> {
 
     @Override
     public boolean isValid() {
-        for (Point p : this) {
-            if (p == null || !p.isValid()) {
-                return false;
-            }
-        }
-
-        return size() > 1;
+        return pointsAreValid() && size() > 1;
     }
 
     @Override
@@ -46,7 +40,20 @@ public final class MultiPoint extends Geometry<Point> {
             return equal;
         }
 
+        MultiPoint other = (MultiPoint) obj;
+
         // gotta do contains in both directions to account for duplicates that exist only on one side.
-        return obj.containsAll(this) && containsAll(obj);
+        return other.containsAllPoints(this) && containsAllPoints(other);
+    }
+
+    @Override
+    int equivalenceHash() {
+        // independent of the order of the Points and of how often each one appears
+        int[] hashes = new int[size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = pointHash(i);
+        }
+
+        return unorderedHash(hashes, hashes.length, size());
     }
 }
@@ -6,6 +6,7 @@ import java.util.Collection;
 public final class MultiPolygon extends Geometry<Polygon> {
     public static final String ERROR_PREFIX = "Error while parsing MultiPolygon: ";
 
+
     /**
      * A valid MultiPolygon contains 0 or more non-null {@link Polygon}'s.
      *
@@ -58,25 +59,11 @@ public final class MultiPolygon extends Geometry<Polygon> {
     }
 
     static boolean multiPolygonContainsOther(MultiPolygon mpg1, MultiPolygon mpg2) {
-        for (Polygon pg : mpg1) {
-            if (pg == null) {
-                continue;
-            }
-
-            boolean success = false;
-
-            for (Polygon otherPg : mpg2) {
-                if (pg.isEquivalentTo(otherPg)) {
-                    success = true;
-                    break;
-                }
-            }
-
-            if (!success) {
-                return false;
-            }
-        }
+        return containsEquivalents(mpg1, mpg2);
+    }
 
-        return true;
+    @Override
+    int equivalenceHash() {
+        return membersHash(this);
     }
 }
@@ -55,6 +55,11 @@ public final class Point extends Geometry<Double> {
         return obj != null && obj.getClass() == Point.class && equals(obj);
     }
 
+    @Override
+    int equivalenceHash() {
+        return hashCode();
+    }
+
     public double getX() {
         return get(0);
     }
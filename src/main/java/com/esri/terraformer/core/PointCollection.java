@@ -0,0 +1,706 @@
+package com.esri.terraformer.core;
+
+import java.io.ObjectStreamException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The shared base of {@link LineString} and {@link MultiPoint}, which can keep their coordinates packed.
+ *
+ * A packed geometry holds its coordinates interleaved in a single double[] (x, y[, z[, m]] for each Point)
+ * instead of as a list of {@link Point}'s, each of which is a list of boxed Doubles. That takes 16-32 bytes
+ * per Point instead of well over 80. Call {@link #pack()} once a geometry has been built, or on a decoded
+ * geometry through {@link BaseGeometry#pack()}.
+ *
+ * A packed geometry is still a List of Points. {@link #size()}, {@link #isEmpty()}, {@link #equals(Object)},
+ * {@link #hashCode()} and the {@link CoordinateSequence} methods work on the packed coordinates, and so do the
+ * encoders.
+ * Any other List method unpacks the geometry back into Point objects first, after which it stays unpacked until
+ * it is packed again.
+ *
+ * That includes the methods ArrayList implements directly against its internal array: forEach, removeIf,
+ * replaceAll, sort and spliterator (which stream uses), and from Java 21 getFirst, getLast, removeFirst and
+ * removeLast.
+ */
+public abstract class PointCollection extends Geometry<Point> implements CoordinateSequence {
+    /**
+     * The number of ordinates in each Point of a packed geometry can be 2, 3 or 4.
+     */
+    public static final int MIN_PACKED_DIMENSION = 2;
+    public static final int MAX_PACKED_DIMENSION = 4;
+
+    private static final long serialVersionUID = 1L;
+
+    // never modified once assigned, so copies of this geometry can share it
+    private transient double[] packed;
+    private transient int packedSize;
+    private transient int dimension;
+
+    protected PointCollection() {}
+
+    protected PointCollection(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    protected PointCollection(Collection<Point> c) {
+        super(isPacked(c) ? 0 : c.size());
+
+        if (isPacked(c)) {
+            PointCollection other = (PointCollection) c;
+            packed = other.packed;
+            packedSize = other.packedSize;
+            dimension = other.dimension;
+        } else {
+            super.addAll(c);
+        }
+    }
+
+    /**
+     * Packs the coordinates of this geometry into a single array. Nothing happens if the geometry is empty,
+     * if any of its Points is null or has a null coordinate, or if its Points don't all have the same number of
+     * coordinates, between {@link #MIN_PACKED_DIMENSION} and {@link #MAX_PACKED_DIMENSION}.
+     *
+     * Points taken from this geometry before it was packed are no longer part of it.
+     */
+    @Override
+    public void pack() {
+        if (packed != null || super.isEmpty()) {
+            return;
+        }
+
+        Point first = super.get(0);
+        if (first == null) {
+            return;
+        }
+
+        int dim = first.size();
+        if (dim < MIN_PACKED_DIMENSION || dim > MAX_PACKED_DIMENSION) {
+            return;
+        }
+
+        int size = super.size();
+        double[] coords = new double[size * dim];
+        int c = 0;
+        for (int i = 0; i < size; i++) {
+            Point p = super.get(i);
+            if (p == null || p.size() != dim) {
+                return;
+            }
+
+            for (int j = 0; j < dim; j++) {
+                Double coord = p.get(j);
+                if (coord == null) {
+                    return;
+                }
+
+                coords[c++] = coord;
+            }
+        }
+
+        super.clear();
+        super.trimToSize();
+        packed = coords;
+        packedSize = size;
+        dimension = dim;
+    }
+
+    /**
+     * Turns packed coordinates back into {@link Point}'s. The List methods that need Point objects do this
+     * automatically.
+     */
+    public void unpack() {
+        if (packed == null) {
+            return;
+        }
+
+        double[] coords = packed;
+        int size = packedSize;
+        int dim = dimension;
+        packed = null;
+        packedSize = 0;
+        dimension = 0;
+
+        super.ensureCapacity(size);
+        int c = 0;
+        for (int i = 0; i < size; i++) {
+            Point p = new Point(dim);
+            for (int j = 0; j < dim; j++) {
+                p.add(coords[c++]);
+            }
+
+            super.add(p);
+        }
+    }
+
+    /**
+     * @return whether the coordinates are currently packed. See {@link #pack()}.
+     */
+    public boolean isPacked() {
+        return packed != null;
+    }
+
+    /**
+     * Replaces the contents of this geometry with packed coordinates, without creating Point objects.
+     *
+     * @param coordinates the coordinates of each Point in turn; the first size * dimension are copied
+     * @param size the number of Points
+     * @param dimension the number of coordinates in each Point, between {@link #MIN_PACKED_DIMENSION} and
+     *                  {@link #MAX_PACKED_DIMENSION}
+     */
+    public void setCoordinates(double[] coordinates, int size, int dimension) {
+        if (dimension < MIN_PACKED_DIMENSION || dimension > MAX_PACKED_DIMENSION) {
+            throw new IllegalArgumentException("Packed Points must have between " + MIN_PACKED_DIMENSION + " and " +
+                    MAX_PACKED_DIMENSION + " coordinates: " + dimension);
+        }
+
+        if (size < 0 || size * dimension > coordinates.length) {
+            throw new IllegalArgumentException("Not enough coordinates for " + size + " Points");
+        }
+
+        clear();
+        if (size == 0) {
+            return;
+        }
+
+        double[] coords = new double[size * dimension];
+        System.arraycopy(coordinates, 0, coords, 0, coords.length);
+
+        super.trimToSize();
+        packed = coords;
+        packedSize = size;
+        this.dimension = dimension;
+    }
+
+    @Override
+    public int getDimension() {
+        if (packed != null) {
+            return dimension;
+        }
+
+        if (super.isEmpty() || super.get(0) == null) {
+            return 0;
+        }
+
+        return super.get(0).size();
+    }
+
+    @Override
+    public int getDimension(int index) {
+        if (packed == null) {
+            return super.get(index).size();
+        }
+
+        checkIndex(index);
+        return dimension;
+    }
+
+    @Override
+    public double getOrdinate(int index, int ordinate) {
+        if (packed == null) {
+            return super.get(index).get(ordinate);
+        }
+
+        checkIndex(index);
+        if (ordinate < 0 || ordinate >= dimension) {
+            throw new IndexOutOfBoundsException("Ordinate: " + ordinate + ", Dimension: " + dimension);
+        }
+
+        return packed[index * dimension + ordinate];
+    }
+
+    @Override
+    public double getX(int index) {
+        return getOrdinate(index, 0);
+    }
+
+    @Override
+    public double getY(int index) {
+        return getOrdinate(index, 1);
+    }
+
+    @Override
+    public double getZ(int index) {
+        return getOrdinate(index, 2);
+    }
+
+    @Override
+    public double getM(int index) {
+        return getOrdinate(index, 3);
+    }
+
+    /**
+     * Package private. Compares two Points of this geometry without unpacking it.
+     *
+     * @param i
+     * @param j
+     * @return
+     */
+    boolean pointsEqual(int i, int j) {
+        if (packed == null) {
+            return super.get(i).equals(super.get(j));
+        }
+
+        for (int k = 0; k < dimension; k++) {
+            if (!sameDouble(packed[i * dimension + k], packed[j * dimension + k])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Package private. Compares a Point of this geometry with a Point of another the way {@link Point#equals} does,
+     * without unpacking either. Null Points are equal to each other.
+     *
+     * @param i
+     * @param other
+     * @param j
+     * @return
+     */
+    boolean pointsEqual(int i, PointCollection other, int j) {
+        if (packed == null) {
+            if (other.packed != null) {
+                return other.pointsEqual(j, this, i);
+            }
+
+            Point p = super.get(i);
+            return p == null ? other.unpackedGet(j) == null : p.equals(other.unpackedGet(j));
+        }
+
+        if (other.packed == null) {
+            return pointEquals(i, other.unpackedGet(j));
+        }
+
+        if (dimension != other.dimension) {
+            return false;
+        }
+
+        for (int k = 0; k < dimension; k++) {
+            if (!sameDouble(packed[i * dimension + k], other.packed[j * other.dimension + k])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Package private. The hash code of the Point at index, the same as {@link Point#hashCode()}, without unpacking.
+     *
+     * @param index
+     * @return
+     */
+    int pointHash(int index) {
+        if (packed == null) {
+            Point p = super.get(index);
+            return p == null ? 0 : p.hashCode();
+        }
+
+        int hash = 1;
+        for (int j = 0; j < dimension; j++) {
+            long bits = Double.doubleToLongBits(packed[index * dimension + j]);
+            hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Package private. Whether every Point of other is also in this geometry, compared the way
+     * {@link Point#equals} does. The Points are matched up by hash code, so this takes O(n log n) time, and neither
+     * geometry is unpacked.
+     *
+     * @param other
+     * @return
+     */
+    boolean containsAllPoints(PointCollection other) {
+        int[] hashes = new int[size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = pointHash(i);
+        }
+        long[] keys = sortedKeys(hashes);
+
+        for (int j = 0; j < other.size(); j++) {
+            boolean success = false;
+
+            int hash = other.pointHash(j);
+            for (int k = firstWithHash(keys, hash); k < keys.length && keyHash(keys[k]) == hash; k++) {
+                if (pointsEqual(keyIndex(keys[k]), other, j)) {
+                    success = true;
+                    break;
+                }
+            }
+
+            if (!success) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Package private. Whether all Points are non-null and valid; packed Points always are.
+     *
+     * @return
+     */
+    boolean pointsAreValid() {
+        if (packed != null) {
+            return true;
+        }
+
+        for (Point p : this) {
+            if (p == null || !p.isValid()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return packed != null ? packedSize : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (packed == null) {
+            // let a packed argument do the comparison so that it stays packed
+            return isPacked(o) ? o.equals(this) : super.equals(o);
+        }
+
+        if (!(o instanceof List)) {
+            return false;
+        }
+
+        if (isPacked(o)) {
+            PointCollection other = (PointCollection) o;
+            if (packedSize != other.packedSize || dimension != other.dimension) {
+                return false;
+            }
+
+            for (int i = 0; i < packedSize * dimension; i++) {
+                if (!sameDouble(packed[i], other.packed[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        List<?> other = (List<?>) o;
+        if (other.size() != packedSize) {
+            return false;
+        }
+
+        int i = 0;
+        for (Object point : other) {
+            if (i >= packedSize || !pointEquals(i++, point)) {
+                return false;
+            }
+        }
+
+        return i == packedSize;
+    }
+
+    /**
+     * The same hash code {@link List#hashCode()} specifies, computed from packed coordinates.
+     */
+    @Override
+    public int hashCode() {
+        if (packed == null) {
+            return super.hashCode();
+        }
+
+        int hashCode = 1;
+        for (int i = 0; i < packedSize; i++) {
+            hashCode = 31 * hashCode + pointHash(i);
+        }
+
+        return hashCode;
+    }
+
+    @Override
+    public void trimToSize() {
+        if (packed == null) {
+            super.trimToSize();
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        if (packed == null) {
+            super.ensureCapacity(minCapacity);
+        }
+    }
+
+    @Override
+    public void clear() {
+        packed = null;
+        packedSize = 0;
+        dimension = 0;
+        super.clear();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        unpack();
+        return super.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        unpack();
+        return super.containsAll(c);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        unpack();
+        return super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        unpack();
+        return super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        unpack();
+        return super.toArray();
+    }
+
+    @Override
+    public <A> A[] toArray(A[] a) {
+        unpack();
+        return super.toArray(a);
+    }
+
+    @Override
+    public Point get(int index) {
+        unpack();
+        return super.get(index);
+    }
+
+    @Override
+    public Point set(int index, Point element) {
+        unpack();
+        return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(Point point) {
+        unpack();
+        return super.add(point);
+    }
+
+    @Override
+    public void add(int index, Point element) {
+        unpack();
+        super.add(index, element);
+    }
+
+    @Override
+    public Point remove(int index) {
+        unpack();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        unpack();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Point> c) {
+        unpack();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Point> c) {
+        unpack();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        unpack();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        unpack();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        unpack();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public Iterator<Point> iterator() {
+        unpack();
+        return super.iterator();
+    }
+
+    @Override
+    public ListIterator<Point> listIterator() {
+        unpack();
+        return super.listIterator();
+    }
+
+    @Override
+    public ListIterator<Point> listIterator(int index) {
+        unpack();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public List<Point> subList(int fromIndex, int toIndex) {
+        unpack();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Point> action) {
+        unpack();
+        super.forEach(action);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Point> filter) {
+        unpack();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Point> operator) {
+        unpack();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super Point> c) {
+        unpack();
+        super.sort(c);
+    }
+
+    @Override
+    public Spliterator<Point> spliterator() {
+        unpack();
+        return super.spliterator();
+    }
+
+    // these four override ArrayList's from Java 21 on, and aren't annotated so that Java 8 can build them
+
+    public Point getFirst() {
+        checkNotEmpty();
+        return get(0);
+    }
+
+    public Point getLast() {
+        checkNotEmpty();
+        return get(size() - 1);
+    }
+
+    public Point removeFirst() {
+        checkNotEmpty();
+        return remove(0);
+    }
+
+    public Point removeLast() {
+        checkNotEmpty();
+        return remove(size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        unpack();
+        return super.toString();
+    }
+
+    /**
+     * Packed coordinates aren't part of the serialized form, so unpack before serializing.
+     *
+     * @return
+     * @throws ObjectStreamException
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        unpack();
+        return this;
+    }
+
+    /**
+     * Compares a packed Point to an object the way {@link Point#equals(Object)} would.
+     */
+    private boolean pointEquals(int index, Object o) {
+        if (!(o instanceof List) || ((List<?>) o).size() != dimension) {
+            return false;
+        }
+
+        int c = index * dimension;
+        for (Object coord : (List<?>) o) {
+            if (!(coord instanceof Double) || !sameDouble(packed[c++], (Double) coord)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Point unpackedGet(int index) {
+        return super.get(index);
+    }
+
+    /**
+     * @throws NoSuchElementException if there are no Points, as the Java 21 List methods specify
+     */
+    private void checkNotEmpty() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= packedSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + packedSize);
+        }
+    }
+
+    private static boolean isPacked(Object o) {
+        return o instanceof PointCollection && ((PointCollection) o).packed != null;
+    }
+
+    /**
+     * Compares doubles the way {@link Double#equals(Object)} does.
+     */
+    private static boolean sameDouble(double d1, double d2) {
+        return Double.doubleToLongBits(d1) == Double.doubleToLongBits(d2);
+    }
+}
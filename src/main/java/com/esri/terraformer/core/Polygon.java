@@ -8,6 +8,7 @@ import java.util.List;
 public final class Polygon extends Geometry<LineString> {
     public static final String ERROR_PREFIX = "Error while parsing Polygon: ";
 
+
     /**
      * A valid Polygon contains 0 or more non-null {@link LineString}'s, each of which
      * is a valid LinearRing.
@@ -80,27 +81,13 @@ public final class Polygon extends Geometry<LineString> {
 
     static boolean polygonContainsOther(Polygon pg1, Polygon pg2) {
         // only compare polygon holes (index > 0)
-        for (int i = 1; i < pg1.size(); i++) {
-            LineString ls = pg1.get(i);
-            if (ls == null) {
-                continue;
-            }
-
-            boolean success = false;
-
-            for (int j = 1; j < pg2.size(); j++) {
-                LineString otherLS = pg2.get(j);
-                if (ls.isEquivalentTo(otherLS)) {
-                    success = true;
-                    break;
-                }
-            }
-
-            if (!success) {
-                return false;
-            }
-        }
+        return containsEquivalents(pg1.getHoles(), pg2.getHoles());
+    }
 
-        return true;
+    @Override
+    int equivalenceHash() {
+        LineString outer = isEmpty() ? null : get(0);
+        int outerHash = outer == null ? 0 : outer.equivalenceHash();
+        return 31 * outerHash + membersHash(getHoles());
     }
 }
@@ -0,0 +1,525 @@
+package com.esri.terraformer.core;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The properties of the Features of a {@link FeatureCollection}, stored by column instead of as one JsonObject per
+ * Feature. Build one with {@link FeatureCollection#packProperties()}.
+ *
+ * Every key that turns up in any Feature's properties is a column, and each column has one type, inferred from its
+ * values: whole numbers that fit in a long are kept in a long[], other numbers in a double[], booleans in a bitmap,
+ * and strings as indexes into a dictionary of the column's distinct values. A column whose values are of more than
+ * one kind, or are objects or arrays, or numbers that neither a long nor a double holds without losing digits, keeps
+ * each value as JSON text, also through a dictionary. Bitmaps record
+ * whether each row has the key at all and whether its value is null. A property that took a JsonObject entry, a
+ * JsonPrimitive, a boxed number and its own copy of the key takes from a bit to a few bytes here.
+ *
+ * Rows are the Features in the order they were in when the table was built; a Feature keeps its row until its
+ * properties are asked for or replaced (see {@link Feature#getProperties()}). The table itself never changes, so
+ * {@link #toJsonObject(int)} gives back properties equal to the ones that went in, although numbers come back as
+ * long or double values (3.50 as 3.5, 1e3 as 1000.0) and the keys of every row come in column order.
+ *
+ * The getters read a single value without creating any objects, for scanning a column:
+ * <pre>
+ * int column = table.getColumn("population");
+ * for (int row = 0; row &lt; table.getRowCount(); row++) {
+ *     if (!table.isNull(row, column)) {
+ *         total += table.getDouble(row, column);
+ *     }
+ * }
+ * </pre>
+ */
+public final class PropertyTable {
+    /**
+     * The type of a column, and the getter its values are read with.
+     */
+    public enum ColumnType {
+        /** Whole numbers from -2^63 to 2^63 - 1; read with {@link #getLong} or {@link #getDouble}. */
+        LONG,
+        /** Other numbers that a double holds exactly, -0 among them; read with {@link #getDouble}. */
+        DOUBLE,
+        /** Read with {@link #getBoolean}. */
+        BOOLEAN,
+        /** Read with {@link #getString}. */
+        STRING,
+        /**
+         * Objects, arrays, mixed types, numbers neither a long nor a double holds exactly, or only nulls; read with
+         * {@link #get}, or {@link #getString} for the text.
+         */
+        JSON
+    }
+
+    // beyond this a long can't be turned into a double without losing digits
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final int rowCount;
+    private final Map<String, Integer> columnsByKey;
+    private final Column[] columns;
+    // rows whose Feature had null properties, or that was itself null; null if there weren't any
+    private final long[] missingRows;
+
+    private PropertyTable(int rowCount, Map<String, Integer> columnsByKey, Column[] columns, long[] missingRows) {
+        this.rowCount = rowCount;
+        this.columnsByKey = columnsByKey;
+        this.columns = columns;
+        this.missingRows = missingRows;
+    }
+
+    /**
+     * Package private. Builds a table from the properties of every Feature in features, in two passes: one to find
+     * the columns and their types and one to fill them. Properties still held as text are parsed once, in the first
+     * pass, and kept for the second.
+     *
+     * @param features
+     * @return
+     */
+    static PropertyTable build(List<Feature> features) {
+        int rowCount = features.size();
+
+        Map<String, Integer> columnsByKey = new HashMap<String, Integer>();
+        List<Column> columns = new ArrayList<Column>();
+        JsonObject[] rows = new JsonObject[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            Feature feature = features.get(row);
+            JsonObject properties = feature == null ? null : feature.peekProperties();
+            rows[row] = properties;
+            if (properties == null) {
+                continue;
+            }
+
+            for (Entry<String, JsonElement> entry : properties.entrySet()) {
+                Integer index = columnsByKey.get(entry.getKey());
+                if (index == null) {
+                    index = columns.size();
+                    columnsByKey.put(entry.getKey(), index);
+                    columns.add(new Column(entry.getKey(), rowCount));
+                }
+                columns.get(index).infer(entry.getValue());
+            }
+        }
+
+        for (Column column : columns) {
+            column.allocate();
+        }
+
+        long[] missingRows = null;
+        for (int row = 0; row < rowCount; row++) {
+            JsonObject properties = rows[row];
+            rows[row] = null;
+            if (properties == null) {
+                if (missingRows == null) {
+                    missingRows = newBitmap(rowCount);
+                }
+                setBit(missingRows, row);
+                continue;
+            }
+
+            for (Entry<String, JsonElement> entry : properties.entrySet()) {
+                columns.get(columnsByKey.get(entry.getKey())).put(row, entry.getValue());
+            }
+        }
+
+        for (Column column : columns) {
+            column.finish();
+        }
+
+        return new PropertyTable(rowCount, columnsByKey, columns.toArray(new Column[columns.size()]), missingRows);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param key
+     * @return the index of the column for key, or -1 if no Feature had that key
+     */
+    public int getColumn(String key) {
+        Integer index = columnsByKey.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param column
+     * @return the property key of the column
+     */
+    public String getKey(int column) {
+        return columns[column].key;
+    }
+
+    /**
+     * @param column
+     * @return the type of the column
+     */
+    public ColumnType getType(int column) {
+        return columns[column].type;
+    }
+
+    /**
+     * @param row
+     * @return whether the Feature of this row had properties, even empty ones
+     */
+    public boolean hasProperties(int row) {
+        checkRow(row);
+        return missingRows == null || !getBit(missingRows, row);
+    }
+
+    /**
+     * @param row
+     * @param column
+     * @return whether the properties of this row have the column's key, even with a null value
+     */
+    public boolean has(int row, int column) {
+        checkRow(row);
+        return getBit(columns[column].present, row);
+    }
+
+    /**
+     * @param row
+     * @param column
+     * @return whether the properties of this row don't have the column's key, or have it with a null value
+     */
+    public boolean isNull(int row, int column) {
+        checkRow(row);
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * @param row
+     * @param column a {@link ColumnType#LONG} column
+     * @return the value, or 0 if {@link #isNull}
+     * @throws IllegalStateException if the column isn't a LONG column
+     */
+    public long getLong(int row, int column) {
+        checkRow(row);
+        return columns[column].check(ColumnType.LONG).longs[row];
+    }
+
+    /**
+     * @param row
+     * @param column a {@link ColumnType#LONG} or {@link ColumnType#DOUBLE} column
+     * @return the value, or 0 if {@link #isNull}
+     * @throws IllegalStateException if the column isn't a LONG or DOUBLE column
+     */
+    public double getDouble(int row, int column) {
+        checkRow(row);
+        Column c = columns[column];
+        if (c.type == ColumnType.LONG) {
+            return c.longs[row];
+        }
+
+        return c.check(ColumnType.DOUBLE).doubles[row];
+    }
+
+    /**
+     * @param row
+     * @param column a {@link ColumnType#BOOLEAN} column
+     * @return the value, or false if {@link #isNull}
+     * @throws IllegalStateException if the column isn't a BOOLEAN column
+     */
+    public boolean getBoolean(int row, int column) {
+        checkRow(row);
+        return getBit(columns[column].check(ColumnType.BOOLEAN).booleans, row);
+    }
+
+    /**
+     * Returns the column's shared copy of the string, so comparing the values of a column never copies them.
+     *
+     * @param row
+     * @param column a {@link ColumnType#STRING} column, or a {@link ColumnType#JSON} column for the JSON text
+     * @return the value, or null if {@link #isNull}
+     * @throws IllegalStateException if the column isn't a STRING or JSON column
+     */
+    public String getString(int row, int column) {
+        checkRow(row);
+        Column c = columns[column];
+        if (c.type != ColumnType.JSON) {
+            c.check(ColumnType.STRING);
+        }
+
+        return c.isNull(row) ? null : c.dictionary[c.codes[row]];
+    }
+
+    /**
+     * Works for any type of column.
+     *
+     * @param row
+     * @param column
+     * @return the value as a new JsonElement, {@link JsonNull#INSTANCE} for a null value, or null if the properties
+     * of this row don't have the column's key
+     */
+    public JsonElement get(int row, int column) {
+        checkRow(row);
+        Column c = columns[column];
+        if (!getBit(c.present, row)) {
+            return null;
+        }
+
+        return c.get(row);
+    }
+
+    /**
+     * @param row
+     * @return a new JsonObject of the properties of this row, or null if its Feature had no properties
+     */
+    public JsonObject toJsonObject(int row) {
+        if (!hasProperties(row)) {
+            return null;
+        }
+
+        JsonObject properties = new JsonObject();
+        for (Column c : columns) {
+            if (getBit(c.present, row)) {
+                properties.add(c.key, c.get(row));
+            }
+        }
+        return properties;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + rowCount);
+        }
+    }
+
+    private static long[] newBitmap(int size) {
+        return new long[(size + 63) >>> 6];
+    }
+
+    private static boolean getBit(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void setBit(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * @return the type a value would need on its own, or null for a null value, which fits in any column
+     */
+    private static ColumnType typeOf(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+
+        if (!value.isJsonPrimitive()) {
+            return ColumnType.JSON;
+        }
+
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return ColumnType.BOOLEAN;
+        } else if (primitive.isString()) {
+            return ColumnType.STRING;
+        }
+
+        // only numbers that a long or a double holds exactly, as written; anything else is kept as text
+        String number = primitive.getAsString();
+        if (isLong(number)) {
+            return ColumnType.LONG;
+        }
+
+        return isDouble(number) ? ColumnType.DOUBLE : ColumnType.JSON;
+    }
+
+    /**
+     * @return whether the number reads as a long that writes back as the same text, which -0 and 1e3 don't
+     */
+    private static boolean isLong(String number) {
+        try {
+            return Long.toString(Long.parseLong(number)).equals(number);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the number reads as a finite double of exactly the same value, which numbers with more
+     * significant digits than a double holds, or beyond its range, don't
+     */
+    private static boolean isDouble(String number) {
+        try {
+            double d = Double.parseDouble(number);
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return false;
+            }
+
+            // most numbers are written the way Java writes them back; only the others need the exact comparison
+            if (Double.toString(d).equals(number)) {
+                return true;
+            }
+
+            return new BigDecimal(number).compareTo(BigDecimal.valueOf(d)) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static final class Column {
+        final String key;
+        final int rowCount;
+        ColumnType type;
+        // whether the column has a long that a double can't hold exactly, so that it can't become a DOUBLE column
+        boolean hasWideLong;
+
+        long[] present;
+        long[] nulls;
+        long[] longs;
+        double[] doubles;
+        long[] booleans;
+        int[] codes;
+        String[] dictionary;
+        // only while filling a STRING or JSON column
+        Map<String, Integer> codesByValue;
+
+        Column(String key, int rowCount) {
+            this.key = key;
+            this.rowCount = rowCount;
+        }
+
+        void infer(JsonElement value) {
+            ColumnType valueType = typeOf(value);
+            if (valueType == ColumnType.LONG) {
+                long l = Long.parseLong(value.getAsString());
+                hasWideLong |= l > MAX_EXACT_DOUBLE || l < -MAX_EXACT_DOUBLE;
+            }
+
+            if (valueType == null || valueType == type) {
+                return;
+            }
+
+            if (type == null) {
+                type = valueType;
+            } else if ((type == ColumnType.LONG && valueType == ColumnType.DOUBLE)
+                    || (type == ColumnType.DOUBLE && valueType == ColumnType.LONG)) {
+                type = ColumnType.DOUBLE;
+            } else {
+                type = ColumnType.JSON;
+            }
+
+            if (type == ColumnType.DOUBLE && hasWideLong) {
+                type = ColumnType.JSON;
+            }
+        }
+
+        void allocate() {
+            if (type == null) {
+                // nothing but nulls
+                type = ColumnType.JSON;
+            }
+
+            present = newBitmap(rowCount);
+            switch (type) {
+                case LONG:
+                    longs = new long[rowCount];
+                    break;
+                case DOUBLE:
+                    doubles = new double[rowCount];
+                    break;
+                case BOOLEAN:
+                    booleans = newBitmap(rowCount);
+                    break;
+                default:
+                    codes = new int[rowCount];
+                    codesByValue = new HashMap<String, Integer>();
+            }
+        }
+
+        void put(int row, JsonElement value) {
+            setBit(present, row);
+            if (value == null || value.isJsonNull()) {
+                if (nulls == null) {
+                    nulls = newBitmap(rowCount);
+                }
+                setBit(nulls, row);
+                return;
+            }
+
+            switch (type) {
+                case LONG:
+                    longs[row] = Long.parseLong(value.getAsString());
+                    break;
+                case DOUBLE:
+                    // from the text, which typeOf checked, rather than a Float's wider double value
+                    doubles[row] = Double.parseDouble(value.getAsString());
+                    break;
+                case BOOLEAN:
+                    if (value.getAsBoolean()) {
+                        setBit(booleans, row);
+                    }
+                    break;
+                case STRING:
+                    codes[row] = code(value.getAsString());
+                    break;
+                default:
+                    codes[row] = code(value.toString());
+            }
+        }
+
+        private int code(String value) {
+            Integer code = codesByValue.get(value);
+            if (code == null) {
+                code = codesByValue.size();
+                codesByValue.put(value, code);
+            }
+            return code;
+        }
+
+        void finish() {
+            if (codesByValue == null) {
+                return;
+            }
+
+            dictionary = new String[codesByValue.size()];
+            for (Entry<String, Integer> entry : codesByValue.entrySet()) {
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+            codesByValue = null;
+        }
+
+        Column check(ColumnType expected) {
+            if (type != expected) {
+                throw new IllegalStateException("Column \"" + key + "\" is " + type + ", not " + expected + ".");
+            }
+            return this;
+        }
+
+        boolean isNull(int row) {
+            return !getBit(present, row) || (nulls != null && getBit(nulls, row));
+        }
+
+        JsonElement get(int row) {
+            if (nulls != null && getBit(nulls, row)) {
+                return JsonNull.INSTANCE;
+            }
+
+            switch (type) {
+                case LONG:
+                    return new JsonPrimitive(longs[row]);
+                case DOUBLE:
+                    return new JsonPrimitive(doubles[row]);
+                case BOOLEAN:
+                    return new JsonPrimitive(getBit(booleans, row));
+                case STRING:
+                    return new JsonPrimitive(dictionary[codes[row]]);
+                default:
+                    return JsonParser.parseString(dictionary[codes[row]]);
+            }
+        }
+    }
+}
@@ -1,17 +1,135 @@
 package com.esri.terraformer.core;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Converts geometries from one format to another with a {@link Decoder} and an {@link Encoder}.
+ *
+ * A Terraformer is thread-safe as long as its decoder and encoder are, which
+ * {@link com.esri.terraformer.formats.GeoJson} and {@link com.esri.terraformer.formats.EsriJson} are. Build one with
+ * {@link #Terraformer(Decoder, Encoder)} and share it, rather than making one per conversion. Changing the decoder or
+ * encoder of a shared Terraformer is safe, but conversions already running finish with the ones they started with.
+ *
+ * Batches of inputs can be converted in parallel on the common ForkJoinPool with {@link #convertAll(List)}, or on an
+ * executor of your own with {@link #convertAll(Iterable, Executor)}. Either way the results come back in input
+ * order, and an input that fails to convert doesn't stop the others.
+ *
+ * Decoders and encoders that also implement {@link ByteDecoder} and {@link ByteEncoder} can convert bytes to bytes
+ * with {@link #convert(ByteBuffer, OutputStream)}, without the input or output ever being a String. Those that don't
+ * are given and give UTF-8 text.
+ *
+ * Each decode and encode can be reported, with its timing and size, to a {@link CodecListener} set with
+ * {@link #setListener(CodecListener)}.
+ */
 public final class Terraformer {
-    private Encoder encoder;
-    private Decoder decoder;
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private volatile Encoder encoder;
+    private volatile Decoder decoder;
+    private volatile CodecListener listener = CodecListener.NONE;
 
+    /**
+     * Implementations used by a shared {@link Terraformer} must be safe to call from several threads at once.
+     */
     public interface Decoder {
         public BaseGeometry decode(String in) throws TerraformerException;
     }
 
+    /**
+     * Implementations used by a shared {@link Terraformer} must be safe to call from several threads at once.
+     */
     public interface Encoder {
         public String encode(BaseGeometry geo);
     }
 
+    /**
+     * A {@link Decoder} that can also decode straight from bytes, such as UTF-8 encoded text or a binary format.
+     */
+    public interface ByteDecoder {
+        /**
+         * Decodes the bytes from the buffer's position, and moves the position past the bytes it used.
+         *
+         * @param in
+         * @return
+         * @throws TerraformerException
+         */
+        public BaseGeometry decode(ByteBuffer in) throws TerraformerException;
+    }
+
+    /**
+     * An {@link Encoder} that can also encode straight to bytes, such as UTF-8 encoded text or a binary format.
+     */
+    public interface ByteEncoder {
+        /**
+         * Writes the encoded geometry to the stream, and flushes but doesn't close it. Nothing is written for a null
+         * geometry.
+         *
+         * @param geo
+         * @param out
+         * @throws IOException
+         */
+        public void encode(BaseGeometry geo, OutputStream out) throws IOException;
+    }
+
+    /**
+     * A {@link Decoder} or {@link Encoder} that has a name for its format, to report to a {@link CodecListener}.
+     */
+    public interface Named {
+        /**
+         * @return the name of the format, such as "GeoJSON"
+         */
+        public String getFormatName();
+    }
+
+    /**
+     * The outcome of converting one input of a batch: either the output, or the exception or error that stopped it.
+     */
+    public static final class ConversionResult {
+        private final int index;
+        private String output;
+        private Throwable error;
+
+        ConversionResult(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return the position of the input in the batch, from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * @return the converted input, or null if it failed
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        /**
+         * @return the {@link TerraformerException}, RuntimeException or Error thrown while converting the input, or
+         * null if it succeeded
+         */
+        public Throwable getError() {
+            return error;
+        }
+    }
+
     public Terraformer() { }
 
     public Terraformer(Decoder decoder, Encoder encoder) {
@@ -35,23 +153,270 @@ public final class Terraformer {
         this.decoder = decoder;
     }
 
+    public CodecListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Report every decode and encode done by this Terraformer, including those of {@link #convertAll}, to the
+     * listener. The format of the events is the {@link Named#getFormatName()} of the decoder or encoder, or its class
+     * name if it isn't {@link Named}, so events from a Terraformer and from a codec used on its own match. Don't
+     * also set the listener on the decoder or encoder, or each call will be reported twice.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(CodecListener listener) {
+        this.listener = listener == null ? CodecListener.NONE : listener;
+    }
+
     public BaseGeometry decode(String input) throws TerraformerException {
-        if (decoder != null) {
-            return decoder.decode(input);
+        return decode(decoder, input, listener);
+    }
+
+    public String encode(BaseGeometry geometry) throws TerraformerException {
+        return encode(encoder, geometry, listener);
+    }
+
+    public String convert(String input) throws TerraformerException {
+        return encode(decode(input));
+    }
+
+    /**
+     * Decodes the bytes from the buffer's position. A decoder that isn't a {@link ByteDecoder} is given them as
+     * UTF-8 text.
+     *
+     * @param input
+     * @return
+     * @throws TerraformerException
+     */
+    public BaseGeometry decode(ByteBuffer input) throws TerraformerException {
+        return decode(decoder, input, listener);
+    }
+
+    /**
+     * Writes the encoded geometry to the stream, and flushes but doesn't close it. The output of an encoder that
+     * isn't a {@link ByteEncoder} is written as UTF-8 text.
+     *
+     * @param geometry
+     * @param out
+     * @throws TerraformerException
+     * @throws IOException
+     */
+    public void encode(BaseGeometry geometry, OutputStream out) throws TerraformerException, IOException {
+        encode(encoder, geometry, out, listener);
+    }
+
+    /**
+     * Converts bytes to bytes, such as a request body to a response. See {@link #decode(ByteBuffer)} and
+     * {@link #encode(BaseGeometry, OutputStream)}.
+     *
+     * @param input
+     * @param out
+     * @throws TerraformerException
+     * @throws IOException
+     */
+    public void convert(ByteBuffer input, OutputStream out) throws TerraformerException, IOException {
+        Decoder decoder = this.decoder;
+        Encoder encoder = this.encoder;
+        CodecListener listener = this.listener;
+        encode(encoder, decode(decoder, input, listener), out, listener);
+    }
+
+    /**
+     * Converts all the inputs in parallel on the {@link ForkJoinPool#commonPool() common pool}, so batch after batch
+     * reuses the same threads. Called from a task already running in a ForkJoinPool, or on a single processor, the
+     * inputs are converted one after another on the calling thread instead, as waiting there for other tasks of the
+     * pool could leave it with no threads to run them.
+     *
+     * @param inputs
+     * @return one result per input, in the same order
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch
+     */
+    public List<ConversionResult> convertAll(List<String> inputs) throws InterruptedException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (inputs.size() <= 1 || pool.getParallelism() <= 1 || ForkJoinTask.inForkJoinPool()) {
+            return convertAll(inputs, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            }, 1);
         }
 
-        throw new TerraformerException("", "There is no active decoder available!");
+        return convertAll(inputs, pool, pool.getParallelism() * IN_FLIGHT_PER_THREAD);
     }
 
-    public String encode(BaseGeometry geometry) throws TerraformerException {
-        if (encoder != null) {
-            return encoder.encode(geometry);
+    /**
+     * Converts all the inputs on the executor, with up to four conversions per available processor queued or
+     * running at once.
+     *
+     * @param inputs
+     * @param executor
+     * @return one result per input, in the same order
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch
+     * @see #convertAll(Iterable, Executor, int)
+     */
+    public List<ConversionResult> convertAll(Iterable<String> inputs, Executor executor)
+            throws InterruptedException {
+        return convertAll(inputs, executor, Runtime.getRuntime().availableProcessors() * IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * Converts all the inputs on the executor. The inputs are read one at a time, and reading waits while
+     * maxInFlight conversions are queued or running, so a long or lazy Iterable is never held in memory all at
+     * once, and a bounded executor queue won't overflow. All the conversions use the decoder and encoder this
+     * Terraformer had when the call started. The call returns when every conversion has finished.
+     *
+     * An input that can't be converted, or that the executor rejects, gets a failed result; the rest of the batch
+     * carries on. That includes Errors, such as a StackOverflowError from a deeply nested input, which are kept in
+     * the result rather than thrown.
+     *
+     * @param inputs
+     * @param executor
+     * @param maxInFlight the most conversions to have queued or running at once, at least 1
+     * @return one result per input, in the same order
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the batch. Conversions
+     * already handed to the executor still run.
+     */
+    public List<ConversionResult> convertAll(Iterable<String> inputs, Executor executor, int maxInFlight)
+            throws InterruptedException {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+
+        final Decoder decoder = this.decoder;
+        final Encoder encoder = this.encoder;
+        final CodecListener listener = this.listener;
+        // each result is written by one task and read here after its permit comes back, which makes the
+        // writes visible
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        List<ConversionResult> results = new ArrayList<ConversionResult>();
+
+        for (final String input : inputs) {
+            final ConversionResult result = new ConversionResult(results.size());
+            results.add(result);
+
+            inFlight.acquire();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            result.output = encode(encoder, decode(decoder, input, listener), listener);
+                        } catch (Throwable e) {
+                            result.error = e;
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            } catch (Throwable e) {
+                // rejected, or the executor itself failed: the task didn't run, so its permit is given back here
+                result.error = e;
+                inFlight.release();
+            }
         }
 
-        throw new TerraformerException("", "There is no active encoder available!");
+        // wait for the last ones
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+
+        return results;
     }
 
-    public String convert(String input) throws TerraformerException {
-        return encode(decode(input));
+    private static BaseGeometry decode(Decoder decoder, String input, CodecListener listener)
+            throws TerraformerException {
+        if (decoder == null) {
+            throw new TerraformerException("", "There is no active decoder available!");
+        }
+
+        CodecTimer timer = CodecTimer.start(listener, name(decoder));
+        BaseGeometry geometry = decoder.decode(input);
+        if (timer != null) {
+            timer.decoded(geometry, input == null ? 0 : input.length());
+        }
+        return geometry;
+    }
+
+    private static BaseGeometry decode(Decoder decoder, ByteBuffer input, CodecListener listener)
+            throws TerraformerException {
+        if (!(decoder instanceof ByteDecoder)) {
+            if (decoder == null) {
+                throw new TerraformerException("", "There is no active decoder available!");
+            }
+
+            CodecTimer timer = CodecTimer.start(listener, name(decoder));
+            int length = input.remaining();
+            byte[] bytes = new byte[length];
+            input.get(bytes);
+            BaseGeometry geometry = decoder.decode(new String(bytes, UTF_8));
+
+            if (timer != null) {
+                timer.decoded(geometry, length);
+            }
+            return geometry;
+        }
+
+        CodecTimer timer = CodecTimer.start(listener, name(decoder));
+        int position = input.position();
+        BaseGeometry geometry = ((ByteDecoder) decoder).decode(input);
+        if (timer != null) {
+            timer.decoded(geometry, input.position() - position);
+        }
+        return geometry;
+    }
+
+    private static void encode(Encoder encoder, BaseGeometry geometry, OutputStream out, CodecListener listener)
+            throws TerraformerException, IOException {
+        if (!(encoder instanceof ByteEncoder)) {
+            if (encoder == null) {
+                throw new TerraformerException("", "There is no active encoder available!");
+            }
+
+            CodecTimer timer = CodecTimer.start(listener, name(encoder));
+            String output = encoder.encode(geometry);
+            byte[] bytes = output == null ? new byte[0] : output.getBytes(UTF_8);
+            out.write(bytes);
+            out.flush();
+
+            if (timer != null) {
+                timer.encoded(geometry, bytes.length);
+            }
+            return;
+        }
+
+        CodecTimer timer = CodecTimer.start(listener, name(encoder));
+        if (timer == null) {
+            ((ByteEncoder) encoder).encode(geometry, out);
+            return;
+        }
+
+        CountingOutputStream counter = new CountingOutputStream(out);
+        ((ByteEncoder) encoder).encode(geometry, counter);
+        timer.encoded(geometry, counter.getCount());
+    }
+
+    private static String encode(Encoder encoder, BaseGeometry geometry, CodecListener listener)
+            throws TerraformerException {
+        if (encoder == null) {
+            throw new TerraformerException("", "There is no active encoder available!");
+        }
+
+        CodecTimer timer = CodecTimer.start(listener, name(encoder));
+        String output = encoder.encode(geometry);
+        if (timer != null) {
+            timer.encoded(geometry, output == null ? 0 : output.length());
+        }
+        return output;
+    }
+
+    private static String name(Object codec) {
+        if (codec instanceof Named) {
+            return ((Named) codec).getFormatName();
+        }
+
+        // anonymous classes have no simple name
+        String name = codec.getClass().getSimpleName();
+        return name.length() == 0 ? codec.getClass().getName() : name;
     }
 }
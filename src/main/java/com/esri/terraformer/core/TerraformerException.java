@@ -18,6 +18,14 @@ public class TerraformerException extends Exception {
     public static final String ELEMENT_NOT_ARRAY = "element should be a JSON Array, but was not";
     public static final String ELEMENT_NOT_OBJECT = "element should be a JSON Object, but was not";
     public static final String ELEMENT_UNKNOWN_TYPE = "element had unknown type";
+    public static final String WKB_TRUNCATED = "ended before the geometry did";
+    public static final String WKB_TRAILING_BYTES = "there were bytes after the geometry";
+    public static final String WKB_BAD_BYTE_ORDER = "byte order was not 0 or 1: ";
+    public static final String WKB_UNKNOWN_TYPE = "unknown geometry type: ";
+    public static final String WKB_WRONG_MEMBER_TYPE = "member of a Multi geometry had the wrong type: ";
+    public static final String WKB_NOT_HEX = "not hexadecimal WKB";
+    public static final String WKB_EMPTY = "WKB cannot be empty.";
+    public static final String WKB_TOO_DEEP = "geometries were nested more than this many levels deep: ";
 
     public TerraformerException(String prefix, String error) {
         super(prefix + error);
@@ -0,0 +1,83 @@
+package com.esri.terraformer.formats;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Package private.
+ *
+ * Reads UTF-8 straight out of a {@link ByteBuffer}, decoding only as many bytes as each read asks for, so a large or
+ * memory-mapped buffer never has to be copied into a String or char array first. Malformed input is replaced with
+ * U+FFFD, as {@link java.io.InputStreamReader} does. Reading moves the buffer's position.
+ */
+final class ByteBufferReader extends Reader {
+    private static final int STAGING_SIZE = 8192;
+
+    private final ByteBuffer bytes;
+    // bytes are copied out of the buffer in blocks, because decoding a direct buffer goes a byte at a time
+    private final ByteBuffer staging = ByteBuffer.allocate(STAGING_SIZE);
+    private final CharsetDecoder decoder = FormatUtils.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // the second half of a surrogate pair that didn't fit in the last read
+    private final CharBuffer spill = CharBuffer.allocate(2);
+    private boolean flushed;
+
+    ByteBufferReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+        staging.limit(0);
+        spill.limit(0);
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        CharBuffer out = CharBuffer.wrap(chars, offset, length);
+        while (spill.hasRemaining() && out.hasRemaining()) {
+            out.put(spill.get());
+        }
+
+        while (out.hasRemaining() && !flushed) {
+            boolean endOfInput = !bytes.hasRemaining();
+            if (decoder.decode(staging, out, endOfInput).isOverflow()) {
+                if (out.position() == offset) {
+                    // not even one char fit: the next one is a surrogate pair and there's room for half of it
+                    spill.clear();
+                    decoder.decode(staging, spill, endOfInput);
+                    spill.flip();
+                    out.put(spill.get());
+                }
+                break;
+            }
+
+            // everything staged has been decoded, apart from the start of a char that goes on in the next block
+            if (endOfInput) {
+                decoder.flush(out);
+                flushed = true;
+            } else {
+                stage();
+            }
+        }
+
+        int read = out.position() - offset;
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void stage() {
+        staging.compact();
+        int length = Math.min(staging.remaining(), bytes.remaining());
+        bytes.get(staging.array(), staging.arrayOffset() + staging.position(), length);
+        staging.position(staging.position() + length);
+        staging.flip();
+    }
+}
@@ -0,0 +1,132 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointCollection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Package private.
+ *
+ * Collects the coordinates of a sequence of Points as primitive doubles while they are decoded, then hands them to
+ * a {@link PointCollection} either packed or as Point objects. Points with a different number of coordinates than
+ * the first, or with more than {@link PointCollection#MAX_PACKED_DIMENSION}, can't be packed; once one turns up the
+ * buffer switches to holding Points.
+ */
+final class CoordinateBuffer {
+    private double[] coords = new double[64];
+    private int length;
+    private int size;
+    private int dimension;
+    private int pointStart;
+    private List<Point> points;
+
+    void beginPoint() {
+        pointStart = length;
+    }
+
+    void add(double coord) {
+        if (length == coords.length) {
+            double[] grown = new double[coords.length * 2];
+            System.arraycopy(coords, 0, grown, 0, length);
+            coords = grown;
+        }
+
+        coords[length++] = coord;
+    }
+
+    void endPoint() {
+        int dim = length - pointStart;
+
+        if (points == null) {
+            if (size == 0 && dim >= PointCollection.MIN_PACKED_DIMENSION &&
+                    dim <= PointCollection.MAX_PACKED_DIMENSION) {
+                dimension = dim;
+            }
+
+            if (dimension != 0 && dim == dimension) {
+                size++;
+                return;
+            }
+
+            // not packable; turn what we have so far into Points
+            points = new ArrayList<Point>(size + 1);
+            for (int i = 0; i < size; i++) {
+                points.add(toPoint(i * dimension, dimension));
+            }
+        }
+
+        points.add(toPoint(pointStart, dim));
+        length = 0;
+    }
+
+    /**
+     * @return the number of Points
+     */
+    int size() {
+        return points == null ? size : points.size();
+    }
+
+    /**
+     * Package private. Whether the first and last Points have the same coordinates, compared the way
+     * {@link Point#equals(Object)} does.
+     */
+    boolean firstEqualsLast() {
+        if (points != null) {
+            return points.get(0).equals(points.get(points.size() - 1));
+        }
+
+        int last = (size - 1) * dimension;
+        for (int i = 0; i < dimension; i++) {
+            if (Double.doubleToLongBits(coords[i]) != Double.doubleToLongBits(coords[last + i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Repeats the first Point at the end.
+     */
+    void addFirst() {
+        if (points != null) {
+            points.add(new Point(points.get(0)));
+            return;
+        }
+
+        beginPoint();
+        for (int i = 0; i < dimension; i++) {
+            add(coords[i]);
+        }
+        endPoint();
+    }
+
+    /**
+     * Adds the Points to an empty geometry, packed if pack is true and they can be.
+     */
+    <T extends PointCollection> T fill(T target, boolean pack) {
+        if (points != null) {
+            target.addAll(points);
+        } else if (pack) {
+            target.setCoordinates(coords, size, dimension);
+        } else {
+            target.ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                target.add(toPoint(i * dimension, dimension));
+            }
+        }
+
+        return target;
+    }
+
+    private Point toPoint(int start, int dim) {
+        Point p = new Point(dim);
+        for (int i = start; i < start + dim; i++) {
+            p.add(coords[i]);
+        }
+
+        return p;
+    }
+}
@@ -0,0 +1,112 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointCollection;
+
+import java.util.List;
+
+/**
+ * Package private.
+ *
+ * How the encoders write coordinates: rounded to a number of decimal places or as the shortest decimals (see
+ * {@link DoubleFormatter}), and whether consecutive vertices of LineStrings and polygon rings that are written as the
+ * same position are dropped. Immutable, so an encoder reads its settings once per geometry.
+ */
+final class CoordinateFormat {
+    static final CoordinateFormat SHORTEST = new CoordinateFormat(DoubleFormatter.SHORTEST, false);
+
+    /** The fewest Points a LineString can be written with. */
+    static final int LINE_MINIMUM = 2;
+
+    /** The fewest Points a polygon ring can be written with. */
+    static final int RING_MINIMUM = 4;
+
+    final int decimalPlaces;
+    final boolean dropCollapsedVertices;
+
+    CoordinateFormat(int decimalPlaces, boolean dropCollapsedVertices) {
+        this.decimalPlaces = decimalPlaces < 0 ? DoubleFormatter.SHORTEST : decimalPlaces;
+        this.dropCollapsedVertices = dropCollapsedVertices;
+    }
+
+    CoordinateFormat withDecimalPlaces(int decimalPlaces) {
+        return new CoordinateFormat(decimalPlaces, dropCollapsedVertices);
+    }
+
+    CoordinateFormat withDropCollapsedVertices(boolean dropCollapsedVertices) {
+        return new CoordinateFormat(decimalPlaces, dropCollapsedVertices);
+    }
+
+    /**
+     * @param coordinate
+     * @return a Number that Gson writes with {@link DoubleFormatter}
+     */
+    Number format(double coordinate) {
+        return new DoubleFormatter.FormattedDouble(coordinate, decimalPlaces);
+    }
+
+    /**
+     * Finds the vertices to write when collapsed vertices are dropped: the first of each run of consecutive
+     * vertices written as the same position, except that the last vertex is always kept, so that rings stay closed.
+     * When dropping would leave fewer than minimumPoints, or nothing would be dropped, every vertex is written.
+     *
+     * @param points a LineString or polygon ring
+     * @param minimumPoints {@link #LINE_MINIMUM} or {@link #RING_MINIMUM}, or 0 to never drop any, as for a MultiPoint
+     * @return whether to write the Point at each index, or null to write all of them
+     */
+    boolean[] verticesToWrite(List<Point> points, int minimumPoints) {
+        int size = points.size();
+        if (!dropCollapsedVertices || minimumPoints == 0 || size <= minimumPoints) {
+            return null;
+        }
+
+        boolean packed = points instanceof PointCollection && ((PointCollection) points).isPacked();
+        boolean[] write = new boolean[size];
+        int kept = 0;
+        int last = -1;
+        for (int i = 0; i < size; i++) {
+            boolean collapsed = last >= 0 && (packed ? samePosition((PointCollection) points, last, i) :
+                    samePosition(points.get(last), points.get(i)));
+            if (!collapsed) {
+                write[i] = true;
+                last = i;
+                kept++;
+            }
+        }
+
+        if (!write[size - 1]) {
+            // the last vertex stands in for the run it ends
+            write[last] = false;
+            write[size - 1] = true;
+        }
+
+        return kept == size || kept < minimumPoints ? null : write;
+    }
+
+    private boolean samePosition(PointCollection points, int a, int b) {
+        int dimension = points.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            if (!DoubleFormatter.sameWhenFormatted(points.getOrdinate(a, i), points.getOrdinate(b, i),
+                    decimalPlaces)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean samePosition(Point a, Point b) {
+        // Points that are written with nulls are never dropped
+        if (a == null || b == null || a.size() != b.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < a.size(); i++) {
+            Double ca = a.get(i);
+            Double cb = b.get(i);
+            if (ca == null || cb == null || !DoubleFormatter.sameWhenFormatted(ca, cb, decimalPlaces)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
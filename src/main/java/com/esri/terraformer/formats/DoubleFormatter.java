@@ -0,0 +1,359 @@
+package com.esri.terraformer.formats;
+
+import java.math.BigInteger;
+
+/**
+ * Package private.
+ *
+ * Formats doubles as the shortest decimal that parses back to the same double, in the layout of
+ * {@link Double#toString(double)}: plain notation from 10^-3 up to 10^7, computerized scientific notation outside
+ * that, and always at least one digit after the point. The digits are found with Schubfach (Giulietti, "The Schubfach
+ * way to render doubles", 2021), which needs no big number arithmetic, unlike {@link Double#toString(double)} before
+ * Java 19, which also sometimes gives a digit more than it needs.
+ *
+ * It can also round to a number of decimal places. The rounding is done on the shortest decimal, half away from
+ * zero, so 0.125 to two places is 0.13, and trailing zeros are left off.
+ */
+final class DoubleFormatter {
+    /** The decimal places to ask for to get the shortest decimal that parses back to the same double. */
+    static final int SHORTEST = -1;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int BQ_MASK = 0x7FF;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = (1L << 63) - 1;
+    // the most digits there can be: 17, or 18 for a shortest decimal ending in a zero
+    private static final int MAX_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    // 10^-i, for telling quickly that two coordinates round apart
+    private static final double[] UNITS = new double[POWERS_OF_TEN.length];
+
+    // 10^-k for each k from K_MIN, as g = floor(10^-k * 2^-r) + 1 for the r that puts g between 2^125 and 2^126:
+    // the high 63 bits of g, then the low 63 bits
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+    static {
+        long power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            UNITS[i] = 1.0 / power;
+            power *= 10;
+        }
+
+        BigInteger ten = BigInteger.TEN;
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger numerator = k <= 0 ? ten.pow(-k) : BigInteger.ONE;
+            BigInteger denominator = k > 0 ? ten.pow(k) : BigInteger.ONE;
+            if (r < 0) {
+                numerator = numerator.shiftLeft(-r);
+            } else {
+                denominator = denominator.shiftLeft(r);
+            }
+
+            BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            int index = 2 * (k - K_MIN);
+            G[index] = g.shiftRight(63).longValue();
+            G[index + 1] = g.longValue() & MASK_63;
+        }
+    }
+
+    /**
+     * A coordinate for Gson to write, which writes Numbers with {@link #toString()}.
+     */
+    static final class FormattedDouble extends Number {
+        private static final long serialVersionUID = 1L;
+
+        private final double value;
+        private final int decimalPlaces;
+
+        FormattedDouble(double value, int decimalPlaces) {
+            this.value = value;
+            this.decimalPlaces = decimalPlaces;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            return (long) value;
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) value;
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return format(value, decimalPlaces);
+        }
+    }
+
+    private DoubleFormatter() {}
+
+    /**
+     * @param v
+     * @return the shortest decimal that parses back to v
+     */
+    static String format(double v) {
+        return format(v, SHORTEST);
+    }
+
+    /**
+     * @param v
+     * @param decimalPlaces the most digits after the point, or {@link #SHORTEST}
+     * @return
+     */
+    static String format(double v, int decimalPlaces) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) {
+            // NaN and the infinities
+            return Double.toString(v);
+        }
+
+        Decimal decimal = new Decimal(bits < 0);
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                // whole numbers are their own shortest decimals
+                long f = c >> mq;
+                if (f << mq == c) {
+                    decimal.set(f, 0);
+                    return decimal.toString(decimalPlaces);
+                }
+            }
+            toDecimal(-mq, c, 0, decimal);
+        } else if (t != 0) {
+            // subnormal
+            if (t < C_TINY) {
+                toDecimal(Q_MIN, 10 * t, -1, decimal);
+            } else {
+                toDecimal(Q_MIN, t, 0, decimal);
+            }
+        } else {
+            decimal.set(0, 0);
+        }
+
+        return decimal.toString(decimalPlaces);
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @param decimalPlaces the most digits after the point, or {@link #SHORTEST}
+     * @return whether a and b are formatted the same
+     */
+    static boolean sameWhenFormatted(double a, double b, int decimalPlaces) {
+        if (Double.doubleToLongBits(a) == Double.doubleToLongBits(b)) {
+            return true;
+        }
+
+        if (decimalPlaces < 0) {
+            // every double has its own shortest decimal
+            return false;
+        }
+
+        // rounded a unit or more apart, with room for the rounding of the shortest decimal
+        if (decimalPlaces < UNITS.length && !(Math.abs(a - b) < 2 * UNITS[decimalPlaces])) {
+            return false;
+        }
+
+        return format(a, decimalPlaces).equals(format(b, decimalPlaces));
+    }
+
+    /**
+     * Finds the shortest decimal for c * 2^q, times 10^-dk.
+     */
+    private static void toDecimal(int q, long c, int dk, Decimal decimal) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the gap below a power of two is half the gap above it
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        int index = 2 * (k - K_MIN);
+        long g1 = G[index];
+        long g0 = G[index + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try a digit fewer: s / 10, rounded either way
+            long sp10 = 10 * DoubleParser.multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                decimal.set(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            decimal.set(uin ? s : t, k + dk);
+            return;
+        }
+
+        // both are in the rounding interval: take the closer, or the even one when they are as close
+        long cmp = vb - ((s + t) << 1);
+        decimal.set(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * @return the top bits of g * cp, rounded to odd
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = DoubleParser.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = DoubleParser.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    /** floor(log10(2^e)) */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    /** floor(log10(3/4 * 2^e)) */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661971961083L - 274743187321L >> 41);
+    }
+
+    /** floor(log2(10^e)) */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+    /**
+     * A sign, and digits times a power of ten.
+     */
+    private static final class Decimal {
+        final boolean negative;
+        long digits;
+        int exponent;
+
+        Decimal(boolean negative) {
+            this.negative = negative;
+        }
+
+        void set(long digits, int exponent) {
+            this.digits = digits;
+            this.exponent = exponent;
+        }
+
+        String toString(int decimalPlaces) {
+            long f = digits;
+            int e = exponent;
+
+            if (decimalPlaces >= 0 && -e > decimalPlaces && f != 0) {
+                int drop = -e - decimalPlaces;
+                if (drop >= POWERS_OF_TEN.length) {
+                    f = 0;
+                } else {
+                    long unit = POWERS_OF_TEN[drop];
+                    long rest = f % unit;
+                    f /= unit;
+                    if (rest >= unit - rest) {
+                        f++;
+                    }
+                }
+                e = -decimalPlaces;
+
+                if (f == 0) {
+                    return "0.0";
+                }
+            }
+
+            if (f == 0) {
+                return negative ? "-0.0" : "0.0";
+            }
+
+            while (f % 10 == 0) {
+                f /= 10;
+                e++;
+            }
+
+            char[] d = new char[MAX_DIGITS + 1];
+            int n = 0;
+            for (long rest = f; rest != 0; rest /= 10) {
+                d[n++] = (char) ('0' + rest % 10);
+            }
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                char swap = d[i];
+                d[i] = d[j];
+                d[j] = swap;
+            }
+
+            StringBuilder sb = new StringBuilder(n + 8);
+            if (negative) {
+                sb.append('-');
+            }
+
+            // the power of ten of the first digit
+            int scientific = e + n - 1;
+            if (scientific >= -3 && scientific < 7) {
+                int point = n + e;
+                if (point <= 0) {
+                    sb.append("0.");
+                    for (int i = point; i < 0; i++) {
+                        sb.append('0');
+                    }
+                    sb.append(d, 0, n);
+                } else if (point >= n) {
+                    sb.append(d, 0, n);
+                    for (int i = n; i < point; i++) {
+                        sb.append('0');
+                    }
+                    sb.append(".0");
+                } else {
+                    sb.append(d, 0, point).append('.').append(d, point, n - point);
+                }
+            } else {
+                sb.append(d[0]).append('.');
+                if (n > 1) {
+                    sb.append(d, 1, n - 1);
+                } else {
+                    sb.append('0');
+                }
+                sb.append('E').append(scientific);
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.esri.terraformer.formats;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.math.BigInteger;
+
+/**
+ * Package private.
+ *
+ * Parses decimal numbers to the nearest double, as {@link Double#parseDouble(String)} does but several times faster
+ * for the numbers that make up nearly all coordinates: at most 19 significant digits and a decimal exponent within
+ * the range of doubles. Those are converted with Clinger's fast path when the digits and the power of ten are both
+ * exact doubles, and otherwise with the Eisel-Lemire algorithm, which multiplies the digits by a 128 bit
+ * approximation of the power of ten (Lemire, "Number Parsing at a Gigabyte per Second", 2021; Mushtak and Lemire,
+ * "Fast Number Parsing Without Fallback", 2023).
+ *
+ * Anything else, including hexadecimal, "NaN", "Infinity", surrounding whitespace and inputs that aren't numbers at
+ * all, is handed to {@link Double#parseDouble(String)}, so the results and exceptions are always the same as its.
+ */
+final class DoubleParser {
+    private static final int MAX_DIGITS = 19;
+    private static final int MIN_POWER_OF_TEN = -342;
+    private static final int MAX_POWER_OF_TEN = 308;
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int EXPONENT_BIAS = 1023;
+    private static final int INFINITE_EXPONENT = 0x7FF;
+    private static final long PRECISION_MASK = -1L >>> (MANTISSA_BITS + 3);
+
+    private static final double[] EXACT_POWERS_OF_TEN = new double[MAX_EXACT_POWER_OF_TEN + 1];
+    // 5^q for each q from MIN_POWER_OF_TEN, normalized to 128 bits: the high 64 bits, then the low 64 bits
+    private static final long[] POWERS_OF_FIVE = new long[2 * (MAX_POWER_OF_TEN - MIN_POWER_OF_TEN + 1)];
+
+    static {
+        double power = 1;
+        for (int i = 0; i <= MAX_EXACT_POWER_OF_TEN; i++) {
+            EXACT_POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POWER_OF_TEN; q <= MAX_POWER_OF_TEN; q++) {
+            BigInteger value;
+            if (q >= 0) {
+                // truncated
+                value = five.pow(q);
+                int shift = 128 - value.bitLength();
+                value = shift >= 0 ? value.shiftLeft(shift) : value.shiftRight(-shift);
+            } else {
+                // rounded up
+                BigInteger divisor = five.pow(-q);
+                int z = divisor.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(divisor).add(BigInteger.ONE);
+                if (value.bitLength() > 128) {
+                    value = value.shiftRight(value.bitLength() - 128);
+                }
+            }
+
+            int index = 2 * (q - MIN_POWER_OF_TEN);
+            POWERS_OF_FIVE[index] = value.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = value.longValue();
+        }
+    }
+
+    private DoubleParser() {}
+
+    /**
+     * @param s
+     * @return the double nearest to the number
+     * @throws NumberFormatException the same way {@link Double#parseDouble(String)} does
+     */
+    static double parse(String s) {
+        int length = s.length();
+        int i = 0;
+
+        boolean negative = false;
+        if (i < length && s.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        // the significant digits, without leading zeros, as a whole number; the value is digits * 10^exponent
+        long digits = 0;
+        int digitCount = 0;
+        int exponent = 0;
+
+        int start = i;
+        char c;
+        while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+            if (digitCount == MAX_DIGITS) {
+                return Double.parseDouble(s);
+            }
+
+            digits = digits * 10 + (c - '0');
+            if (digits != 0) {
+                digitCount++;
+            }
+            i++;
+        }
+        boolean hasDigits = i > start;
+
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            start = i;
+            while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+                if (digitCount == MAX_DIGITS) {
+                    return Double.parseDouble(s);
+                }
+
+                digits = digits * 10 + (c - '0');
+                if (digits != 0) {
+                    digitCount++;
+                }
+                exponent--;
+                i++;
+            }
+            hasDigits |= i > start;
+        }
+
+        if (!hasDigits) {
+            return Double.parseDouble(s);
+        }
+
+        if (i < length && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && ((c = s.charAt(i)) == '-' || c == '+')) {
+                negativeExponent = c == '-';
+                i++;
+            }
+
+            start = i;
+            int explicit = 0;
+            while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+                // anything this big is zero or infinite anyway
+                if (explicit < 100000) {
+                    explicit = explicit * 10 + (c - '0');
+                }
+                i++;
+            }
+
+            if (i == start) {
+                return Double.parseDouble(s);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        if (i != length) {
+            return Double.parseDouble(s);
+        }
+
+        double magnitude = toDouble(digits, exponent);
+        return negative ? -magnitude : magnitude;
+    }
+
+    /**
+     * Parses the coordinate the way {@link JsonElement#getAsDouble()} does, and fails the same way for elements that
+     * aren't numbers or numeric strings.
+     *
+     * @param element
+     * @return
+     */
+    static double parse(JsonElement element) {
+        if (element instanceof JsonPrimitive && !((JsonPrimitive) element).isBoolean()) {
+            // for a number read by Gson, the text it was read from
+            return parse(element.getAsString());
+        }
+
+        return element.getAsDouble();
+    }
+
+    /**
+     * @return the double nearest to digits * 10^exponent
+     */
+    private static double toDouble(long digits, int exponent) {
+        if (digits == 0 || exponent < MIN_POWER_OF_TEN) {
+            return 0;
+        }
+
+        if (exponent > MAX_POWER_OF_TEN) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // Clinger: both are exact, so one correctly rounded operation gives the nearest double. Nineteen digits can
+        // overflow into the sign bit, so digits is unsigned.
+        if (digits >= 0 && digits <= MAX_EXACT_INTEGER && exponent >= -MAX_EXACT_POWER_OF_TEN &&
+                exponent <= MAX_EXACT_POWER_OF_TEN) {
+            return exponent < 0 ? digits / EXACT_POWERS_OF_TEN[-exponent] : digits * EXACT_POWERS_OF_TEN[exponent];
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(digits);
+        long w = digits << leadingZeros;
+
+        // the top 128 bits of w * 5^exponent
+        int index = 2 * (exponent - MIN_POWER_OF_TEN);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & PRECISION_MASK) == PRECISION_MASK) {
+            long next = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += next;
+            if (unsignedLessThan(low, next)) {
+                high++;
+            }
+        }
+
+        int upperBit = (int) (high >>> 63);
+        long mantissa = high >>> (upperBit + 64 - MANTISSA_BITS - 3);
+        int power2 = power(exponent) + upperBit - leadingZeros + EXPONENT_BIAS;
+
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64) {
+                return 0;
+            }
+
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_BITS) ? 0 : 1;
+            return Double.longBitsToDouble(mantissa | ((long) power2 << MANTISSA_BITS));
+        }
+
+        // exactly halfway between two doubles, which can only happen for small powers of ten: round to even
+        if ((low == 0 || low == 1) && exponent >= -4 && exponent <= 23 && (mantissa & 3) == 1 &&
+                (mantissa << (upperBit + 64 - MANTISSA_BITS - 3)) == high) {
+            mantissa &= ~1L;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_BITS)) {
+            mantissa = 1L << MANTISSA_BITS;
+            power2++;
+        }
+
+        mantissa &= ~(1L << MANTISSA_BITS);
+        if (power2 >= INFINITE_EXPONENT) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return Double.longBitsToDouble(mantissa | ((long) power2 << MANTISSA_BITS));
+    }
+
+    /**
+     * @return floor(log2(10^q)) + 63, close enough for q between -342 and 308
+     */
+    private static int power(int q) {
+        return (((152170 + 65536) * q) >> 16) + 63;
+    }
+
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    private static boolean unsignedLessThan(long x, long y) {
+        return (x ^ Long.MIN_VALUE) < (y ^ Long.MIN_VALUE);
+    }
+}
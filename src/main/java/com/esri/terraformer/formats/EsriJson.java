@@ -1,6 +1,14 @@
 package com.esri.terraformer.formats;
 
+import com.esri.terraformer.algorithm.Envelope;
+import com.esri.terraformer.algorithm.MonotoneChains;
+import com.esri.terraformer.algorithm.STRtree;
 import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.CodecEvent;
+import com.esri.terraformer.core.CodecListener;
+import com.esri.terraformer.core.CodecTimer;
+import com.esri.terraformer.core.CoordinateSequence;
+import com.esri.terraformer.core.CountingOutputStream;
 import com.esri.terraformer.core.Feature;
 import com.esri.terraformer.core.FeatureCollection;
 import com.esri.terraformer.core.Geometry;
@@ -10,15 +18,32 @@ import com.esri.terraformer.core.MultiLineString;
 import com.esri.terraformer.core.MultiPoint;
 import com.esri.terraformer.core.MultiPolygon;
 import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointCollection;
 import com.esri.terraformer.core.Polygon;
 import com.esri.terraformer.core.Terraformer;
 import com.esri.terraformer.core.TerraformerException;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
-
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /*
  * Resources:
@@ -38,7 +63,16 @@ import java.util.ArrayList;
  * FeatureCollection    (Array of Feature)
  * GeometryCollection   (Array of Geometry)
  */
-public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
+
+/**
+ * Encodes and decodes Esri JSON. An instance is thread-safe: configure it once and share it, along with the
+ * {@link Terraformer} it's used by. The spatial reference object is added to the output as it is, so don't change
+ * it once it has been set.
+ */
+public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder, Terraformer.ByteDecoder,
+        Terraformer.ByteEncoder, Terraformer.Named {
+    /** The format of the events this reports to a {@link CodecListener}. */
+    public static final String FORMAT_NAME = "EsriJSON";
     private static final String DECODE_ERROR_PREFIX = "Error while parsing Esri JSON: ";
     private static final int DEFAULT_SPATIAL_REFERENCE = 4326;
     private static final String DEFAULT_FEATURE_ID_KEY = "OBJECTID";
@@ -57,8 +91,11 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
     private static final String KEY_GEOMETRY = "geometry";
     private static final String KEY_ATTRIBUTES = "attributes";
 
-    private JsonObject spatialReference;
-    private String featureIdKey;
+    private volatile JsonObject spatialReference;
+    private volatile String featureIdKey;
+    private volatile boolean packCoordinates;
+    private volatile CoordinateFormat coordinateFormat = CoordinateFormat.SHORTEST;
+    private volatile CodecListener listener = CodecListener.NONE;
 
     public EsriJson() {
         setSpatialReference(DEFAULT_SPATIAL_REFERENCE);
@@ -86,29 +123,141 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         featureIdKey = key;
     }
 
+    /** Decode the coordinates of LineStrings, MultiPoints and polygon rings packed. See {@link BaseGeometry#pack()}. */
+    public void setPackCoordinates(boolean packCoordinates) {
+        this.packCoordinates = packCoordinates;
+    }
+
+    /**
+     * Round coordinates to at most this many decimal places when encoding, dropping trailing zeros. Unless set, or
+     * when set to a negative number, coordinates are written as the shortest decimals that read back as the same
+     * doubles.
+     */
+    public void setCoordinatePrecision(int decimalPlaces) {
+        this.coordinateFormat = coordinateFormat.withDecimalPlaces(decimalPlaces);
+    }
+
+    /**
+     * Leave out consecutive vertices of paths and rings that are written as the same position, most often because
+     * they round together with {@link #setCoordinatePrecision(int)}. The last vertex is always written, so rings stay
+     * closed, and nothing is left out of a path or ring that would end up with too few vertices to be valid.
+     */
+    public void setDropCollapsedVertices(boolean dropCollapsedVertices) {
+        this.coordinateFormat = coordinateFormat.withDropCollapsedVertices(dropCollapsedVertices);
+    }
+
+    /**
+     * Report every decode and encode to the listener, along with the time taken to sort the rings of each polygon
+     * into outer rings and holes, including those of Features read with {@link #readFeatureFile}.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(CodecListener listener) {
+        this.listener = listener == null ? CodecListener.NONE : listener;
+    }
+
+    @Override
+    public String getFormatName() {
+        return FORMAT_NAME;
+    }
+
     @Override
     public BaseGeometry decode(String s) throws TerraformerException {
-        return geometryFromJson(FormatUtils.getObject(s, DECODE_ERROR_PREFIX));
+        CodecListener listener = this.listener;
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        BaseGeometry geo = geometryFromJson(FormatUtils.getObject(s, DECODE_ERROR_PREFIX), packCoordinates, listener);
+        if (timer != null) {
+            timer.decoded(geo, s.length());
+        }
+        return geo;
+    }
+
+    /**
+     * Decodes UTF-8 encoded Esri JSON from the buffer's position to its limit, a block at a time, without copying
+     * the whole of it into a String first. The position is moved to the limit.
+     *
+     * @param json
+     * @return
+     * @throws TerraformerException
+     */
+    @Override
+    public BaseGeometry decode(ByteBuffer json) throws TerraformerException {
+        if (json == null || !json.hasRemaining()) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        CodecListener listener = this.listener;
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        int length = json.remaining();
+
+        JsonElement element;
+        try {
+            element = JsonParser.parseReader(new ByteBufferReader(json));
+        } catch (JsonParseException e) {
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_A_JSON_OBJECT);
+        }
+
+        if (!element.isJsonObject()) {
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_A_JSON_OBJECT);
+        }
+
+        BaseGeometry geo = geometryFromJson(element.getAsJsonObject(), packCoordinates, listener);
+        if (timer != null) {
+            timer.decoded(geo, length);
+        }
+        return geo;
     }
 
     @Override
     public String encode(BaseGeometry geo) {
-        return geometryToJson(geo).toString();
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        String json = geometryToJson(geo).toString();
+        if (timer != null) {
+            timer.encoded(geo, json.length());
+        }
+        return json;
+    }
+
+    /**
+     * Encodes a geometry as UTF-8, written as it is produced rather than through a String of the whole output. The
+     * output is the same as {@link #encode(BaseGeometry)}. Nothing is written for a null geometry, and the stream is
+     * flushed but not closed.
+     *
+     * @param geo
+     * @param out
+     * @throws IOException
+     */
+    @Override
+    public void encode(BaseGeometry geo, OutputStream out) throws IOException {
+        if (geo == null) {
+            out.flush();
+            return;
+        }
+
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        CountingOutputStream counter = timer == null ? null : new CountingOutputStream(out);
+        Writer writer = new OutputStreamWriter(counter == null ? out : counter, FormatUtils.UTF_8);
+        FormatUtils.write(geometryToJson(geo), writer);
+        writer.flush();
+        if (timer != null) {
+            timer.encoded(geo, counter.getCount());
+        }
     }
 
     /** Create a Geometry from Json */
-    private static BaseGeometry geometryFromJson(JsonObject g) throws TerraformerException {
+    private static BaseGeometry geometryFromJson(JsonObject g, boolean pack, CodecListener listener)
+            throws TerraformerException {
         // infer type from keys present in g, then defer to the appropriate method.
         if (isPoint(g)) {
             return pointFromJson(g);
         } else if (isMultiPoint(g)) {
-            return multiPointFromJson(g);
+            return multiPointFromJson(g, pack);
         } else if (isPolyline(g)) {
-            return polyLineFromJson(g);
+            return polyLineFromJson(g, pack);
         } else if (isPolygon(g)) {
-            return polygonFromJson(g);
+            return polygonFromJson(g, pack, listener);
         } else if (isFeature(g)) {
-            return featureFromJson(g);
+            return featureFromJson(g, pack, listener);
         } else {
             throw new TerraformerException(DECODE_ERROR_PREFIX, "Unable to determine geometry type.");
         }
@@ -156,16 +305,17 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
     /** Encode a Point to Esri JSON */
     private JsonObject pointToJson(Point p) {
         JsonObject o = new JsonObject();
+        CoordinateFormat format = coordinateFormat;
 
         o.add(KEY_SPATIAL_REFERENCE, spatialReference);
-        o.addProperty(KEY_X, p.getX());
-        o.addProperty(KEY_Y, p.getY());
+        o.add(KEY_X, coordinate(p.getX(), format));
+        o.add(KEY_Y, coordinate(p.getY(), format));
         if (p.size() > 2) {
-            o.addProperty(KEY_Z, p.getZ());
+            o.add(KEY_Z, coordinate(p.getZ(), format));
             o.addProperty(KEY_HAS_Z, true);
         }
         if (p.size() > 3) {
-            o.addProperty(KEY_M, p.get(3));
+            o.add(KEY_M, coordinate(p.get(3), format));
             o.addProperty(KEY_HAS_M, true);
         }
 
@@ -174,13 +324,8 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
 
     /** Encode a MultiPoint to Esri JSON */
     private JsonObject multiPointToJson(MultiPoint mp) {
-        JsonObject o = makeJsonObject(mp.get(0).size());
-
-        JsonArray points = new JsonArray();
-        for (Point p : mp) {
-            points.add(pointToArray(p));
-        }
-        o.add(KEY_POINTS, points);
+        JsonObject o = makeJsonObject(mp.getDimension(0));
+        o.add(KEY_POINTS, coordinatesToArray(mp, coordinateFormat, 0));
 
         return o;
     }
@@ -198,15 +343,12 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
      * LineStrings and MultiLineStrings have identical representation in Esri JSON.
      */
     private JsonObject multiLineStringToJson(MultiLineString mls) {
-        JsonObject o = makeJsonObject(mls.get(0).get(0).size());
+        JsonObject o = makeJsonObject(mls.get(0).getDimension(0));
 
+        CoordinateFormat format = coordinateFormat;
         JsonArray paths = new JsonArray();
         for (LineString ls : mls) {
-            JsonArray points = new JsonArray();
-            for (Point p : ls) {
-                points.add(pointToArray(p));
-            }
-            paths.add(points);
+            paths.add(coordinatesToArray(ls, format, CoordinateFormat.LINE_MINIMUM));
         }
         o.add(KEY_PATHS, paths);
 
@@ -226,12 +368,13 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
      * Polygons and MultiPolygons have identical representation in Esri JSON.
      */
     private JsonObject multiPolygonToJson(MultiPolygon mp) {
-        JsonObject o = makeJsonObject(mp.get(0).getOuterRing().get(0).size());
+        JsonObject o = makeJsonObject(mp.get(0).getOuterRing().getDimension(0));
 
+        CoordinateFormat format = coordinateFormat;
         JsonArray rings = new JsonArray();
         for (Polygon p : mp) {
             // add oriented rings from all polygons in the multipolygon to the array
-            rings.addAll(polygonToOrientedRings(p));
+            rings.addAll(polygonToOrientedRings(p, format));
         }
         o.add(KEY_RINGS, rings);
 
@@ -258,7 +401,8 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         JsonObject o = new JsonObject();
 
         o.add(KEY_GEOMETRY, geometryToJson(f.getGeometry()));
-        o.add(KEY_ATTRIBUTES, f.getProperties());
+        // never getProperties(), which changes the Feature and so isn't safe for threads sharing it
+        o.add(KEY_ATTRIBUTES, f.peekProperties());
 
         if (f.getId() != null) {
             o.addProperty(DEFAULT_FEATURE_ID_KEY, f.getId());
@@ -284,21 +428,21 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         ArrayList<Double> coords = new ArrayList<Double>();
 
         try {
-            coords.add(g.get(KEY_X).getAsDouble());
-            coords.add(g.get(KEY_Y).getAsDouble());
+            coords.add(DoubleParser.parse(g.get(KEY_X)));
+            coords.add(DoubleParser.parse(g.get(KEY_Y)));
 
             boolean hasZ = g.has(KEY_HAS_Z) && g.get(KEY_HAS_Z).getAsBoolean();
             boolean hasM = g.has(KEY_HAS_M) && g.get(KEY_HAS_M).getAsBoolean();
 
             if (hasZ) {
-                coords.add(g.get(KEY_Z).getAsDouble());
+                coords.add(DoubleParser.parse(g.get(KEY_Z)));
             }
 
             if (hasM) {
                 if (!hasZ) {
                     coords.add(0.0); // z = null
                 }
-                coords.add(g.get(KEY_M).getAsDouble());
+                coords.add(DoubleParser.parse(g.get(KEY_M)));
             }
         } catch (RuntimeException e) {
             throw new TerraformerException(DECODE_ERROR_PREFIX, "Unable to decode point.");
@@ -307,26 +451,16 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         return new Point(coords);
     }
 
-    private static MultiPoint multiPointFromJson(JsonObject g) {
-        ArrayList<Point> points = new ArrayList<Point>();
-
-        for (JsonElement p : g.getAsJsonArray(KEY_POINTS)) {
-            points.add(pointFromCoordinates(g, p));
-        }
-
-        return new MultiPoint(points);
+    private static MultiPoint multiPointFromJson(JsonObject g, boolean pack) {
+        return coordinatesFromArray(g, g.getAsJsonArray(KEY_POINTS)).fill(new MultiPoint(), pack);
     }
 
 
-    private static Geometry polyLineFromJson(JsonObject g) {
+    private static Geometry polyLineFromJson(JsonObject g, boolean pack) {
         MultiLineString mls = new MultiLineString();
 
         for (JsonElement path : g.getAsJsonArray(KEY_PATHS)) {
-            LineString l = new LineString();
-            for (JsonElement p : path.getAsJsonArray()) {
-                l.add(pointFromCoordinates(g, p));
-            }
-            mls.add(l);
+            mls.add(coordinatesFromArray(g, path).fill(new LineString(), pack));
         }
 
         if (mls.size() == 1) {
@@ -336,21 +470,24 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         return mls;
     }
 
-    private static Geometry polygonFromJson(JsonObject g) {
+    private static Geometry polygonFromJson(JsonObject g, boolean pack, CodecListener listener) {
         MultiPolygon outerRings = new MultiPolygon();
         MultiLineString holes = new MultiLineString();
 
         for (JsonElement ring : g.getAsJsonArray(KEY_RINGS)) {
-           LineString r = new LineString();
-            for (JsonElement p : ring.getAsJsonArray()) {
-                r.add(pointFromCoordinates(g, p));
+            CoordinateBuffer coords = coordinatesFromArray(g, ring);
+
+            // close the ring, as LineString.closeRing does
+            if (coords.size() > 0 && (coords.size() <= 3 || !coords.firstEqualsLast())) {
+                coords.addFirst();
             }
 
-            r.closeRing();
-            if (r.size() < 4) {
+            if (coords.size() < 4) {
                 continue;
             }
 
+            LineString r = coords.fill(new LineString(), pack);
+
             // r is an outer ring if it is clockwise, otherwise it is a hole
             if (ringIsClockwise(r)) {
                 outerRings.add(new Polygon(r));
@@ -359,26 +496,52 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
             }
         }
 
+        long start = listener == CodecListener.NONE ? 0 : System.nanoTime();
+        int outerRingCount = outerRings.size();
+
+        // Index the outer rings by their envelopes, so each hole is only checked against the rings whose envelopes
+        // contain it. Holes go in the index too, after the outer rings, since a hole that isn't contained becomes an
+        // outer ring that later holes can be in. Query results come back in insertion order, so the outer rings are
+        // still tried in the order they are in outerRings.
+        STRtree<Shell> index = new STRtree<Shell>();
+        for (Polygon p : outerRings) {
+            Shell shell = new Shell(p.getOuterRing());
+            shell.polygon = p;
+            index.insert(shell.envelope, shell);
+        }
+
+        List<Shell> holeShells = new ArrayList<Shell>(holes.size());
         for (LineString h : holes) {
-            boolean contained = false;
+            Shell hole = new Shell(h);
+            holeShells.add(hole);
+            index.insert(hole.envelope, hole);
+        }
 
-            // loop over all outer rings and see if they contain the hole
-            for (Polygon p : outerRings) {
-                if (coordinatesContainCoordinates(p.getOuterRing(), h)) {
-                    // the hole is contained. add it to our polygon
-                    p.add(h);
+        for (Shell h : holeShells) {
+            Shell container = null;
 
-                    contained = true;
+            // loop over the outer rings that could contain the hole and see if they do
+            for (Shell candidate : index.query(h.envelope)) {
+                if (candidate.polygon != null && candidate.contains(h)) {
+                    container = candidate;
                     break;
                 }
             }
 
-            // no outer rings contain this hole. add it to outer rings, since it can't be a hole!
-            if (!contained) {
-               outerRings.add(new Polygon(h));
+            if (container != null) {
+                // the hole is contained. add it to our polygon
+                container.polygon.add(h.ring);
+            } else {
+                // no outer rings contain this hole. add it to outer rings, since it can't be a hole!
+                h.polygon = new Polygon(h.ring);
+                outerRings.add(h.polygon);
             }
         }
 
+        if (listener != CodecListener.NONE) {
+            listener.holesAssigned(outerRingCount, holes.size(), System.nanoTime() - start);
+        }
+
         // return a Polygon or MultiPolygon depending on how many outer rings we are left with.
         if (outerRings.size() == 1) {
             return outerRings.get(0);
@@ -387,10 +550,11 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         }
     }
 
-    private static Feature featureFromJson(JsonObject g) throws TerraformerException {
+    private static Feature featureFromJson(JsonObject g, boolean pack, CodecListener listener)
+            throws TerraformerException {
         Geometry geometry;
         try {
-            geometry = (Geometry) geometryFromJson(g.get(KEY_GEOMETRY).getAsJsonObject());
+            geometry = (Geometry) geometryFromJson(g.get(KEY_GEOMETRY).getAsJsonObject(), pack, listener);
         } catch (TerraformerException e) {
             throw new TerraformerException("Error decoding EsriJSON feature", "Unable to parse 'geometry'.");
         }
@@ -404,6 +568,100 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         return new Feature(id, geometry, attributes);
     }
 
+    /**
+     * Reads a UTF-8 file of Esri JSON Features, one per line, decoding chunks of it in parallel on the executor.
+     * See {@link FeatureFileReader}.
+     *
+     * @param file
+     * @param executor
+     * @return an iterator that should be closed when done with
+     * @throws IOException if the file can't be opened
+     */
+    public FeatureFileReader readFeatureFile(File file, Executor executor) throws IOException {
+        final boolean pack = packCoordinates;
+        final CodecListener listener = this.listener;
+        return new FeatureFileReader(file, executor, new FeatureFileReader.ChunkDecoder() {
+            @Override
+            public void decode(Reader in, List<Feature> out) throws IOException, TerraformerException {
+                readFeatures(in, pack, listener, out);
+            }
+        });
+    }
+
+    /**
+     * Package private.
+     *
+     * Reads Esri JSON Features, one per line, into out. When a Feature isn't valid, the ones before it are left in
+     * out. The reader is not closed.
+     *
+     * @param in
+     * @param pack
+     * @param listener told about hole assignment
+     * @param out
+     * @throws IOException if reading fails
+     * @throws TerraformerException for the first Feature that isn't valid
+     */
+    static void readFeatures(Reader in, boolean pack, CodecListener listener, List<Feature> out)
+            throws IOException, TerraformerException {
+        JsonReader reader = new JsonReader(in);
+        // lenient, so that one reader can read any number of top level values
+        reader.setLenient(true);
+
+        try {
+            while (true) {
+                try {
+                    if (reader.peek() == JsonToken.END_DOCUMENT) {
+                        return;
+                    }
+                } catch (EOFException e) {
+                    // only thrown when there was nothing but whitespace
+                    return;
+                }
+
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.ELEMENT_NOT_OBJECT);
+                }
+
+                // the members of the Feature, except that an attributes object is kept as JSON text, and parsed
+                // only if the Feature's properties are asked for
+                JsonObject object = new JsonObject();
+                String attributes = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (KEY_ATTRIBUTES.equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        attributes = RawJson.read(reader);
+                        object.add(name, new JsonObject());
+                    } else {
+                        object.add(name, JsonParser.parseReader(reader));
+                    }
+                }
+                reader.endObject();
+
+                if (!isFeature(object)) {
+                    throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.ELEMENT_NOT_FEATURE);
+                }
+
+                Feature feature = featureFromJson(object, pack, listener);
+                if (attributes != null) {
+                    feature.setRawProperties(attributes);
+                }
+                out.add(feature);
+            }
+        } catch (EOFException e) {
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        } catch (MalformedJsonException e) {
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getCause());
+        } catch (JsonParseException e) {
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        } catch (IllegalStateException e) {
+            // thrown by the reader, or by JsonElement when a member isn't what it should be
+            throw new TerraformerException(DECODE_ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        }
+    }
+
     /* --- Helpers --- */
 
     private JsonObject makeJsonObject(Integer numCoords) {
@@ -419,15 +677,42 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         return o;
     }
 
-    private static JsonArray pointToArray(Point p) {
+    /**
+     * @param minimumPoints see {@link CoordinateFormat#verticesToWrite(List, int)}
+     */
+    private static JsonArray coordinatesToArray(PointCollection points, CoordinateFormat format, int minimumPoints) {
+        return coordinatesToArray(points, false, format, minimumPoints);
+    }
+
+    private static JsonArray coordinatesToArray(PointCollection points, boolean reversed, CoordinateFormat format,
+            int minimumPoints) {
+        boolean[] write = format.verticesToWrite(points, minimumPoints);
+        int size = points.size();
+
         JsonArray r = new JsonArray();
-        for (double d : p) {
-            r.add((new JsonPrimitive(d)));
+        for (int n = 0; n < size; n++) {
+            int i = reversed ? size - 1 - n : n;
+            if (write == null || write[i]) {
+                r.add(pointToArray(points, i, format));
+            }
         }
         return r;
     }
 
-    private static JsonArray polygonToOrientedRings(Polygon input) {
+    private static JsonArray pointToArray(CoordinateSequence points, int index, CoordinateFormat format) {
+        JsonArray r = new JsonArray();
+        for (int i = 0; i < points.getDimension(index); i++) {
+            r.add(coordinate(points.getOrdinate(index, i), format));
+        }
+        return r;
+    }
+
+    /** A coordinate that Gson writes with {@link DoubleFormatter}. */
+    private static JsonPrimitive coordinate(double value, CoordinateFormat format) {
+        return new JsonPrimitive(format.format(value));
+    }
+
+    private static JsonArray polygonToOrientedRings(Polygon input, CoordinateFormat format) {
         JsonArray rings = new JsonArray();
 
         for (int i = 0; i < input.size(); i++) {
@@ -438,72 +723,81 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
                 continue;
             }
 
-            // orient rings
+            // orient rings, writing the points in reverse rather than reversing the ring itself
+            boolean reverse;
             if (i == 0 && !ringIsClockwise(r)) {
                 // make outer ring clockwise
-                r.reverse();
-            } else if (ringIsClockwise(r)) {
+                reverse = true;
+            } else {
                 // make holes counter clockwise
-                r.reverse();
+                reverse = ringIsClockwise(r);
             }
 
-            JsonArray ring = new JsonArray();
-            for (Point p : r) {
-                ring.add(pointToArray(p));
-            }
-            rings.add(ring);
+            rings.add(coordinatesToArray(r, reverse, format, CoordinateFormat.RING_MINIMUM));
         }
 
         return rings;
     }
 
-    private static Point pointFromCoordinates(JsonObject g, JsonElement array) {
-        JsonArray r = array.getAsJsonArray();
-
-        ArrayList<Double> coords = new ArrayList<Double>();
-        coords.add(r.get(0).getAsDouble());
-        coords.add(r.get(1).getAsDouble());
-
+    /** Read an array of point arrays into primitive coordinates. */
+    private static CoordinateBuffer coordinatesFromArray(JsonObject g, JsonElement array) {
         boolean hasZ = g.has(KEY_HAS_Z) && g.get(KEY_HAS_Z).getAsBoolean();
         boolean hasM = g.has(KEY_HAS_M) && g.get(KEY_HAS_M).getAsBoolean();
 
-        if (hasZ) {
-            coords.add(r.get(2).getAsDouble());
-        }
+        CoordinateBuffer coords = new CoordinateBuffer();
+        for (JsonElement p : array.getAsJsonArray()) {
+            JsonArray r = p.getAsJsonArray();
 
-        if (hasM) {
-            if (!hasZ) {
-                coords.add(0.0); // z = null
-                coords.add(r.get(2).getAsDouble());
-            } else {
-                coords.add(r.get(3).getAsDouble());
+            coords.beginPoint();
+            coords.add(DoubleParser.parse(r.get(0)));
+            coords.add(DoubleParser.parse(r.get(1)));
+
+            if (hasZ) {
+                coords.add(DoubleParser.parse(r.get(2)));
             }
+
+            if (hasM) {
+                if (!hasZ) {
+                    coords.add(0.0); // z = null
+                    coords.add(DoubleParser.parse(r.get(2)));
+                } else {
+                    coords.add(DoubleParser.parse(r.get(3)));
+                }
+            }
+            coords.endPoint();
         }
 
-        return new Point(coords);
+        return coords;
     }
 
     /**
      * Determines whether or not the direction of the coordinates in a ring is clockwise using the Shoelace Formula.
      * http://en.wikipedia.org/wiki/Shoelace_formula
      **/
-    private static boolean ringIsClockwise(LineString ring) {
+    private static boolean ringIsClockwise(CoordinateSequence ring) {
         double total = 0;
-        Point p1, p2;
-        p1 = ring.get(0);
-        for (int i = 0; i < ring.size()-1; i++) {
-            p2 = ring.get(i+1);
-            total += (p2.get(0) - p1.get(0)) * (p2.get(1) + p1.get(1));
-            p1 = p2;
+        double x1 = ring.getX(0);
+        double y1 = ring.getY(0);
+        for (int i = 1; i < ring.size(); i++) {
+            double x2 = ring.getX(i);
+            double y2 = ring.getY(i);
+            total += (x2 - x1) * (y2 + y1);
+            x1 = x2;
+            y1 = y2;
         }
         return (total >= 0);
     }
 
-    static boolean ringContainsPoint(LineString ring, Point p) {
+    static boolean ringContainsPoint(CoordinateSequence ring, Point p) {
         if (ring == null || p == null) {
             return false;
         }
 
+        return ringContainsPoint(ring, p.getX(), p.getY());
+    }
+
+    static boolean ringContainsPoint(CoordinateSequence ring, double x, double y) {
+
         // Ray casting algorithm to determine if the point is inside the
         // ring. For each segment with the coordinates a and b, check to see if
         // point.y is within a.y and b.y. If so, check to see if the point is
@@ -521,11 +815,13 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         boolean contains = false;
         int nvert = ring.size();
         for (int i = 0, j = nvert - 1; i < nvert; j = i++) {
-            Point a = ring.get(i);
-            Point b = ring.get(j);
+            double ax = ring.getX(i);
+            double ay = ring.getY(i);
+            double bx = ring.getX(j);
+            double by = ring.getY(j);
 
-            boolean checkY = ((a.getY() >= p.getY()) != (b.getY() >= p.getY()));
-            boolean checkX = (p.getX() <= (b.getX() - a.getX()) * (p.getY() - a.getY()) / (b.getY() - a.getY()) + a.getX());
+            boolean checkY = ((ay >= y) != (by >= y));
+            boolean checkX = (x <= (bx - ax) * (y - ay) / (by - ay) + ax);
 
             if (checkY && checkX) {
                 contains = !contains;
@@ -535,146 +831,54 @@ public class EsriJson implements Terraformer.Decoder, Terraformer.Encoder {
         return contains;
     }
 
-    private static boolean coordinatesContainCoordinates(LineString outer, LineString inner) {
-        boolean intersects = lineStringsIntersect(outer, inner);
-        boolean contains = ringContainsPoint(outer, inner.get(0));
-
-        return (!intersects && contains);
-    }
-
     /**
-     * Determines whether two lineStrings intersect
-     * @param lineString a LineString
-     * @param other another LineString
-     * @return true if the given LineStrings intersect, false otherwise.
+     * A ring that may be the outer ring of a polygon, with the envelopes used to decide which rings it contains.
      */
-    static boolean lineStringsIntersect(LineString lineString, LineString other) {
-        // See: http://geomalgorithms.com/a05-_intersect-1.html for detailed explanation of this algorithm.
-        for (int i = 0; i < lineString.size() - 1; i++) {
-            Point a1 = lineString.get(i);
-            Point a2 = lineString.get(i+1);
-            LineString a = new LineString(a1, a2);
-
-            double[] aVector = new double[] { a2.getX() - a1.getX(), a2.getY() - a1.getY() };
-            boolean aIsPoint = (aVector[0] == 0 && aVector[1] == 0);
-
-            for (int j = 0; j < other.size() - 1; j++) {
-                Point b1 = other.get(j);
-                Point b2 = other.get(j+1);
-                LineString b = new LineString(b1, b2);
-
-                double[] bVector = new double[] { b2.getX() - b1.getX(), b2.getY() - b1.getY() };
-                boolean bIsPoint = bVector[0] == 0 && bVector[1] == 0;
-
-                double[] abVector = new double[] { a1.getX() - b1.getX(), a1.getY() - b1.getY() };
-
-                // Determine if a and b are parallel. They are parallel if they are both perpendicular to the same vector,
-                // which can be boiled down to checking if the difference of the perp products of the two vectors is equal
-                // to 0.
-                boolean parallel = (Math.abs(aVector[0] * bVector[1] - aVector[1] * bVector[0]) <= 0.0000001);
-                if (parallel) {
-                    if (aVector[0] * abVector[1] - aVector[1] * abVector[0] != 0 || bVector[0] * abVector[1] - bVector[1] * abVector[0] != 0) {
-                        // parallel but not collinear, intersection not possible.
-                        continue;
-                    }
-
-                    // if both segments are points, they can only intersect if they are equivalent
-                    if (aIsPoint && bIsPoint) {
-                        if (a1.isEquivalentTo(b1)) {
-                            return true;
-                        }
-                        continue;
-                    }
+    private static final class Shell {
+        final LineString ring;
+        final Envelope envelope;
+        // set once the ring is known to be an outer ring
+        Polygon polygon;
+        private MonotoneChains chains;
+
+        Shell(LineString ring) {
+            this.ring = ring;
+            this.envelope = Envelope.of(ring);
+        }
 
-                    // If only one segment is a point check whether it lies on the other line segment. Note that at this
-                    // point we know they are collinear, so we only need to check a single dimension.
-                    if (aIsPoint) {
-                        if (b1.getX() != b2.getX()) {
-                            // not vertical, use x
-                            if (a1.getX() >= b1.getX() && a1.getX() <= b2.getX()) {
-                                return true;
-                            }
-                            if (a1.getX() <= b1.getX() && a1.getX() >= b2.getX()) {
-                                return true;
-                            }
-                        } else {
-                            // vertical, use y
-                            if (a1.getY() >= b1.getY() && a1.getY() <= b2.getY()) {
-                                return true;
-                            }
-                            if (a1.getY() <= b1.getY() && a1.getY() >= b2.getY()) {
-                                return true;
-                            }
-                        }
-
-                        // No intersection here
-                        continue;
-                    }
-                    if (bIsPoint) {
-                        if (a1.getX() != a2.getX()) {
-                            // not vertical, use x
-                            if (b1.getX() >= a1.getX() && b1.getX() <= a2.getX()) {
-                                return true;
-                            }
-                            if (b1.getX() <= a1.getX() && b1.getX() >= a2.getX()) {
-                                return true;
-                            }
-                        } else {
-                            // vertical, use y
-                            if (b1.getY() >= a1.getY() && b1.getY() <= a2.getY()) {
-                                return true;
-                            }
-                            if (b1.getY() <= a1.getY() && b1.getY() >= a2.getY()) {
-                                return true;
-                            }
-                        }
-
-                        // No intersection here
-                        continue;
-                    }
+        /**
+         * Whether the other ring is inside this one and doesn't cross it.
+         */
+        boolean contains(Shell other) {
+            if (!envelope.contains(other.envelope)) {
+                return false;
+            }
 
-                    // Segments are parallel and collinear and both have a length > 0, do they intersect?
-                    if (a1.getX() != a2.getX()) {
-                        // not vertical, use x
-                        if ((a1.getX() >= b1.getX() && a1.getX() <= b2.getX()) || a1.getX() <= b1.getX() && a1.getX() >= b2.getX()) {
-                            return true;
-                        }
-                        if ((a2.getX() >= b1.getX() && a2.getX() <= b2.getX()) || a2.getX() <= b1.getX() && a2.getX() >= b2.getX()) {
-                            return true;
-                        }
-                    } else {
-                        // vertical, use y
-                        if ((a1.getY() >= b1.getY() && a1.getY() <= b2.getY()) || a1.getY() <= b1.getY() && a1.getX() >= b2.getY()) {
-                            return true;
-                        }
-                        if ((a2.getY() >= b1.getY() && a2.getY() <= b2.getY()) || a1.getY() <= b1.getY() && a1.getY() >= b2.getY()) {
-                            return true;
-                        }
-                    }
+            if (!ringContainsPoint(ring, other.ring.getX(0), other.ring.getY(0))) {
+                return false;
+            }
 
-                    // These two segments are parallel and collinear but not intersecting... next!
-                    continue;
-                }
+            return !lineStringsIntersect(chains(), other.chains());
+        }
 
-                // At this point we have 2 non-parallel lines. Get the direction vector for the difference between their
-                // first points, which is used to calculate the distance from those points along their corresponding line
-                // at which the intersection occurs. This distance is presented as a ratio of the line segment's length,
-                // so if that distance is between 0 and 1, the intersection happens on that line segment. Therefore both
-                // the a and the b intersection distance ratio must be between 0 and 1 for this to be a valid intersection.
-
-                // See the Non-Parallel Lines section in the link above for a detailed explanation.
-                double aIntersectionDistance = (bVector[1] * abVector[0] - bVector[0] * abVector[1]) /
-                        (bVector[0] * aVector[1] - bVector[1] * aVector[0]);
-                double bIntersectionDistance = (aVector[0] * abVector[1] - aVector[1] * abVector[0]) /
-                        (aVector[0] * bVector[1] - aVector[1] * bVector[0]);
-
-                if (aIntersectionDistance >= 0 && aIntersectionDistance <= 1 &&
-                        bIntersectionDistance >= 0 && bIntersectionDistance <= 1) {
-                    return true;
-                }
+        private MonotoneChains chains() {
+            if (chains == null) {
+                chains = new MonotoneChains(ring);
             }
+
+            return chains;
         }
-        return false;
+    }
+
+    /**
+     * Determines whether two lineStrings intersect. The chains are built by the caller, once per ring, so a ring
+     * tested against many others isn't split into chains again for each.
+     * @param lineString the chains of a LineString
+     * @param other the chains of another LineString
+     * @return true if the given LineStrings intersect, false otherwise.
+     */
+    static boolean lineStringsIntersect(MonotoneChains lineString, MonotoneChains other) {
+        return lineString.intersects(other);
     }
 
     /* --- Type Detection --- */
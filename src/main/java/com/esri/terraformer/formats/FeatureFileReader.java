@@ -0,0 +1,256 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.TerraformerException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reads the Features of a UTF-8 file with one Feature per line, decoding chunks of the file in parallel. Get one
+ * from {@link GeoJson#readFeatureFile(File, Executor)} or {@link EsriJson#readFeatureFile(File, Executor)}.
+ *
+ * The file is memory-mapped a large window at a time and cut into small chunks that end at line breaks. Each chunk
+ * is decoded on the executor straight from the mapped bytes. The Features come back in the order they are in the
+ * file. A few chunks per available processor are decoded ahead of the one being iterated, so only those are held in
+ * memory however big the file is.
+ *
+ * As with {@link FeatureIterator}, {@link #hasNext()} and {@link #next()} report failures as an
+ * {@link IllegalStateException} whose cause is the {@link TerraformerException}, {@link IOException} or
+ * InterruptedException. The Features before a bad one are still handed out, and after a failure there are no more
+ * elements.
+ */
+public class FeatureFileReader implements Iterator<Feature>, Closeable {
+    // chunks are about this many bytes, longer when a single line is. Small chunks keep the Features decoded ahead
+    // young enough to be collected cheaply.
+    private static final int CHUNK_SIZE = 256 * 1024;
+    // the file is mapped this much at a time, and chunks are cut from the mapping
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * Package private.
+     *
+     * Decodes all the Features in a chunk of the file.
+     */
+    interface ChunkDecoder {
+        /**
+         * @param in
+         * @param out the Features are added here, including the ones before a bad one
+         * @throws IOException
+         * @throws TerraformerException for the first Feature that isn't valid
+         */
+        void decode(Reader in, List<Feature> out) throws IOException, TerraformerException;
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+    private final Executor executor;
+    private final ChunkDecoder decoder;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final Queue<Chunk> chunks = new ArrayDeque<Chunk>();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    // where the next chunk starts
+    private long position;
+    private Chunk current;
+    private int index;
+    private boolean finished;
+
+    FeatureFileReader(File file, Executor executor, ChunkDecoder decoder) throws IOException {
+        this(file, executor, decoder, CHUNK_SIZE);
+    }
+
+    FeatureFileReader(File file, Executor executor, ChunkDecoder decoder, int chunkSize) throws IOException {
+        if (file == null || executor == null) {
+            throw new IllegalArgumentException("File and executor cannot be null.");
+        }
+
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.size = channel.size();
+        this.executor = executor;
+        this.decoder = decoder;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Runtime.getRuntime().availableProcessors() * CHUNKS_IN_FLIGHT_PER_THREAD;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+
+        try {
+            while (current == null || index == current.features.size()) {
+                if (current != null && current.error != null) {
+                    throw fail(current.error);
+                }
+
+                fill();
+                current = chunks.poll();
+                index = 0;
+                if (current == null) {
+                    finished = true;
+                    return false;
+                }
+
+                current.done.await();
+            }
+
+            return true;
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw fail(e);
+        }
+    }
+
+    @Override
+    public Feature next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        // let the Feature be collected once it has been handed out
+        return current.features.set(index++, null);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the file. Chunks already being decoded finish in the background.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        chunks.clear();
+        current = null;
+        file.close();
+    }
+
+    /**
+     * Cuts and hands out chunks until maxInFlight are waiting or the whole file has been handed out.
+     */
+    private void fill() throws IOException {
+        while (chunks.size() < maxInFlight && position < size) {
+            final ByteBuffer bytes = nextChunk();
+            final Chunk chunk = new Chunk();
+            chunks.add(chunk);
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        chunk.decode(decoder, bytes);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                chunk.error = e;
+                chunk.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Cuts the next chunk, from position through the last line break in it, and moves position past it.
+     */
+    private ByteBuffer nextChunk() throws IOException {
+        long length = Math.min(chunkSize, size - position);
+        while (true) {
+            ByteBuffer bytes = mapped(position, length);
+            if (position + length == size) {
+                position = size;
+                return bytes;
+            }
+
+            int end = (int) length;
+            while (end > 0 && bytes.get(end - 1) != '\n') {
+                end--;
+            }
+
+            if (end > 0) {
+                bytes.limit(end);
+                position += end;
+                return bytes;
+            }
+
+            // a single line longer than a chunk
+            if (length >= Integer.MAX_VALUE) {
+                throw new IOException("A line is longer than " + Integer.MAX_VALUE + " bytes.");
+            }
+            length = Math.min(Math.min(length * 2, Integer.MAX_VALUE), size - position);
+        }
+    }
+
+    /**
+     * @return the bytes from start to start + length, mapping a new window of the file if they aren't all in the
+     * current one
+     */
+    private ByteBuffer mapped(long start, long length) throws IOException {
+        if (window == null || start + length > windowStart + window.capacity()) {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.max(length, Math.min(WINDOW_SIZE, size - start)));
+        }
+
+        ByteBuffer bytes = window.duplicate();
+        bytes.limit((int) (start - windowStart + length));
+        bytes.position((int) (start - windowStart));
+        return bytes.slice();
+    }
+
+    private IllegalStateException fail(Exception e) {
+        finished = true;
+        return new IllegalStateException(e.getMessage(), e);
+    }
+
+    private static final class Chunk {
+        final CountDownLatch done = new CountDownLatch(1);
+        // both written by the decoding thread before done counts down
+        final List<Feature> features = new ArrayList<Feature>();
+        Exception error;
+
+        void decode(ChunkDecoder decoder, ByteBuffer bytes) {
+            try {
+                decoder.decode(new ByteBufferReader(bytes), features);
+            } catch (IOException e) {
+                error = e;
+            } catch (TerraformerException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Error e) {
+                // the executor sees this one, but the reader mustn't take the Features so far for the whole chunk
+                error = new IllegalStateException(e);
+                throw e;
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+}
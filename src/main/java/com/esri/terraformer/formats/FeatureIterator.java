@@ -0,0 +1,224 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.FeatureCollection;
+import com.esri.terraformer.core.GeometryType;
+import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the Features of a GeoJSON FeatureCollection one at a time, so only the current {@link Feature} is held
+ * in memory and the first one is available before the rest of the input has been read. Get one from
+ * {@link GeoJson#iterateFeatureCollection(Reader)}.
+ *
+ * The checks are the same as {@link GeoJson#decodeFeatureCollection(String)} makes, but a problem is only
+ * reported when the reader gets to it: Features before a bad one have already been returned, and a "type"
+ * member that comes after the "features" array is checked once the array has been read.
+ *
+ * {@link Iterator} methods can't throw checked exceptions, so {@link #hasNext()} and {@link #next()} report
+ * failures as an {@link IllegalStateException} whose cause is the {@link TerraformerException} or
+ * {@link IOException}. After a failure there are no more elements.
+ */
+public class FeatureIterator implements Iterator<Feature>, Closeable {
+    private static final String ERROR_PREFIX = FeatureCollection.ERROR_PREFIX;
+
+    private final JsonReader reader;
+    private GeometryType type;
+    private boolean started;
+    private boolean inFeatures;
+    private boolean finished;
+    private boolean packCoordinates;
+
+    FeatureIterator(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        reader = new JsonReader(in);
+        reader.setLenient(true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+
+        try {
+            if (!started) {
+                started = true;
+                start();
+            }
+
+            if (inFeatures && reader.hasNext()) {
+                return true;
+            }
+
+            finish();
+            return false;
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (TerraformerException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            // thrown by the reader when the document structure doesn't match what was asked for
+            throw fail(e);
+        } catch (JsonSyntaxException e) {
+            throw fail(e);
+        }
+    }
+
+    @Override
+    public Feature next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return GeoJsonParser.readFeature(reader, ERROR_PREFIX, packCoordinates);
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (TerraformerException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            // thrown by the reader when the document structure doesn't match what was asked for
+            throw fail(e);
+        } catch (JsonSyntaxException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Read the coordinates of LineStrings, MultiPoints and polygon rings straight into packed arrays, see
+     * {@link com.esri.terraformer.core.BaseGeometry#pack()}.
+     *
+     * @param packCoordinates
+     */
+    public void setPackCoordinates(boolean packCoordinates) {
+        this.packCoordinates = packCoordinates;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    /**
+     * Reads up to the first element of the "features" array.
+     */
+    private void start() throws IOException, TerraformerException {
+        try {
+            reader.peek();
+        } catch (EOFException e) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new TerraformerException(ERROR_PREFIX, TerraformerException.NOT_A_JSON_OBJECT);
+        }
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (GeoJson.TYPE_KEY.equals(name) && type == null) {
+                readType();
+            } else if (GeoJson.FEATURES_KEY.equals(name)) {
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    readRemainingMembers();
+                    throw new TerraformerException(ERROR_PREFIX, TerraformerException.ELEMENT_NOT_ARRAY);
+                }
+
+                reader.beginArray();
+                inFeatures = true;
+                return;
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+        checkType();
+        throw new TerraformerException(ERROR_PREFIX, TerraformerException.FEATURES_KEY_NOT_FOUND);
+    }
+
+    /**
+     * Reads everything after the "features" array.
+     */
+    private void finish() throws IOException, TerraformerException {
+        finished = true;
+
+        if (inFeatures) {
+            reader.endArray();
+            inFeatures = false;
+        }
+
+        readRemainingMembers();
+
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new TerraformerException(ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        }
+    }
+
+    /**
+     * Reads the members after the "features" array, through the end of the FeatureCollection, then checks its type.
+     */
+    private void readRemainingMembers() throws IOException, TerraformerException {
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (GeoJson.TYPE_KEY.equals(name) && type == null) {
+                readType();
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+        checkType();
+    }
+
+    private void readType() throws IOException, TerraformerException {
+        type = GeoJsonParser.readType(reader);
+        checkType();
+    }
+
+    private void checkType() throws TerraformerException {
+        if (type != GeometryType.FEATURECOLLECTION) {
+            throw new TerraformerException(ERROR_PREFIX, TerraformerException.NOT_OF_TYPE + "\"FeatureCollection\"");
+        }
+    }
+
+    private IllegalStateException fail(Exception e) {
+        finished = true;
+
+        if (e instanceof EOFException || e instanceof MalformedJsonException || e instanceof RuntimeException) {
+            e = new TerraformerException(ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        }
+
+        return new IllegalStateException(e.getMessage(), e);
+    }
+}
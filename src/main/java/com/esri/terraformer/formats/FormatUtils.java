@@ -2,11 +2,24 @@ package com.esri.terraformer.formats;
 
 import com.esri.terraformer.core.TerraformerException;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 
 public class FormatUtils {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Gson instances are thread-safe, and creating one isn't cheap
+    private static final Gson GSON = new Gson();
+    // writes JsonElements the way JsonElement.toString() does
+    private static final Gson ELEMENT_GSON = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
 
     /**
      * Package private.
@@ -21,11 +34,10 @@ public class FormatUtils {
             throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
         }
 
-        Gson gson = new Gson();
         JsonElement elem;
 
         try {
-            elem = gson.fromJson(json, JsonElement.class);
+            elem = GSON.fromJson(json, JsonElement.class);
         } catch (RuntimeException e) {
             throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
         }
@@ -45,11 +57,10 @@ public class FormatUtils {
             throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
         }
 
-        Gson gson = new Gson();
         JsonObject object;
 
         try {
-            JsonElement objElem = gson.fromJson(json, JsonElement.class);
+            JsonElement objElem = GSON.fromJson(json, JsonElement.class);
             object = objElem.getAsJsonObject();
         } catch (RuntimeException e) {
             throw new TerraformerException(errorPrefix, TerraformerException.NOT_A_JSON_OBJECT);
@@ -99,4 +110,63 @@ public class FormatUtils {
     public static boolean isEmpty(String json) {
         return json == null || json.length() <= 0;
     }
+
+    /**
+     * Package private.
+     *
+     * Writes the element as {@link JsonElement#toString()} would, without building the String. The writer is
+     * neither flushed nor closed.
+     *
+     * @param element
+     * @param out
+     * @throws IOException
+     */
+    static void write(JsonElement element, Writer out) throws IOException {
+        try {
+            ELEMENT_GSON.toJson(element, new JsonWriter(out));
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Package private.
+     *
+     * @param appendable
+     * @return the appendable itself if it is a Writer, otherwise a Writer that appends to it
+     */
+    static Writer writerFor(final Appendable appendable) {
+        if (appendable instanceof Writer) {
+            return (Writer) appendable;
+        }
+
+        return new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                for (int i = offset; i < offset + length; i++) {
+                    appendable.append(chars[i]);
+                }
+            }
+
+            @Override
+            public void write(int c) throws IOException {
+                appendable.append((char) c);
+            }
+
+            @Override
+            public void write(String str, int offset, int length) throws IOException {
+                appendable.append(str, offset, offset + length);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+    }
 }
@@ -1,6 +1,10 @@
 package com.esri.terraformer.formats;
 
 import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.CodecEvent;
+import com.esri.terraformer.core.CodecListener;
+import com.esri.terraformer.core.CodecTimer;
+import com.esri.terraformer.core.CountingOutputStream;
 import com.esri.terraformer.core.Feature;
 import com.esri.terraformer.core.FeatureCollection;
 import com.esri.terraformer.core.Geometry;
@@ -14,12 +18,33 @@ import com.esri.terraformer.core.Point;
 import com.esri.terraformer.core.Polygon;
 import com.esri.terraformer.core.Terraformer;
 import com.esri.terraformer.core.TerraformerException;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
-public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Encodes and decodes GeoJSON. An instance is thread-safe: configure it once and share it, along with the
+ * {@link Terraformer} it's used by.
+ */
+public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder, Terraformer.ByteEncoder,
+        Terraformer.ByteDecoder, Terraformer.Named {
+    /** The format of the events this reports to a {@link CodecListener}. */
+    public static final String FORMAT_NAME = "GeoJSON";
     public static final String GEOJSON_ERROR_PREFIX = "Error while parsing GeoJson: ";
     public static final String TYPE_KEY = "type";
     public static final String COORDINATES_KEY = "coordinates";
@@ -28,45 +53,238 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
     public static final String PROPERTIES_KEY = "properties";
     public static final String FEATURES_KEY = "features";
 
+    private volatile boolean packCoordinates;
+    private volatile CoordinateFormat coordinateFormat = CoordinateFormat.SHORTEST;
+    private volatile CodecListener listener = CodecListener.NONE;
+
+    /**
+     * Decode the coordinates of LineStrings, MultiPoints and polygon rings packed, see {@link BaseGeometry#pack()}.
+     * When decoding from a Reader or InputStream they are read straight into the packed arrays.
+     *
+     * @param packCoordinates
+     */
+    public void setPackCoordinates(boolean packCoordinates) {
+        this.packCoordinates = packCoordinates;
+    }
+
+    /**
+     * Round coordinates to at most this many decimal places when encoding, dropping trailing zeros. Six places is
+     * about ten centimeters in longitude and latitude. Unless set, or when set to a negative number, coordinates are
+     * written as the shortest decimals that read back as the same doubles.
+     *
+     * @param decimalPlaces
+     */
+    public void setCoordinatePrecision(int decimalPlaces) {
+        this.coordinateFormat = coordinateFormat.withDecimalPlaces(decimalPlaces);
+    }
+
+    /**
+     * Leave out consecutive vertices of LineStrings and polygon rings that are written as the same position, most
+     * often because they round together with {@link #setCoordinatePrecision(int)}. The last vertex is always written,
+     * so rings stay closed, and nothing is left out of a LineString or ring that would end up with too few vertices
+     * to be valid. MultiPoints are written whole.
+     *
+     * @param dropCollapsedVertices
+     */
+    public void setDropCollapsedVertices(boolean dropCollapsedVertices) {
+        this.coordinateFormat = coordinateFormat.withDropCollapsedVertices(dropCollapsedVertices);
+    }
+
+    /**
+     * Report every decode and encode of this instance to the listener. The length of a Reader's input or of the
+     * output to a Writer or Appendable isn't known, and is given as {@link CodecEvent#UNKNOWN_LENGTH}.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(CodecListener listener) {
+        this.listener = listener == null ? CodecListener.NONE : listener;
+    }
+
+    @Override
+    public String getFormatName() {
+        return FORMAT_NAME;
+    }
+
     @Override
     public BaseGeometry decode(String json) throws TerraformerException {
-        return fromJson(json, GEOJSON_ERROR_PREFIX);
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+
+        if (FormatUtils.isEmpty(json)) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        // streamed, as with a Reader, so that Feature properties are kept as text until they are asked for
+        BaseGeometry<?> geo;
+        try {
+            geo = GeoJsonParser.parse(new StringReader(json), GEOJSON_ERROR_PREFIX, packCoordinates);
+        } catch (IOException e) {
+            // reading from memory doesn't fail
+            throw new IllegalStateException(e);
+        }
+
+        if (timer != null) {
+            timer.decoded(geo, json.length());
+        }
+        return geo;
+    }
+
+    /**
+     * Decodes GeoJSON as it is read, building the geometry directly from the parser's tokens instead of
+     * going through an intermediate String and JsonElement tree. The reader is not closed.
+     *
+     * @param json
+     * @return
+     * @throws IOException if reading fails
+     * @throws TerraformerException if the input is not valid GeoJSON
+     */
+    public BaseGeometry decode(Reader json) throws IOException, TerraformerException {
+        return decode(json, CodecEvent.UNKNOWN_LENGTH);
+    }
+
+    /**
+     * Decodes UTF-8 encoded GeoJSON as it is read. See {@link #decode(Reader)}. The stream is not closed.
+     *
+     * @param json
+     * @return
+     * @throws IOException if reading fails
+     * @throws TerraformerException if the input is not valid GeoJSON
+     */
+    public BaseGeometry decode(InputStream json) throws IOException, TerraformerException {
+        if (json == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        return decode(new InputStreamReader(json, FormatUtils.UTF_8));
+    }
+
+    /**
+     * Decodes UTF-8 encoded GeoJSON from the buffer's position to its limit, a block at a time, without copying
+     * the whole of it into a String first. See {@link #decode(Reader)}. The position is moved to the limit.
+     *
+     * @param json
+     * @return
+     * @throws TerraformerException if the input is not valid GeoJSON
+     */
+    @Override
+    public BaseGeometry decode(ByteBuffer json) throws TerraformerException {
+        if (json == null || !json.hasRemaining()) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        int length = json.remaining();
+        try {
+            return decode(new ByteBufferReader(json), length);
+        } catch (IOException e) {
+            // reading from memory doesn't fail
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
     public String encode(BaseGeometry geo) {
-        return toJson(geo);
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        String json = toJson(geo, coordinateFormat);
+        if (timer != null) {
+            timer.encoded(geo, json == null ? 0 : json.length());
+        }
+        return json;
+    }
+
+    /**
+     * Encodes a geometry as it is written, without building a JsonObject tree or a String of the whole output.
+     * The output is the same as {@link #encode(BaseGeometry)}. Nothing is written for a null geometry, and the
+     * writer is neither flushed nor closed.
+     *
+     * @param geo
+     * @param out
+     * @throws IOException
+     */
+    public void encode(BaseGeometry geo, Writer out) throws IOException {
+        encode(geo, (Appendable) out);
+    }
+
+    /**
+     * See {@link #encode(BaseGeometry, Writer)}.
+     *
+     * @param geo
+     * @param out
+     * @throws IOException
+     */
+    public void encode(BaseGeometry geo, Appendable out) throws IOException {
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        toJson(geo, out, coordinateFormat);
+        if (timer != null) {
+            timer.encoded(geo, CodecEvent.UNKNOWN_LENGTH);
+        }
+    }
+
+    /**
+     * Encodes a geometry as UTF-8 as it is written. See {@link #encode(BaseGeometry, Writer)}. The stream is
+     * flushed but not closed.
+     *
+     * @param geo
+     * @param out
+     * @throws IOException
+     */
+    @Override
+    public void encode(BaseGeometry geo, OutputStream out) throws IOException {
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        CountingOutputStream counter = timer == null ? null : new CountingOutputStream(out);
+        Writer writer = new OutputStreamWriter(counter == null ? out : counter, FormatUtils.UTF_8);
+        toJson(geo, writer, coordinateFormat);
+        writer.flush();
+        if (timer != null) {
+            timer.encoded(geo, counter.getCount());
+        }
+    }
+
+    private BaseGeometry decode(Reader json, long length) throws IOException, TerraformerException {
+        CodecTimer timer = CodecTimer.start(listener, FORMAT_NAME);
+        BaseGeometry geo = GeoJsonParser.parse(json, GEOJSON_ERROR_PREFIX, packCoordinates);
+        if (timer != null) {
+            timer.decoded(geo, length);
+        }
+        return geo;
     }
 
     public static BaseGeometry<?> fromJson(String json, String errorPrefix) throws TerraformerException {
         return fromJsonObject(FormatUtils.getElement(json, errorPrefix), errorPrefix);
     }
 
+    public static BaseGeometry<?> fromJson(Reader json, String errorPrefix) throws IOException, TerraformerException {
+        return GeoJsonParser.parse(json, errorPrefix, false);
+    }
+
     public static String toJson(BaseGeometry geo) {
+        return toJson(geo, CoordinateFormat.SHORTEST);
+    }
+
+    public static void toJson(BaseGeometry geo, Appendable out) throws IOException {
+        toJson(geo, out, CoordinateFormat.SHORTEST);
+    }
+
+    private static String toJson(BaseGeometry geo, CoordinateFormat format) {
         if (geo == null) {
             return null;
         }
 
-        JsonObject obj = null;
-        switch (geo.getType()) {
-            case POINT:
-            case MULTIPOINT:
-            case LINESTRING:
-            case MULTILINESTRING:
-            case POLYGON:
-            case MULTIPOLYGON:
-            case GEOMETRYCOLLECTION:
-                obj = geometryToJsonObject((Geometry)geo);
-                break;
-            case FEATURE:
-                obj = featureToJsonObject((Feature)geo);
-                break;
-            case FEATURECOLLECTION:
-                obj = featureCollectionToJsonObject((FeatureCollection)geo);
-                break;
+        StringWriter out = new StringWriter();
+        try {
+            GeoJsonWriter.write(geo, out, format);
+        } catch (IOException e) {
+            // a StringWriter doesn't throw
+            throw new IllegalStateException(e);
         }
 
-        return new Gson().toJson(obj);
+        return out.toString();
+    }
+
+    private static void toJson(BaseGeometry geo, Appendable out, CoordinateFormat format) throws IOException {
+        if (geo == null) {
+            return;
+        }
+
+        GeoJsonWriter.write(geo, FormatUtils.writerFor(out), format);
     }
 
     static BaseGeometry<?> fromJsonObject(JsonElement gjElem, String errorPrefix) throws TerraformerException {
@@ -111,6 +329,117 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
         return geo;
     }
 
+    /**
+     * Reads the Features of a FeatureCollection one at a time as they are needed. See {@link FeatureIterator}.
+     *
+     * @param featureCollectionJSON
+     * @return an iterator that should be closed when done with
+     */
+    public static FeatureIterator iterateFeatureCollection(Reader featureCollectionJSON) {
+        return new FeatureIterator(featureCollectionJSON);
+    }
+
+    /**
+     * Reads the Features of a UTF-8 encoded FeatureCollection one at a time as they are needed.
+     * See {@link FeatureIterator}.
+     *
+     * @param featureCollectionJSON
+     * @return an iterator that should be closed when done with; closing it closes the stream
+     */
+    public static FeatureIterator iterateFeatureCollection(InputStream featureCollectionJSON) {
+        if (featureCollectionJSON == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        return iterateFeatureCollection(new InputStreamReader(featureCollectionJSON, FormatUtils.UTF_8));
+    }
+
+    /**
+     * Reads newline-delimited GeoJSON Features, or a GeoJSON text sequence, one at a time as they are needed.
+     * See {@link GeoJsonSeqReader}.
+     *
+     * @param featureSequence
+     * @return an iterator that should be closed when done with
+     */
+    public static GeoJsonSeqReader readFeatureSequence(Reader featureSequence) {
+        return new GeoJsonSeqReader(featureSequence);
+    }
+
+    /**
+     * Reads UTF-8 encoded newline-delimited GeoJSON Features, or a GeoJSON text sequence, one at a time as they
+     * are needed. See {@link GeoJsonSeqReader}.
+     *
+     * @param featureSequence
+     * @return an iterator that should be closed when done with; closing it closes the stream
+     */
+    public static GeoJsonSeqReader readFeatureSequence(InputStream featureSequence) {
+        if (featureSequence == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        return readFeatureSequence(new InputStreamReader(featureSequence, FormatUtils.UTF_8));
+    }
+
+    /**
+     * Reads all the newline-delimited GeoJSON Features, or GeoJSON text sequence, decoding chunks of lines in
+     * parallel on the executor. The reader is not closed.
+     *
+     * @param featureSequence
+     * @param executor
+     * @return the Features in the order they were read
+     * @throws IOException if reading fails
+     * @throws TerraformerException for the first Feature that isn't valid
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the decoding
+     */
+    public static List<Feature> decodeFeatureSequence(Reader featureSequence, Executor executor)
+            throws IOException, TerraformerException, InterruptedException {
+        return GeoJsonSeqReader.readAll(featureSequence, executor, false);
+    }
+
+    /**
+     * Reads a UTF-8 file of newline-delimited GeoJSON Features, or a GeoJSON text sequence, decoding chunks of it in
+     * parallel on the executor. See {@link FeatureFileReader}.
+     *
+     * @param file
+     * @param executor
+     * @return an iterator that should be closed when done with
+     * @throws IOException if the file can't be opened
+     */
+    public FeatureFileReader readFeatureFile(File file, Executor executor) throws IOException {
+        final boolean pack = packCoordinates;
+        return new FeatureFileReader(file, executor, new FeatureFileReader.ChunkDecoder() {
+            @Override
+            public void decode(Reader in, List<Feature> out) throws IOException, TerraformerException {
+                GeoJsonSeqReader.readFeatures(in, pack, out);
+            }
+        });
+    }
+
+    /**
+     * Writes Features as newline-delimited GeoJSON, or as a GeoJSON text sequence. See {@link GeoJsonSeqWriter}.
+     *
+     * @param out
+     * @return a writer that should be closed when done with; closing it closes out
+     */
+    public static GeoJsonSeqWriter writeFeatureSequence(Writer out) {
+        return new GeoJsonSeqWriter(out);
+    }
+
+    /**
+     * Writes Features as UTF-8 encoded newline-delimited GeoJSON, or as a GeoJSON text sequence.
+     * See {@link GeoJsonSeqWriter}.
+     *
+     * @param out
+     * @return a writer that should be closed when done with; closing it closes out
+     */
+    public static GeoJsonSeqWriter writeFeatureSequence(OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output cannot be null.");
+        }
+
+        return writeFeatureSequence(new BufferedWriter(new OutputStreamWriter(out, FormatUtils.UTF_8)));
+    }
+
     public static FeatureCollection decodeFeatureCollection(String featureCollectionJSON)
             throws TerraformerException {
         if (FormatUtils.isEmpty(featureCollectionJSON)) {
@@ -145,23 +474,6 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
         return returnVal;
     }
 
-    static JsonObject featureCollectionToJsonObject(FeatureCollection fc) {
-        JsonObject object = new JsonObject();
-        object.addProperty(TYPE_KEY, fc.getType().toString());
-
-        JsonArray features = new JsonArray();
-
-        for (Feature feat : fc) {
-            if (feat != null) {
-                features.add(featureToJsonObject(feat));
-            }
-        }
-
-        object.add(FEATURES_KEY, features);
-
-        return object;
-    }
-
     public static Feature decodeFeature(String featureJSON) throws TerraformerException {
         if (FormatUtils.isEmpty(featureJSON)) {
             throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
@@ -224,24 +536,6 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
         return (Feature) geoJson;
     }
 
-    static JsonObject featureToJsonObject(Feature feature) {
-        JsonObject object = new JsonObject();
-        object.addProperty(TYPE_KEY, feature.getType().toString());
-
-        JsonObject geometry = new JsonObject();
-        Geometry<?> geomObj = feature.get();
-        if (geomObj != null) {
-            geometry = geometryToJsonObject(geomObj);
-        }
-        object.add(GEOMETRY_KEY, geometry);
-
-        if (feature.getProperties() != null) {
-            object.add(PROPERTIES_KEY, feature.getProperties());
-        }
-
-        return object;
-    }
-
     public static GeometryCollection decodeGeometryCollection(String geometryCollectionJSON)
             throws TerraformerException {
         if (FormatUtils.isEmpty(geometryCollectionJSON)) {
@@ -461,7 +755,7 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
         for (JsonElement elem : coords) {
             Double coord;
             try {
-                coord = elem.getAsDouble();
+                coord = DoubleParser.parse(elem);
             } catch (RuntimeException e) {
                 throw new TerraformerException(errorPrefix, TerraformerException.COORDINATE_NOT_NUMERIC + elem);
             }
@@ -528,31 +822,4 @@ public class GeoJson implements Terraformer.Encoder, Terraformer.Decoder {
 
         return foundType;
     }
-
-    static JsonObject geometryToJsonObject(Geometry geo) {
-        Gson gson = new Gson();
-
-        JsonObject object = new JsonObject();
-        object.addProperty(TYPE_KEY, geo.getType().toString());
-
-        if (geo.getType() == GeometryType.GEOMETRYCOLLECTION) {
-            // geometry collections have special structure
-            GeometryCollection gc = (GeometryCollection) geo;
-            JsonArray geometries = new JsonArray();
-
-            for (Geometry g : gc) {
-                if (g != null) {
-                    geometries.add(geometryToJsonObject(g));
-                }
-            }
-
-            object.add(GEOMETRIES_KEY, geometries);
-        } else {
-            // points, linestrings, polygons etc
-            JsonElement coords = gson.toJsonTree(geo);
-            object.add(COORDINATES_KEY, coords);
-        }
-
-        return object;
-    }
 }
@@ -0,0 +1,658 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.FeatureCollection;
+import com.esri.terraformer.core.Geometry;
+import com.esri.terraformer.core.GeometryCollection;
+import com.esri.terraformer.core.GeometryType;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.MultiLineString;
+import com.esri.terraformer.core.MultiPoint;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.Polygon;
+import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Package private.
+ *
+ * Streaming counterpart of the JsonObject based decoding in {@link GeoJson}. Geometries are built
+ * directly from {@link JsonReader} tokens, so no JsonElement tree is held for the document.
+ *
+ * The "type" member decides how the rest of an object is read. When content members ("coordinates",
+ * "geometries", "geometry", "properties" or "features") come before it, the remainder of that one
+ * object is buffered as a JsonObject and handed to the tree based methods in {@link GeoJson}. Either
+ * way, when "type" turns up more than once the first one is used.
+ *
+ * Error messages are the same as the tree based methods produce. Coordinate arrays are always read
+ * to their end before an error is thrown, so the size checks win over errors in their elements just
+ * as they do when the whole array is available up front.
+ */
+final class GeoJsonParser {
+    private GeoJsonParser() {}
+
+    static BaseGeometry<?> parse(Reader in, String errorPrefix, boolean pack) throws IOException, TerraformerException {
+        if (in == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        JsonReader reader = new JsonReader(in);
+        // match the leniency of Gson.fromJson, which the String based decoding goes through
+        reader.setLenient(true);
+
+        try {
+            try {
+                reader.peek();
+            } catch (EOFException e) {
+                throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+            }
+
+            BaseGeometry<?> geo = readGeoJson(reader, errorPrefix, pack);
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
+            }
+
+            return geo;
+        } catch (EOFException e) {
+            throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
+        } catch (MalformedJsonException e) {
+            throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
+        } catch (IllegalStateException e) {
+            // thrown by the reader when the document structure doesn't match what was asked for
+            throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
+        } catch (JsonSyntaxException e) {
+            throw new TerraformerException(errorPrefix, TerraformerException.NOT_VALID_JSON);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads any GeoJSON object, the streaming equivalent of {@link GeoJson#fromJsonObject}.
+     *
+     * @param reader
+     * @param errorPrefix
+     * @param pack whether to pack the coordinates of LineStrings and MultiPoints, see {@link BaseGeometry#pack()}
+     * @return
+     * @throws IOException
+     * @throws TerraformerException
+     */
+    static BaseGeometry<?> readGeoJson(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_NOT_OBJECT);
+        }
+
+        reader.beginObject();
+        return readMembers(reader, errorPrefix, pack);
+    }
+
+    /**
+     * Reads the members of an object whose opening brace has already been consumed, through its closing brace.
+     *
+     * @param reader
+     * @param errorPrefix
+     * @param pack whether to pack the coordinates of LineStrings and MultiPoints, see {@link BaseGeometry#pack()}
+     * @return
+     * @throws IOException
+     * @throws TerraformerException
+     */
+    static BaseGeometry<?> readMembers(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        GeometryType type = null;
+        JsonObject buffered = null;
+
+        Geometry<?> geometry = null;
+        boolean geometryFound = false;
+        String properties = null;
+        BaseGeometry<?> contents = null;
+
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (buffered != null) {
+                if (GeoJson.TYPE_KEY.equals(name) && buffered.has(name)) {
+                    // the first "type" wins, as it does when it comes before the content
+                    reader.skipValue();
+                } else if (GeoJson.TYPE_KEY.equals(name) || isContentKey(name)) {
+                    buffered.add(name, JsonParser.parseReader(reader));
+                } else {
+                    reader.skipValue();
+                }
+                continue;
+            }
+
+            if (GeoJson.TYPE_KEY.equals(name)) {
+                if (type != null) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                type = readType(reader);
+                if (type == null) {
+                    skipRemainingMembers(reader);
+                    throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_UNKNOWN_TYPE);
+                }
+                continue;
+            }
+
+            if (!isContentKey(name)) {
+                reader.skipValue();
+                continue;
+            }
+
+            if (type == null) {
+                // can't tell how to read this yet, so fall back to the tree for the rest of the object
+                buffered = new JsonObject();
+                buffered.add(name, JsonParser.parseReader(reader));
+                continue;
+            }
+
+            String ep = errorPrefix(type);
+            switch (type) {
+                case POINT:
+                case MULTIPOINT:
+                case LINESTRING:
+                case MULTILINESTRING:
+                case POLYGON:
+                case MULTIPOLYGON:
+                    if (GeoJson.COORDINATES_KEY.equals(name)) {
+                        contents = readCoordinates(reader, type, ep, pack);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case GEOMETRYCOLLECTION:
+                    if (GeoJson.GEOMETRIES_KEY.equals(name)) {
+                        contents = readGeometries(reader, ep, pack);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case FEATURE:
+                    if (GeoJson.GEOMETRY_KEY.equals(name)) {
+                        geometry = readFeatureGeometry(reader, ep, pack);
+                        geometryFound = true;
+                    } else if (GeoJson.PROPERTIES_KEY.equals(name)) {
+                        properties = readProperties(reader, ep);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case FEATURECOLLECTION:
+                    if (GeoJson.FEATURES_KEY.equals(name)) {
+                        contents = readFeatures(reader, ep, pack);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        if (buffered != null) {
+            BaseGeometry<?> geo = GeoJson.fromJsonObject(buffered, errorPrefix);
+            if (pack) {
+                geo.pack();
+            }
+
+            return geo;
+        }
+
+        if (type == null) {
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_UNKNOWN_TYPE);
+        }
+
+        String ep = errorPrefix(type);
+        switch (type) {
+            case GEOMETRYCOLLECTION:
+                if (contents == null) {
+                    throw new TerraformerException(ep, TerraformerException.GEOMETRIES_KEY_NOT_FOUND);
+                }
+                break;
+            case FEATURE:
+                if (!geometryFound) {
+                    throw new TerraformerException(ep, TerraformerException.GEOMETRY_KEY_NOT_FOUND);
+                }
+
+                Feature feature = new Feature();
+                if (geometry != null) {
+                    feature.add(geometry);
+                }
+
+                if (properties != null) {
+                    feature.setRawProperties(properties);
+                }
+
+                contents = feature;
+                break;
+            case FEATURECOLLECTION:
+                if (contents == null) {
+                    throw new TerraformerException(ep, TerraformerException.FEATURES_KEY_NOT_FOUND);
+                }
+                break;
+            default:
+                if (contents == null) {
+                    throw new TerraformerException(ep, TerraformerException.COORDINATES_KEY_NOT_FOUND);
+                }
+        }
+
+        return contents;
+    }
+
+    static FeatureCollection readFeatures(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        FeatureCollection returnVal = new FeatureCollection();
+        while (reader.hasNext()) {
+            returnVal.add(readFeature(reader, errorPrefix, pack));
+        }
+
+        reader.endArray();
+        return returnVal;
+    }
+
+    static Feature readFeature(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        BaseGeometry<?> geoJson = readGeoJson(reader, errorPrefix, pack);
+        if (!(geoJson instanceof Feature)) {
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_NOT_FEATURE);
+        }
+
+        return (Feature) geoJson;
+    }
+
+    static Geometry<?> readFeatureGeometry(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_NOT_OBJECT);
+        }
+
+        reader.beginObject();
+
+        // an empty geometry object means the Feature has no geometry
+        if (!reader.hasNext()) {
+            reader.endObject();
+            return null;
+        }
+
+        return asGeometry(readMembers(reader, errorPrefix, pack), errorPrefix);
+    }
+
+    /**
+     * @return the properties object as JSON text, parsed only if the Feature's properties are asked for
+     */
+    static String readProperties(JsonReader reader, String errorPrefix) throws IOException, TerraformerException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            throw new TerraformerException(errorPrefix, TerraformerException.PROPERTIES_NOT_OBJECT);
+        }
+
+        return RawJson.read(reader);
+    }
+
+    static GeometryCollection readGeometries(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        GeometryCollection returnVal = new GeometryCollection();
+        while (reader.hasNext()) {
+            returnVal.add(asGeometry(readGeoJson(reader, errorPrefix, pack), errorPrefix));
+        }
+
+        reader.endArray();
+        return returnVal;
+    }
+
+    static Geometry<?> readCoordinates(JsonReader reader, GeometryType type, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        switch (type) {
+            case POINT:
+                return readPoint(reader, errorPrefix);
+            case MULTIPOINT:
+                return readMultiPoint(reader, errorPrefix, pack);
+            case LINESTRING:
+                return readLineString(reader, errorPrefix, pack);
+            case MULTILINESTRING:
+                return readMultiLineString(reader, errorPrefix, pack);
+            case POLYGON:
+                return readPolygon(reader, errorPrefix, pack);
+            case MULTIPOLYGON:
+                return readMultiPolygon(reader, errorPrefix, pack);
+            default:
+                throw new IllegalArgumentException(type + " has no coordinates");
+        }
+    }
+
+    static MultiPolygon readMultiPolygon(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        MultiPolygon returnVal = new MultiPolygon();
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            try {
+                returnVal.add(readPolygon(reader, errorPrefix, pack));
+            } catch (TerraformerException e) {
+                error = e;
+            }
+        }
+
+        endCoordinateArray(reader, size, 0, error, errorPrefix);
+        return returnVal;
+    }
+
+    static Polygon readPolygon(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        Polygon returnVal = new Polygon();
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            try {
+                LineString lr = readLineString(reader, errorPrefix, pack);
+
+                if (!lr.isLinearRing()) {
+                    error = new TerraformerException(errorPrefix, TerraformerException.INNER_LINESTRING_NOT_RING);
+                    continue;
+                }
+
+                returnVal.add(lr);
+            } catch (TerraformerException e) {
+                error = e;
+            }
+        }
+
+        endCoordinateArray(reader, size, 0, error, errorPrefix);
+        return returnVal;
+    }
+
+    static MultiLineString readMultiLineString(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        MultiLineString returnVal = new MultiLineString();
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            try {
+                returnVal.add(readLineString(reader, errorPrefix, pack));
+            } catch (TerraformerException e) {
+                error = e;
+            }
+        }
+
+        endCoordinateArray(reader, size, 0, error, errorPrefix);
+        return returnVal;
+    }
+
+    static LineString readLineString(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        LineString returnVal = new LineString();
+        // when packing, coordinates go straight into the buffer without creating Points
+        CoordinateBuffer coords = pack ? new CoordinateBuffer() : null;
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            try {
+                Point p = readPoint(reader, errorPrefix, coords);
+                if (coords == null) {
+                    returnVal.add(p);
+                }
+            } catch (TerraformerException e) {
+                error = e;
+            }
+        }
+
+        endCoordinateArray(reader, size, 2, error, errorPrefix);
+        return coords == null ? returnVal : coords.fill(returnVal, true);
+    }
+
+    static MultiPoint readMultiPoint(JsonReader reader, String errorPrefix, boolean pack)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        MultiPoint returnVal = new MultiPoint();
+        // when packing, coordinates go straight into the buffer without creating Points
+        CoordinateBuffer coords = pack ? new CoordinateBuffer() : null;
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            try {
+                Point p = readPoint(reader, errorPrefix, coords);
+                if (coords == null) {
+                    returnVal.add(p);
+                }
+            } catch (TerraformerException e) {
+                error = e;
+            }
+        }
+
+        endCoordinateArray(reader, size, 2, error, errorPrefix);
+        return coords == null ? returnVal : coords.fill(returnVal, true);
+    }
+
+    static Point readPoint(JsonReader reader, String errorPrefix) throws IOException, TerraformerException {
+        return readPoint(reader, errorPrefix, null);
+    }
+
+    /**
+     * Reads a Point, or when coords is not null, adds its coordinates to coords and returns null.
+     */
+    static Point readPoint(JsonReader reader, String errorPrefix, CoordinateBuffer coords)
+            throws IOException, TerraformerException {
+        beginArray(reader, errorPrefix);
+
+        Point returnVal = coords == null ? new Point() : null;
+        if (coords != null) {
+            coords.beginPoint();
+        }
+
+        TerraformerException error = null;
+        int size = 0;
+
+        while (reader.hasNext()) {
+            size++;
+            if (error != null) {
+                reader.skipValue();
+                continue;
+            }
+
+            JsonToken token = reader.peek();
+            if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+                String value = reader.nextString();
+                try {
+                    double coord = DoubleParser.parse(value);
+                    if (coords == null) {
+                        returnVal.add(coord);
+                    } else {
+                        coords.add(coord);
+                    }
+                } catch (NumberFormatException e) {
+                    error = new TerraformerException(errorPrefix, TerraformerException.COORDINATE_NOT_NUMERIC +
+                            new JsonPrimitive(value));
+                }
+            } else {
+                // arrays, objects, booleans and nulls go through the same conversion the tree based path uses
+                JsonElement elem = JsonParser.parseReader(reader);
+                try {
+                    double coord = elem.getAsDouble();
+                    if (coords == null) {
+                        returnVal.add(coord);
+                    } else {
+                        coords.add(coord);
+                    }
+                } catch (RuntimeException e) {
+                    error = new TerraformerException(errorPrefix, TerraformerException.COORDINATE_NOT_NUMERIC + elem);
+                }
+            }
+        }
+
+        endCoordinateArray(reader, size, 2, error, errorPrefix);
+        if (coords != null) {
+            coords.endPoint();
+        }
+
+        return returnVal;
+    }
+
+    /* --- Helpers --- */
+
+    static String errorPrefix(GeometryType type) {
+        switch (type) {
+            case POINT:
+                return Point.ERROR_PREFIX;
+            case MULTIPOINT:
+                return MultiPoint.ERROR_PREFIX;
+            case LINESTRING:
+                return LineString.ERROR_PREFIX;
+            case MULTILINESTRING:
+                return MultiLineString.ERROR_PREFIX;
+            case POLYGON:
+                return Polygon.ERROR_PREFIX;
+            case MULTIPOLYGON:
+                return MultiPolygon.ERROR_PREFIX;
+            case GEOMETRYCOLLECTION:
+                return GeometryCollection.ERROR_PREFIX;
+            case FEATURE:
+                return Feature.ERROR_PREFIX;
+            case FEATURECOLLECTION:
+                return FeatureCollection.ERROR_PREFIX;
+            default:
+                return GeoJson.GEOJSON_ERROR_PREFIX;
+        }
+    }
+
+    private static boolean isContentKey(String name) {
+        return GeoJson.COORDINATES_KEY.equals(name) || GeoJson.GEOMETRIES_KEY.equals(name) ||
+                GeoJson.GEOMETRY_KEY.equals(name) || GeoJson.PROPERTIES_KEY.equals(name) ||
+                GeoJson.FEATURES_KEY.equals(name);
+    }
+
+    /**
+     * Mirrors {@link GeoJson#getType(JsonObject)}; returns null for anything that isn't a known type.
+     */
+    static GeometryType readType(JsonReader reader) throws IOException {
+        String typeString;
+        try {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                typeString = reader.nextString();
+            } else {
+                typeString = JsonParser.parseReader(reader).getAsString();
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        GeometryType foundType;
+        try {
+            foundType = GeometryType.fromJson(typeString);
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        return foundType;
+    }
+
+    private static Geometry<?> asGeometry(BaseGeometry<?> geoJson, String errorPrefix) throws TerraformerException {
+        if (!(geoJson instanceof Geometry<?>)) {
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_NOT_GEOMETRY);
+        }
+
+        return (Geometry<?>) geoJson;
+    }
+
+    private static void skipRemainingMembers(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+
+        reader.endObject();
+    }
+
+    private static void beginArray(JsonReader reader, String errorPrefix) throws IOException, TerraformerException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            throw new TerraformerException(errorPrefix, TerraformerException.ELEMENT_NOT_ARRAY);
+        }
+
+        reader.beginArray();
+    }
+
+    /**
+     * Closes a coordinate array, then reports the size check before any error found in its elements.
+     */
+    private static void endCoordinateArray(JsonReader reader, int size, int minSize, TerraformerException error,
+                                           String errorPrefix) throws IOException, TerraformerException {
+        reader.endArray();
+
+        if (size < minSize) {
+            throw new TerraformerException(errorPrefix, TerraformerException.COORDINATE_ARRAY_TOO_SHORT +
+                    minSize + ")");
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads a sequence of GeoJSON Features, one per line: newline-delimited GeoJSON, or a GeoJSON text sequence
+ * (RFC 8142) where each record also starts with an ASCII record separator. Only the current {@link Feature} is
+ * held in memory, and one parser and its buffer are used for the whole sequence. Get one from
+ * {@link GeoJson#readFeatureSequence(Reader)}.
+ *
+ * Blank lines and record separators are skipped. The checks on each Feature are the same as
+ * {@link GeoJson#decodeFeature(String)} makes.
+ *
+ * As with {@link FeatureIterator}, {@link #hasNext()} and {@link #next()} report failures as an
+ * {@link IllegalStateException} whose cause is the {@link TerraformerException} or {@link IOException}. After a
+ * failure there are no more elements.
+ */
+public class GeoJsonSeqReader implements Iterator<Feature>, Closeable {
+    static final char RECORD_SEPARATOR = '\u001e';
+
+    // the input is split into chunks of about this many chars for parallel decoding
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    private static final String ERROR_PREFIX = Feature.ERROR_PREFIX;
+
+    private final JsonReader reader;
+    private boolean finished;
+    private boolean packCoordinates;
+
+    GeoJsonSeqReader(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        // lenient, so that one reader can read any number of top level values
+        reader = new JsonReader(new RecordSeparatorFilter(in));
+        reader.setLenient(true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+
+        try {
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                return true;
+            }
+
+            finished = true;
+            return false;
+        } catch (EOFException e) {
+            // only thrown when there was nothing but whitespace; an empty sequence is still a sequence
+            finished = true;
+            return false;
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            // thrown by the reader when the document structure doesn't match what was asked for
+            throw fail(e);
+        } catch (JsonSyntaxException e) {
+            throw fail(e);
+        }
+    }
+
+    @Override
+    public Feature next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return GeoJsonParser.readFeature(reader, ERROR_PREFIX, packCoordinates);
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (TerraformerException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            // thrown by the reader when the document structure doesn't match what was asked for
+            throw fail(e);
+        } catch (JsonSyntaxException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Read the coordinates of LineStrings, MultiPoints and polygon rings straight into packed arrays, see
+     * {@link com.esri.terraformer.core.BaseGeometry#pack()}.
+     *
+     * @param packCoordinates
+     */
+    public void setPackCoordinates(boolean packCoordinates) {
+        this.packCoordinates = packCoordinates;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    /**
+     * Package private.
+     *
+     * Reads the whole sequence, decoding it in parallel on the executor. The input is cut into chunks at line
+     * breaks and each chunk is decoded by its own GeoJsonSeqReader. Reading waits while a few chunks per available
+     * processor are waiting to be decoded, so the input is never held in memory all at once; the Features are.
+     * The reader is not closed.
+     *
+     * @param in
+     * @param executor
+     * @param pack
+     * @return the Features in the order they were read
+     * @throws IOException if reading fails
+     * @throws TerraformerException for the first Feature that isn't valid
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the chunks
+     */
+    static List<Feature> readAll(Reader in, Executor executor, final boolean pack)
+            throws IOException, TerraformerException, InterruptedException {
+        if (in == null) {
+            throw new IllegalArgumentException(TerraformerException.JSON_STRING_EMPTY);
+        }
+
+        int maxInFlight = Runtime.getRuntime().availableProcessors() * CHUNKS_IN_FLIGHT_PER_THREAD;
+        // each chunk is written by one task and read here after its permit comes back, which makes the writes
+        // visible
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Chunk> chunks = new ArrayList<Chunk>();
+
+        try {
+            // the part of the last read that comes after its last line break
+            char[] carry = new char[0];
+            while (true) {
+                char[] chars = Arrays.copyOf(carry, carry.length + Math.max(CHUNK_SIZE, carry.length));
+                int length = carry.length;
+                int read;
+                while (length < chars.length && (read = in.read(chars, length, chars.length - length)) >= 0) {
+                    length += read;
+                }
+
+                boolean last = length < chars.length;
+                int end = length;
+                if (!last) {
+                    while (end > 0 && chars[end - 1] != '\n') {
+                        end--;
+                    }
+
+                    if (end == 0) {
+                        // a single line longer than a chunk; keep reading until it ends
+                        carry = Arrays.copyOf(chars, length);
+                        continue;
+                    }
+                }
+
+                carry = Arrays.copyOfRange(chars, end, length);
+
+                final Chunk chunk = new Chunk(chars, end);
+                chunks.add(chunk);
+
+                inFlight.acquire();
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                chunk.decode(pack);
+                            } finally {
+                                inFlight.release();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+
+                if (last) {
+                    break;
+                }
+            }
+        } finally {
+            // wait for the chunks already handed over, even when giving up
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+
+        List<Feature> features = new ArrayList<Feature>();
+        for (Chunk chunk : chunks) {
+            if (chunk.error instanceof TerraformerException) {
+                throw (TerraformerException) chunk.error;
+            }
+
+            if (chunk.error instanceof RuntimeException) {
+                throw (RuntimeException) chunk.error;
+            }
+
+            if (chunk.features == null) {
+                throw new IllegalStateException("A chunk of the sequence was not decoded.");
+            }
+
+            features.addAll(chunk.features);
+        }
+
+        return features;
+    }
+
+    /**
+     * Package private.
+     *
+     * Reads the whole sequence into out. When a Feature isn't valid, the ones before it are left in out.
+     *
+     * @param in
+     * @param pack
+     * @param out
+     * @throws IOException if reading fails
+     * @throws TerraformerException for the first Feature that isn't valid
+     */
+    static void readFeatures(Reader in, boolean pack, List<Feature> out) throws IOException, TerraformerException {
+        GeoJsonSeqReader seq = new GeoJsonSeqReader(in);
+        seq.setPackCoordinates(pack);
+
+        try {
+            while (seq.hasNext()) {
+                out.add(seq.next());
+            }
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw (TerraformerException) e.getCause();
+        }
+    }
+
+    private IllegalStateException fail(Exception e) {
+        finished = true;
+
+        if (e instanceof EOFException || e instanceof MalformedJsonException || e instanceof RuntimeException) {
+            e = new TerraformerException(ERROR_PREFIX, TerraformerException.NOT_VALID_JSON);
+        }
+
+        return new IllegalStateException(e.getMessage(), e);
+    }
+
+    private static final class Chunk {
+        final char[] chars;
+        final int length;
+        List<Feature> features;
+        Exception error;
+
+        Chunk(char[] chars, int length) {
+            this.chars = chars;
+            this.length = length;
+        }
+
+        void decode(boolean pack) {
+            List<Feature> decoded = new ArrayList<Feature>();
+            try {
+                readFeatures(new CharArrayReader(chars, 0, length), pack, decoded);
+                features = decoded;
+            } catch (IOException e) {
+                // reading from memory doesn't fail
+                error = new IllegalStateException(e);
+            } catch (TerraformerException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Hands record separators to the parser as whitespace.
+     */
+    private static final class RecordSeparatorFilter extends FilterReader {
+        RecordSeparatorFilter(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = in.read();
+            return c == RECORD_SEPARATOR ? ' ' : c;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            int read = in.read(chars, offset, length);
+            for (int i = offset; i < offset + read; i++) {
+                if (chars[i] == RECORD_SEPARATOR) {
+                    chars[i] = ' ';
+                }
+            }
+
+            return read;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.Feature;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes GeoJSON Features one per line, as newline-delimited GeoJSON or, with
+ * {@link #setRecordSeparators(boolean)}, as a GeoJSON text sequence (RFC 8142). One JSON writer is used for the
+ * whole sequence. Get one from {@link GeoJson#writeFeatureSequence(Writer)}.
+ *
+ * A Writer given to {@link GeoJson#writeFeatureSequence(Writer)} isn't buffered here; wrap it in a BufferedWriter
+ * when writing to a file or socket.
+ */
+public class GeoJsonSeqWriter implements Closeable, Flushable {
+    private final Writer out;
+    private final JsonWriter writer;
+    private boolean recordSeparators;
+    private CoordinateFormat coordinateFormat = CoordinateFormat.SHORTEST;
+
+    GeoJsonSeqWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output cannot be null.");
+        }
+
+        this.out = out;
+        writer = new JsonWriter(out);
+        // lenient, so that one writer can write any number of top level values
+        writer.setLenient(true);
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+    }
+
+    /**
+     * Start each Feature with an ASCII record separator, as RFC 8142 requires. Without them the output is
+     * newline-delimited GeoJSON.
+     *
+     * @param recordSeparators
+     */
+    public void setRecordSeparators(boolean recordSeparators) {
+        this.recordSeparators = recordSeparators;
+    }
+
+    /**
+     * Round coordinates to at most this many decimal places. See {@link GeoJson#setCoordinatePrecision(int)}.
+     *
+     * @param decimalPlaces
+     */
+    public void setCoordinatePrecision(int decimalPlaces) {
+        this.coordinateFormat = coordinateFormat.withDecimalPlaces(decimalPlaces);
+    }
+
+    /**
+     * Leave out consecutive vertices written as the same position. See
+     * {@link GeoJson#setDropCollapsedVertices(boolean)}.
+     *
+     * @param dropCollapsedVertices
+     */
+    public void setDropCollapsedVertices(boolean dropCollapsedVertices) {
+        this.coordinateFormat = coordinateFormat.withDropCollapsedVertices(dropCollapsedVertices);
+    }
+
+    /**
+     * Writes the Feature and the line break after it. Null Features are skipped.
+     *
+     * @param feature
+     * @throws IOException
+     */
+    public void write(Feature feature) throws IOException {
+        if (feature == null) {
+            return;
+        }
+
+        if (recordSeparators) {
+            out.write(GeoJsonSeqReader.RECORD_SEPARATOR);
+        }
+
+        GeoJsonWriter.writeFeature(feature, writer, coordinateFormat);
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
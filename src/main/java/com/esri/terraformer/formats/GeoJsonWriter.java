@@ -0,0 +1,259 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.CoordinateSequence;
+import com.esri.terraformer.core.Feature;
+import com.esri.terraformer.core.FeatureCollection;
+import com.esri.terraformer.core.Geometry;
+import com.esri.terraformer.core.GeometryCollection;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.MultiLineString;
+import com.esri.terraformer.core.MultiPoint;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointCollection;
+import com.esri.terraformer.core.Polygon;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Package private.
+ *
+ * Writes GeoJSON tokens straight from the geometry to a {@link JsonWriter}, with the settings Gson uses when it
+ * serializes a JsonElement (lenient, HTML-safe, nulls dropped from objects). Coordinates are written by hand
+ * for each geometry type rather than through Gson's reflective collection adapters, as the {@link CoordinateFormat}
+ * says.
+ */
+final class GeoJsonWriter {
+    private static final Gson GSON = new Gson();
+
+    private GeoJsonWriter() {}
+
+    static void write(BaseGeometry<?> geo, Writer out, CoordinateFormat format) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+
+        write(geo, writer, format);
+    }
+
+    static void write(BaseGeometry<?> geo, JsonWriter writer, CoordinateFormat format) throws IOException {
+        switch (geo.getType()) {
+            case POINT:
+            case MULTIPOINT:
+            case LINESTRING:
+            case MULTILINESTRING:
+            case POLYGON:
+            case MULTIPOLYGON:
+            case GEOMETRYCOLLECTION:
+                writeGeometry((Geometry<?>) geo, writer, format);
+                break;
+            case FEATURE:
+                writeFeature((Feature) geo, writer, format);
+                break;
+            case FEATURECOLLECTION:
+                writeFeatureCollection((FeatureCollection) geo, writer, format);
+                break;
+        }
+    }
+
+    static void writeFeatureCollection(FeatureCollection fc, JsonWriter writer, CoordinateFormat format)
+            throws IOException {
+        writer.beginObject();
+        writer.name(GeoJson.TYPE_KEY).value(fc.getType().toString());
+
+        writer.name(GeoJson.FEATURES_KEY).beginArray();
+        for (Feature feat : fc) {
+            if (feat != null) {
+                writeFeature(feat, writer, format);
+            }
+        }
+        writer.endArray();
+
+        writer.endObject();
+    }
+
+    static void writeFeature(Feature feature, JsonWriter writer, CoordinateFormat format) throws IOException {
+        writer.beginObject();
+        writer.name(GeoJson.TYPE_KEY).value(feature.getType().toString());
+
+        writer.name(GeoJson.GEOMETRY_KEY);
+        Geometry<?> geomObj = feature.get();
+        if (geomObj != null) {
+            writeGeometry(geomObj, writer, format);
+        } else {
+            writer.beginObject().endObject();
+        }
+
+        // never getProperties(), which changes the Feature and so isn't safe for threads sharing it
+        String rawProperties = feature.getRawProperties();
+        if (rawProperties != null) {
+            // properties that were decoded but never parsed, so can't have changed
+            writer.name(GeoJson.PROPERTIES_KEY);
+            RawJson.write(rawProperties, writer);
+        } else {
+            JsonObject properties = feature.peekProperties();
+            if (properties != null) {
+                writer.name(GeoJson.PROPERTIES_KEY);
+                GSON.toJson(properties, writer);
+            }
+        }
+
+        writer.endObject();
+    }
+
+    static void writeGeometry(Geometry<?> geo, JsonWriter writer, CoordinateFormat format) throws IOException {
+        writer.beginObject();
+        writer.name(GeoJson.TYPE_KEY).value(geo.getType().toString());
+
+        if (geo instanceof GeometryCollection) {
+            // geometry collections have special structure
+            writer.name(GeoJson.GEOMETRIES_KEY).beginArray();
+            for (Geometry<?> g : (GeometryCollection) geo) {
+                if (g != null) {
+                    writeGeometry(g, writer, format);
+                }
+            }
+            writer.endArray();
+        } else {
+            // points, linestrings, polygons etc
+            writer.name(GeoJson.COORDINATES_KEY);
+            writeCoordinates(geo, writer, format);
+        }
+
+        writer.endObject();
+    }
+
+    static void writeCoordinates(Geometry<?> geo, JsonWriter writer, CoordinateFormat format) throws IOException {
+        switch (geo.getType()) {
+            case POINT:
+                writePoint((Point) geo, writer, format);
+                break;
+            case MULTIPOINT:
+                writePoints((MultiPoint) geo, writer, format, 0);
+                break;
+            case LINESTRING:
+                writePoints((LineString) geo, writer, format, CoordinateFormat.LINE_MINIMUM);
+                break;
+            case MULTILINESTRING:
+                writeLineStrings((MultiLineString) geo, writer, format, CoordinateFormat.LINE_MINIMUM);
+                break;
+            case POLYGON:
+                writeLineStrings((Polygon) geo, writer, format, CoordinateFormat.RING_MINIMUM);
+                break;
+            case MULTIPOLYGON:
+                writePolygons((MultiPolygon) geo, writer, format);
+                break;
+        }
+    }
+
+    static void writePolygons(List<Polygon> polygons, JsonWriter writer, CoordinateFormat format) throws IOException {
+        writer.beginArray();
+        for (Polygon pg : polygons) {
+            if (pg == null) {
+                writer.nullValue();
+            } else {
+                writeLineStrings(pg, writer, format, CoordinateFormat.RING_MINIMUM);
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * @param minimumPoints the fewest Points in each LineString, see {@link #writePoints}
+     */
+    static void writeLineStrings(List<LineString> lineStrings, JsonWriter writer, CoordinateFormat format,
+            int minimumPoints) throws IOException {
+        writer.beginArray();
+        for (LineString ls : lineStrings) {
+            if (ls == null) {
+                writer.nullValue();
+            } else {
+                writePoints(ls, writer, format, minimumPoints);
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * @param minimumPoints the fewest Points that may be left when collapsed vertices are dropped, see
+     * {@link CoordinateFormat#verticesToWrite(List, int)}
+     */
+    static void writePoints(List<Point> points, JsonWriter writer, CoordinateFormat format, int minimumPoints)
+            throws IOException {
+        boolean[] write = format.verticesToWrite(points, minimumPoints);
+        if (points instanceof PointCollection && ((PointCollection) points).isPacked()) {
+            writePackedPoints((PointCollection) points, writer, format, write);
+            return;
+        }
+
+        writer.beginArray();
+        int i = 0;
+        for (Point p : points) {
+            if (write != null && !write[i++]) {
+                continue;
+            }
+
+            if (p == null) {
+                writer.nullValue();
+            } else {
+                writePoint(p, writer, format);
+            }
+        }
+        writer.endArray();
+    }
+
+    static void writePoint(Point point, JsonWriter writer, CoordinateFormat format) throws IOException {
+        writer.beginArray();
+        for (Double coord : point) {
+            if (coord == null) {
+                writer.nullValue();
+            } else {
+                writer.value(coordinate(coord, format));
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Writes packed coordinates without turning them back into Point objects.
+     *
+     * @param write whether to write the Point at each index, or null to write all of them
+     */
+    static void writePackedPoints(CoordinateSequence points, JsonWriter writer, CoordinateFormat format,
+            boolean[] write) throws IOException {
+        int size = points.size();
+        int dimension = points.getDimension();
+
+        writer.beginArray();
+        for (int i = 0; i < size; i++) {
+            if (write != null && !write[i]) {
+                continue;
+            }
+
+            writer.beginArray();
+            for (int j = 0; j < dimension; j++) {
+                writer.value(coordinate(points.getOrdinate(i, j), format));
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Rejects the values JSON can't represent, the same way Gson does when it serializes a coordinate.
+     */
+    private static Number coordinate(double coord, CoordinateFormat format) {
+        if (Double.isNaN(coord) || Double.isInfinite(coord)) {
+            throw new IllegalArgumentException(coord + " is not a valid double value as per JSON specification.");
+        }
+
+        return format.format(coord);
+    }
+}
@@ -0,0 +1,116 @@
+package com.esri.terraformer.formats;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Package private.
+ *
+ * Copies a JSON value from a reader as compact JSON text, token by token, without building a JsonElement tree for
+ * it. Feature properties are kept this way until they are asked for; see
+ * {@link com.esri.terraformer.core.Feature#setRawProperties(String)}.
+ *
+ * The text keeps everything the parsed JsonObject would: null members are kept, and nothing is HTML-escaped.
+ * Numbers are copied as they were written, as Gson's LazilyParsedNumber keeps them. {@link #write} then writes the
+ * text the way Gson would write the parsed object, so the output is the same either way.
+ */
+final class RawJson {
+    private RawJson() {}
+
+    /**
+     * Reads the next value, which the caller has checked is an object or an array.
+     *
+     * @param reader
+     * @return
+     * @throws IOException
+     */
+    static String read(JsonReader reader) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        writer.setHtmlSafe(false);
+        writer.setSerializeNulls(true);
+
+        copy(reader, writer);
+
+        writer.flush();
+        return out.toString();
+    }
+
+    /**
+     * Writes text from {@link #read} with the settings Gson's own toJson(JsonElement, JsonWriter) uses (HTML-safe,
+     * nulls dropped from objects), restoring the writer's settings afterwards.
+     *
+     * @param json
+     * @param writer
+     * @throws IOException
+     */
+    static void write(String json, JsonWriter writer) throws IOException {
+        boolean lenient = writer.isLenient();
+        boolean htmlSafe = writer.isHtmlSafe();
+        boolean serializeNulls = writer.getSerializeNulls();
+        writer.setLenient(true);
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+            copy(reader, writer);
+        } finally {
+            writer.setLenient(lenient);
+            writer.setHtmlSafe(htmlSafe);
+            writer.setSerializeNulls(serializeNulls);
+        }
+    }
+
+    private static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    writer.name(reader.nextName());
+                    break;
+                case STRING:
+                    writer.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    // the number as it was written
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected " + reader.peek());
+            }
+        } while (depth > 0);
+    }
+}
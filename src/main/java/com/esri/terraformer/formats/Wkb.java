@@ -0,0 +1,693 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.Geometry;
+import com.esri.terraformer.core.GeometryCollection;
+import com.esri.terraformer.core.GeometryType;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.MultiLineString;
+import com.esri.terraformer.core.MultiPoint;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointCollection;
+import com.esri.terraformer.core.Polygon;
+import com.esri.terraformer.core.Terraformer;
+import com.esri.terraformer.core.TerraformerException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * Resources:
+ * ----------
+ * OpenGIS Implementation Standard for Geographic information - Simple feature access - Part 1, section 8.2
+ * https://postgis.net/docs/using_postgis_dbmanagement.html#EWKB_EWKT
+ *
+ * GeoJSON              WKB type code
+ * ---------------------------------------
+ * Point                1
+ * LineString           2
+ * Polygon              3
+ * MultiPoint           4
+ * MultiLineString      5
+ * MultiPolygon         6
+ * GeometryCollection   7
+ */
+
+/**
+ * Encodes and decodes Well-Known Binary, as byte arrays, ByteBuffers, or through the {@link Terraformer} interfaces
+ * as hex Strings. An instance is thread-safe: configure it once and share it.
+ *
+ * Decoding accepts either byte order, ISO WKB (Z, M and ZM types 1001 through 3007) and PostGIS EWKB (Z, M and SRID
+ * flags in the high bits of the type). The third coordinate of a Point is z and the fourth is m, as in GeoJSON, so
+ * an M geometry without Z is decoded with NaN for z. An empty Point, whose coordinates are all NaN in WKB, is decoded
+ * as a Point with no coordinates. Geometries nested more than 100 levels deep in GeometryCollections and Multi
+ * geometries are rejected.
+ *
+ * Encoding writes ISO WKB, or EWKB when an SRID has been set. Each geometry is written with as many coordinates per
+ * Point as its longest Point has, up to four: missing coordinates are written as NaN and any beyond the fourth are
+ * dropped. Features and FeatureCollections have no WKB form, and Null members of collections are skipped.
+ */
+public class Wkb implements Terraformer.Decoder, Terraformer.Encoder, Terraformer.ByteDecoder,
+        Terraformer.ByteEncoder, Terraformer.Named {
+    /** The format reported to a {@link com.esri.terraformer.core.CodecListener} by a {@link Terraformer}. */
+    public static final String FORMAT_NAME = "WKB";
+    public static final String WKB_ERROR_PREFIX = "Error while parsing WKB: ";
+
+    private static final byte BIG_ENDIAN = 0;
+    private static final byte LITTLE_ENDIAN = 1;
+
+    private static final int TYPE_POINT = 1;
+    private static final int TYPE_LINESTRING = 2;
+    private static final int TYPE_POLYGON = 3;
+    private static final int TYPE_MULTIPOINT = 4;
+    private static final int TYPE_MULTILINESTRING = 5;
+    private static final int TYPE_MULTIPOLYGON = 6;
+    private static final int TYPE_GEOMETRYCOLLECTION = 7;
+
+    private static final int EWKB_Z = 0x80000000;
+    private static final int EWKB_M = 0x40000000;
+    private static final int EWKB_SRID = 0x20000000;
+    private static final int EWKB_FLAGS = EWKB_Z | EWKB_M | EWKB_SRID;
+
+    // byte order and type
+    private static final int HEADER_SIZE = 5;
+    // how deep Multi geometries and GeometryCollections may be nested in each other, so that crafted input can't
+    // recurse until the stack overflows
+    private static final int MAX_DEPTH = 100;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private volatile ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+    private volatile Integer srid;
+    private volatile boolean packCoordinates;
+
+    /**
+     * The byte order to encode in; little endian unless set. Decoding reads the byte order from the input.
+     *
+     * @param byteOrder
+     */
+    public void setByteOrder(ByteOrder byteOrder) {
+        if (byteOrder == null) {
+            throw new IllegalArgumentException("Byte order cannot be null.");
+        }
+
+        this.byteOrder = byteOrder;
+    }
+
+    /**
+     * Encode PostGIS EWKB with this SRID on the outermost geometry, rather than ISO WKB.
+     *
+     * @param srid the SRID, or null to go back to ISO WKB
+     */
+    public void setSrid(Integer srid) {
+        this.srid = srid;
+    }
+
+    /** Decode the coordinates of LineStrings, MultiPoints and polygon rings packed. See {@link BaseGeometry#pack()}. */
+    public void setPackCoordinates(boolean packCoordinates) {
+        this.packCoordinates = packCoordinates;
+    }
+
+    @Override
+    public String getFormatName() {
+        return FORMAT_NAME;
+    }
+
+    /**
+     * @param hex WKB as hexadecimal digits, in either case, as PostGIS prints it
+     * @return
+     * @throws TerraformerException if the input isn't valid hex or valid WKB
+     */
+    @Override
+    public BaseGeometry decode(String hex) throws TerraformerException {
+        if (FormatUtils.isEmpty(hex)) {
+            throw new IllegalArgumentException(TerraformerException.WKB_EMPTY);
+        }
+
+        return decode(fromHex(hex));
+    }
+
+    /**
+     * @param wkb
+     * @return
+     * @throws TerraformerException if the input isn't valid WKB, or there is anything after the geometry
+     */
+    public BaseGeometry decode(byte[] wkb) throws TerraformerException {
+        if (wkb == null || wkb.length == 0) {
+            throw new IllegalArgumentException(TerraformerException.WKB_EMPTY);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(wkb);
+        BaseGeometry<?> geo = decode(in);
+        if (in.hasRemaining()) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TRAILING_BYTES);
+        }
+
+        return geo;
+    }
+
+    /**
+     * Reads one geometry from the buffer's position, and moves the position past it. The buffer's own byte order
+     * is left as it was.
+     *
+     * @param in
+     * @return
+     * @throws TerraformerException if the input isn't valid WKB
+     */
+    @Override
+    public BaseGeometry decode(ByteBuffer in) throws TerraformerException {
+        if (in == null) {
+            throw new IllegalArgumentException(TerraformerException.WKB_EMPTY);
+        }
+
+        ByteBuffer reader = in.slice();
+        try {
+            Geometry<?> geo = readGeometry(reader, packCoordinates, 0);
+            in.position(in.position() + reader.position());
+            return geo;
+        } catch (BufferUnderflowException e) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TRUNCATED);
+        }
+    }
+
+    /**
+     * @param geo
+     * @return the WKB as hexadecimal digits, upper case as PostGIS prints it, or null if geo is null
+     */
+    @Override
+    public String encode(BaseGeometry geo) {
+        if (geo == null) {
+            return null;
+        }
+
+        return toHex(encodeBytes(geo));
+    }
+
+    /**
+     * @param geo
+     * @return the WKB, or null if geo is null
+     */
+    public byte[] encodeBytes(BaseGeometry geo) {
+        if (geo == null) {
+            return null;
+        }
+
+        ByteOrder order = byteOrder;
+        Integer srid = this.srid;
+        Geometry<?> geometry = asGeometry(geo);
+        int dimension = dimension(geometry);
+
+        byte[] bytes = new byte[size(geometry, dimension, srid != null)];
+        ByteBuffer out = ByteBuffer.wrap(bytes).order(order);
+        writeGeometry(geometry, dimension, srid != null, srid, out);
+        return bytes;
+    }
+
+    /**
+     * Writes the WKB to the stream, and flushes but doesn't close it. Nothing is written for a null geometry.
+     *
+     * @param geo
+     * @param out
+     * @throws IOException
+     */
+    @Override
+    public void encode(BaseGeometry geo, OutputStream out) throws IOException {
+        if (geo != null) {
+            out.write(encodeBytes(geo));
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the WKB at the buffer's position, and moves the position past it. The buffer's own byte order is left
+     * as it was.
+     *
+     * @param geo
+     * @param out
+     * @throws BufferOverflowException if there isn't room for it; see {@link #encodedSize(BaseGeometry)}
+     */
+    public void encode(BaseGeometry geo, ByteBuffer out) {
+        Integer srid = this.srid;
+        Geometry<?> geometry = asGeometry(geo);
+        int dimension = dimension(geometry);
+        if (out.remaining() < size(geometry, dimension, srid != null)) {
+            throw new BufferOverflowException();
+        }
+
+        ByteBuffer writer = out.slice().order(byteOrder);
+        writeGeometry(geometry, dimension, srid != null, srid, writer);
+        out.position(out.position() + writer.position());
+    }
+
+    /**
+     * @param geo
+     * @return the number of bytes {@link #encodeBytes(BaseGeometry)} returns for it
+     */
+    public int encodedSize(BaseGeometry geo) {
+        Geometry<?> geometry = asGeometry(geo);
+        return size(geometry, dimension(geometry), srid != null);
+    }
+
+    /**
+     * @param wkb
+     * @return the SRID of PostGIS EWKB, or 0 if it doesn't have one
+     * @throws TerraformerException if the input is too short to have a WKB header
+     */
+    public static int getSrid(byte[] wkb) throws TerraformerException {
+        if (wkb == null || wkb.length < HEADER_SIZE) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TRUNCATED);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(wkb);
+        in.order(readByteOrder(in));
+        if ((in.getInt() & EWKB_SRID) == 0) {
+            return 0;
+        }
+
+        if (in.remaining() < 4) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TRUNCATED);
+        }
+
+        return in.getInt();
+    }
+
+    /* --- Decoding --- */
+
+    private static Geometry<?> readGeometry(ByteBuffer in, boolean pack, int depth) throws TerraformerException {
+        if (depth > MAX_DEPTH) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TOO_DEEP + MAX_DEPTH);
+        }
+
+        in.order(readByteOrder(in));
+
+        int type = in.getInt();
+        boolean hasZ = (type & EWKB_Z) != 0;
+        boolean hasM = (type & EWKB_M) != 0;
+        if ((type & EWKB_SRID) != 0) {
+            // the SRID isn't kept
+            in.getInt();
+        }
+
+        type &= ~EWKB_FLAGS;
+        switch (type / 1000) {
+            case 0:
+                break;
+            case 1:
+                hasZ = true;
+                break;
+            case 2:
+                hasM = true;
+                break;
+            case 3:
+                hasZ = true;
+                hasM = true;
+                break;
+            default:
+                throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_UNKNOWN_TYPE + type);
+        }
+
+        int dimension = 2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+        boolean mOnly = hasM && !hasZ;
+
+        switch (type % 1000) {
+            case TYPE_POINT:
+                return readPoint(in, dimension, mOnly);
+            case TYPE_LINESTRING:
+                return readPoints(in, dimension, mOnly, new LineString(), pack);
+            case TYPE_POLYGON:
+                return readPolygon(in, dimension, mOnly, pack);
+            case TYPE_MULTIPOINT:
+                MultiPoint mp = new MultiPoint();
+                int points = readCount(in, HEADER_SIZE + dimension * 8);
+                mp.ensureCapacity(points);
+                for (int i = 0; i < points; i++) {
+                    mp.add(readMember(in, Point.class, pack, depth + 1));
+                }
+
+                if (pack) {
+                    mp.pack();
+                }
+                return mp;
+            case TYPE_MULTILINESTRING:
+                MultiLineString mls = new MultiLineString();
+                int lineStrings = readCount(in, HEADER_SIZE + 4);
+                for (int i = 0; i < lineStrings; i++) {
+                    mls.add(readMember(in, LineString.class, pack, depth + 1));
+                }
+                return mls;
+            case TYPE_MULTIPOLYGON:
+                MultiPolygon mpg = new MultiPolygon();
+                int polygons = readCount(in, HEADER_SIZE + 4);
+                for (int i = 0; i < polygons; i++) {
+                    mpg.add(readMember(in, Polygon.class, pack, depth + 1));
+                }
+                return mpg;
+            case TYPE_GEOMETRYCOLLECTION:
+                GeometryCollection gc = new GeometryCollection();
+                int geometries = readCount(in, HEADER_SIZE);
+                for (int i = 0; i < geometries; i++) {
+                    gc.add(readMember(in, Geometry.class, pack, depth + 1));
+                }
+                return gc;
+            default:
+                throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_UNKNOWN_TYPE + type);
+        }
+    }
+
+    /**
+     * Reads a member of a Multi geometry or GeometryCollection, which has its own header and may have another
+     * byte order.
+     */
+    private static <T extends Geometry<?>> T readMember(ByteBuffer in, Class<T> type, boolean pack, int depth)
+            throws TerraformerException {
+        ByteOrder order = in.order();
+        Geometry<?> member = readGeometry(in, pack, depth);
+        in.order(order);
+
+        if (!type.isInstance(member)) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_WRONG_MEMBER_TYPE +
+                    member.getType());
+        }
+
+        return type.cast(member);
+    }
+
+    private static Point readPoint(ByteBuffer in, int dimension, boolean mOnly) {
+        Point p = new Point(4);
+        boolean empty = true;
+        for (int i = 0; i < dimension; i++) {
+            if (mOnly && i == 2) {
+                p.add(Double.NaN);
+            }
+
+            double coord = in.getDouble();
+            empty &= Double.isNaN(coord);
+            p.add(coord);
+        }
+
+        if (empty) {
+            p.clear();
+        }
+
+        return p;
+    }
+
+    private static <T extends PointCollection> T readPoints(ByteBuffer in, int dimension, boolean mOnly, T target,
+                                                            boolean pack) throws TerraformerException {
+        int count = readCount(in, dimension * 8);
+        int stored = mOnly ? 4 : dimension;
+
+        if (pack) {
+            double[] coords = new double[count * stored];
+            int k = 0;
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < dimension; j++) {
+                    if (mOnly && j == 2) {
+                        coords[k++] = Double.NaN;
+                    }
+                    coords[k++] = in.getDouble();
+                }
+            }
+
+            target.setCoordinates(coords, count, stored);
+            return target;
+        }
+
+        target.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            Point p = new Point(stored);
+            for (int j = 0; j < dimension; j++) {
+                if (mOnly && j == 2) {
+                    p.add(Double.NaN);
+                }
+                p.add(in.getDouble());
+            }
+            target.add(p);
+        }
+
+        return target;
+    }
+
+    private static Polygon readPolygon(ByteBuffer in, int dimension, boolean mOnly, boolean pack)
+            throws TerraformerException {
+        int rings = readCount(in, 4);
+        Polygon polygon = new Polygon(rings);
+        for (int i = 0; i < rings; i++) {
+            polygon.add(readPoints(in, dimension, mOnly, new LineString(), pack));
+        }
+
+        return polygon;
+    }
+
+    /**
+     * Reads the number of elements that follow, each taking at least minBytes, checking there is room for them
+     * before anything is allocated for them.
+     */
+    private static int readCount(ByteBuffer in, int minBytes) throws TerraformerException {
+        int count = in.getInt();
+        if (count < 0 || (long) count * minBytes > in.remaining()) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_TRUNCATED);
+        }
+
+        return count;
+    }
+
+    private static ByteOrder readByteOrder(ByteBuffer in) throws TerraformerException {
+        byte order = in.get();
+        if (order == BIG_ENDIAN) {
+            return ByteOrder.BIG_ENDIAN;
+        }
+
+        if (order == LITTLE_ENDIAN) {
+            return ByteOrder.LITTLE_ENDIAN;
+        }
+
+        throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_BAD_BYTE_ORDER + order);
+    }
+
+    /* --- Encoding --- */
+
+    private static Geometry<?> asGeometry(BaseGeometry<?> geo) {
+        if (geo == null) {
+            throw new IllegalArgumentException("Geometry cannot be null.");
+        }
+
+        if (!(geo instanceof Geometry)) {
+            throw new IllegalArgumentException("WKB can only encode Geometries, not " + geo.getType());
+        }
+
+        return (Geometry<?>) geo;
+    }
+
+    /**
+     * @return the number of coordinates in the longest Point, between 2 and 4
+     */
+    private static int dimension(Geometry<?> geo) {
+        int dimension = 2;
+        switch (geo.getType()) {
+            case POINT:
+                dimension = geo.size();
+                break;
+            case MULTIPOINT:
+            case LINESTRING:
+                PointCollection points = (PointCollection) geo;
+                if (points.isPacked()) {
+                    dimension = points.getDimension();
+                    break;
+                }
+
+                for (Point p : points) {
+                    if (p != null) {
+                        dimension = Math.max(dimension, p.size());
+                    }
+                }
+                break;
+            default:
+                for (Object member : geo) {
+                    if (member != null) {
+                        dimension = Math.max(dimension, dimension((Geometry<?>) member));
+                    }
+                }
+                break;
+        }
+
+        return Math.max(2, Math.min(4, dimension));
+    }
+
+    private static int size(Geometry<?> geo, int dimension, boolean withSrid) {
+        int size = HEADER_SIZE + (withSrid ? 4 : 0);
+        switch (geo.getType()) {
+            case POINT:
+                return size + dimension * 8;
+            case MULTIPOINT:
+                return size + 4 + geo.size() * (HEADER_SIZE + dimension * 8);
+            case LINESTRING:
+                return size + 4 + geo.size() * dimension * 8;
+            case POLYGON:
+                size += 4;
+                for (LineString ring : (Polygon) geo) {
+                    size += 4 + (ring == null ? 0 : ring.size() * dimension * 8);
+                }
+                return size;
+            default:
+                size += 4;
+                for (Object member : geo) {
+                    if (member != null) {
+                        size += size((Geometry<?>) member, dimension, false);
+                    }
+                }
+                return size;
+        }
+    }
+
+    /**
+     * Writes a geometry with its header. With EWKB the dimension is given by flags, and only the outermost geometry
+     * has the SRID.
+     */
+    private static void writeGeometry(Geometry<?> geo, int dimension, boolean ewkb, Integer srid, ByteBuffer out) {
+        writeHeader(typeCode(geo.getType()), dimension, ewkb, srid, out);
+
+        switch (geo.getType()) {
+            case POINT:
+                writePoint((Point) geo, dimension, out);
+                break;
+            case MULTIPOINT:
+                MultiPoint mp = (MultiPoint) geo;
+                out.putInt(mp.size());
+                for (int i = 0; i < mp.size(); i++) {
+                    writeHeader(TYPE_POINT, dimension, ewkb, null, out);
+                    writeOrdinates(mp, i, dimension, out);
+                }
+                break;
+            case LINESTRING:
+                writePoints((LineString) geo, dimension, out);
+                break;
+            case POLYGON:
+                Polygon polygon = (Polygon) geo;
+                out.putInt(polygon.size());
+                for (LineString ring : polygon) {
+                    writePoints(ring, dimension, out);
+                }
+                break;
+            default:
+                // MultiLineString, MultiPolygon and GeometryCollection
+                int count = 0;
+                for (Object member : geo) {
+                    if (member != null) {
+                        count++;
+                    }
+                }
+
+                out.putInt(count);
+                for (Object member : geo) {
+                    if (member != null) {
+                        writeGeometry((Geometry<?>) member, dimension, ewkb, null, out);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void writeHeader(int type, int dimension, boolean ewkb, Integer srid, ByteBuffer out) {
+        out.put(out.order() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+
+        if (!ewkb) {
+            // ISO: 1000 for Z, 3000 for ZM
+            out.putInt(type + (dimension > 2 ? 1000 : 0) + (dimension > 3 ? 2000 : 0));
+            return;
+        }
+
+        type |= (dimension > 2 ? EWKB_Z : 0) | (dimension > 3 ? EWKB_M : 0);
+        if (srid == null) {
+            out.putInt(type);
+        } else {
+            out.putInt(type | EWKB_SRID);
+            out.putInt(srid);
+        }
+    }
+
+    private static void writePoint(Point p, int dimension, ByteBuffer out) {
+        for (int i = 0; i < dimension; i++) {
+            Double coord = p != null && i < p.size() ? p.get(i) : null;
+            out.putDouble(coord == null ? Double.NaN : coord);
+        }
+    }
+
+    private static void writePoints(PointCollection points, int dimension, ByteBuffer out) {
+        if (points == null) {
+            out.putInt(0);
+            return;
+        }
+
+        out.putInt(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            writeOrdinates(points, i, dimension, out);
+        }
+    }
+
+    private static void writeOrdinates(PointCollection points, int index, int dimension, ByteBuffer out) {
+        if (!points.isPacked()) {
+            writePoint(points.get(index), dimension, out);
+            return;
+        }
+
+        int pointDimension = points.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            out.putDouble(i < pointDimension ? points.getOrdinate(index, i) : Double.NaN);
+        }
+    }
+
+    private static int typeCode(GeometryType type) {
+        switch (type) {
+            case POINT:
+                return TYPE_POINT;
+            case LINESTRING:
+                return TYPE_LINESTRING;
+            case POLYGON:
+                return TYPE_POLYGON;
+            case MULTIPOINT:
+                return TYPE_MULTIPOINT;
+            case MULTILINESTRING:
+                return TYPE_MULTILINESTRING;
+            case MULTIPOLYGON:
+                return TYPE_MULTIPOLYGON;
+            default:
+                return TYPE_GEOMETRYCOLLECTION;
+        }
+    }
+
+    /* --- Hex --- */
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(hex);
+    }
+
+    private static byte[] fromHex(String hex) throws TerraformerException {
+        if (hex.length() % 2 != 0) {
+            throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_NOT_HEX);
+        }
+
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new TerraformerException(WKB_ERROR_PREFIX, TerraformerException.WKB_NOT_HEX);
+            }
+
+            bytes[i] = (byte) (high << 4 | low);
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package com.esri.terraformer.algorithm;
+
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.Point;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EnvelopeTest {
+    @Test
+    public void testOf() throws Exception {
+        LineString ls = new LineString(new Point(1d, 5d), new Point(-2d, 3d), new Point(4d, -1d, 7d));
+        assertEquals(new Envelope(-2d, -1d, 4d, 5d), Envelope.of(ls));
+
+        ls.pack();
+        assertEquals(new Envelope(-2d, -1d, 4d, 5d), Envelope.of(ls));
+
+        assertTrue(Envelope.of(new LineString()).isEmpty());
+        assertEquals(Envelope.EMPTY, Envelope.of(new LineString()));
+    }
+
+    @Test
+    public void testIntersects() throws Exception {
+        Envelope env = new Envelope(0d, 0d, 10d, 10d);
+
+        assertTrue(env.intersects(env));
+        assertTrue(env.intersects(new Envelope(5d, 5d, 15d, 15d)));
+        assertTrue(env.intersects(new Envelope(10d, 10d, 15d, 15d)));
+        assertTrue(env.intersects(new Envelope(2d, 2d, 3d, 3d)));
+        assertTrue(new Envelope(2d, 2d, 3d, 3d).intersects(env));
+        assertFalse(env.intersects(new Envelope(11d, 0d, 15d, 10d)));
+        assertFalse(env.intersects(new Envelope(0d, -5d, 10d, -1d)));
+        assertFalse(env.intersects(Envelope.EMPTY));
+        assertFalse(Envelope.EMPTY.intersects(env));
+    }
+
+    @Test
+    public void testContains() throws Exception {
+        Envelope env = new Envelope(0d, 0d, 10d, 10d);
+
+        assertTrue(env.contains(env));
+        assertTrue(env.contains(new Envelope(2d, 2d, 3d, 3d)));
+        assertTrue(env.contains(new Envelope(0d, 5d, 10d, 5d)));
+        assertFalse(env.contains(new Envelope(5d, 5d, 15d, 15d)));
+        assertFalse(new Envelope(2d, 2d, 3d, 3d).contains(env));
+        assertFalse(env.contains(Envelope.EMPTY));
+        assertFalse(Envelope.EMPTY.contains(env));
+    }
+
+    @Test
+    public void testUnion() throws Exception {
+        Envelope env = new Envelope(0d, 0d, 10d, 10d);
+
+        assertEquals(new Envelope(-1d, 0d, 10d, 12d), env.union(new Envelope(-1d, 5d, 2d, 12d)));
+        assertEquals(env, env.union(Envelope.EMPTY));
+        assertEquals(env, Envelope.EMPTY.union(env));
+        assertEquals(5d, env.getCenterX(), 0);
+        assertEquals(5d, env.getCenterY(), 0);
+    }
+}
@@ -0,0 +1,211 @@
+package com.esri.terraformer.algorithm;
+
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.Point;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MonotoneChainsTest {
+    @Test
+    public void testChains() throws Exception {
+        // up and right, then down and right, then back to the start
+        MonotoneChains chains = chains(0, 0, 1, 1, 2, 3, 3, 2, 4, 0, 0, 0);
+        assertEquals(3, chains.size());
+        assertEquals(new Envelope(0, 0, 4, 3), chains.getEnvelope());
+
+        assertEquals(0, chains(0, 0).size());
+        assertEquals(Envelope.EMPTY, chains(0, 0).getEnvelope());
+        assertEquals(0, new MonotoneChains(new LineString()).size());
+
+        // repeated points are dropped, but a single repeated point is still a segment
+        assertEquals(1, chains(0, 0, 1, 1, 1, 1, 2, 2).size());
+        assertEquals(1, chains(1, 1, 1, 1).size());
+    }
+
+    @Test
+    public void testIntersects() throws Exception {
+        MonotoneChains horizontal = chains(-1, 0, 1, 0);
+        MonotoneChains zigzag = chains(-10, 2, -5, -2, 0, 2, 5, -2, 10, 2);
+
+        // crossing
+        assertTrue(horizontal.intersects(chains(0, 1, 0, -1)));
+        assertTrue(zigzag.intersects(chains(-3, 0, 3, 0)));
+        assertTrue(chains(-3, 0, 3, 0).intersects(zigzag));
+        assertFalse(zigzag.intersects(horizontal));
+
+        // touching at an end point, or on a segment
+        assertTrue(horizontal.intersects(chains(1, 0, 2, 5)));
+        assertTrue(horizontal.intersects(chains(0, 0, 0, 5)));
+
+        // collinear
+        assertTrue(horizontal.intersects(chains(0, 0, 5, 0)));
+        assertTrue(horizontal.intersects(chains(5, 0, -5, 0)));
+        assertFalse(horizontal.intersects(chains(2, 0, 5, 0)));
+        assertTrue(chains(0, -5, 0, 5).intersects(chains(0, 4, 0, 10)));
+        assertFalse(chains(0, -5, 0, 5).intersects(chains(0, 6, 0, 10)));
+
+        // parallel
+        assertFalse(horizontal.intersects(chains(-1, 1, 1, 1)));
+
+        // a point
+        assertTrue(horizontal.intersects(chains(0.5, 0, 0.5, 0)));
+        assertFalse(horizontal.intersects(chains(0.5, 1, 0.5, 1)));
+
+        // envelopes overlap, segments don't
+        assertFalse(zigzag.intersects(chains(-0.5, -1, 0.5, -1, 0.5, 0, -0.5, 0, -0.5, -1)));
+
+        // the same chains on both sides
+        assertTrue(horizontal.intersects(horizontal));
+        assertTrue(zigzag.intersects(zigzag));
+        MonotoneChains ring = chains(0, 0, 10, 0, 10, 10, 0, 10, 0, 0);
+        assertTrue(ring.intersects(ring));
+
+        // nothing to intersect
+        assertFalse(horizontal.intersects(chains(0, 0)));
+        assertFalse(chains(0, 0).intersects(horizontal));
+    }
+
+    @Test
+    public void testIsSelfIntersecting() throws Exception {
+        // a square, open and closed
+        assertFalse(chains(0, 0, 10, 0, 10, 10, 0, 10, 0, 0).isSelfIntersecting());
+        assertFalse(chains(0, 0, 10, 0, 10, 10, 0, 10).isSelfIntersecting());
+
+        // repeated points don't count
+        assertFalse(chains(0, 0, 10, 0, 10, 0, 10, 10, 0, 10, 0, 0, 0, 0).isSelfIntersecting());
+
+        // a bow tie
+        assertTrue(chains(0, 0, 10, 10, 10, 0, 0, 10, 0, 0).isSelfIntersecting());
+
+        // touching itself at a point
+        assertTrue(chains(0, 0, 10, 0, 5, 5, 5, 0, 5, -5, 0, 0).isSelfIntersecting());
+
+        // an open line whose end touches its first segment
+        assertTrue(chains(0, 0, 10, 0, 10, 10, 5, 0).isSelfIntersecting());
+
+        // a spike that folds back over itself
+        assertTrue(chains(0, 0, 10, 0, 5, 0, 5, 5, 0, 0).isSelfIntersecting());
+        assertTrue(chains(0, 0, 10, 0, 0, 0).isSelfIntersecting());
+
+        // a straight line through collinear points
+        assertFalse(chains(0, 0, 1, 0, 2, 0, 3, 0).isSelfIntersecting());
+
+        assertFalse(chains(0, 0).isSelfIntersecting());
+        assertFalse(chains(0, 0, 0, 0).isSelfIntersecting());
+    }
+
+    @Test
+    public void testPacked() throws Exception {
+        LineString ring = new LineString(new Point(0d, 0d), new Point(10d, 0d), new Point(10d, 10d),
+                new Point(0d, 10d), new Point(0d, 0d));
+        ring.pack();
+        assertFalse(new MonotoneChains(ring).isSelfIntersecting());
+        assertTrue(new MonotoneChains(ring).intersects(chains(5, 5, 15, 5)));
+    }
+
+    @Test
+    public void testAgainstAllPairs() throws Exception {
+        // random walks on a small grid, so that touching and collinear segments are common
+        Random random = new Random(42);
+        for (int test = 0; test < 500; test++) {
+            double[] a = randomWalk(random, 2 + random.nextInt(30));
+            double[] b = randomWalk(random, 2 + random.nextInt(30));
+            if (random.nextBoolean()) {
+                // close it
+                a[a.length - 2] = a[0];
+                a[a.length - 1] = a[1];
+            }
+
+            assertEquals(allPairsIntersect(a, b), chains(a).intersects(chains(b)));
+            assertEquals(allPairsSelfIntersect(a), chains(a).isSelfIntersecting());
+        }
+    }
+
+    private static double[] randomWalk(Random random, int points) {
+        double[] coords = new double[points * 2];
+        coords[0] = random.nextInt(20);
+        coords[1] = random.nextInt(20);
+        for (int i = 2; i < coords.length; i++) {
+            coords[i] = coords[i - 2] + random.nextInt(9) - 4;
+        }
+
+        return coords;
+    }
+
+    private static boolean allPairsIntersect(double[] a, double[] b) {
+        for (int i = 0; i + 3 < a.length; i += 2) {
+            for (int j = 0; j + 3 < b.length; j += 2) {
+                if (MonotoneChains.segmentsIntersect(a[i], a[i + 1], a[i + 2], a[i + 3],
+                        b[j], b[j + 1], b[j + 2], b[j + 3])) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean allPairsSelfIntersect(double[] coords) {
+        // drop the repeated points
+        double[] a = new double[coords.length];
+        int length = 0;
+        for (int i = 0; i < coords.length; i += 2) {
+            if (length == 0 || coords[i] != a[length - 2] || coords[i + 1] != a[length - 1]) {
+                a[length++] = coords[i];
+                a[length++] = coords[i + 1];
+            }
+        }
+
+        int segments = length / 2 - 1;
+        boolean closed = segments > 1 && a[0] == a[length - 2] && a[1] == a[length - 1];
+
+        for (int i = 0; i < segments; i++) {
+            for (int j = i + 1; j < segments; j++) {
+                int shared = -1;
+                int iOther = -1;
+                int jOther = -1;
+                if (j == i + 1) {
+                    shared = j;
+                    iOther = i;
+                    jOther = j + 1;
+                } else if (closed && i == 0 && j == segments - 1) {
+                    shared = 0;
+                    iOther = 1;
+                    jOther = j;
+                }
+
+                boolean intersects;
+                if (shared < 0) {
+                    intersects = MonotoneChains.segmentsIntersect(a[i * 2], a[i * 2 + 1], a[i * 2 + 2],
+                            a[i * 2 + 3], a[j * 2], a[j * 2 + 1], a[j * 2 + 2], a[j * 2 + 3]);
+                } else {
+                    double ix = a[iOther * 2] - a[shared * 2];
+                    double iy = a[iOther * 2 + 1] - a[shared * 2 + 1];
+                    double jx = a[jOther * 2] - a[shared * 2];
+                    double jy = a[jOther * 2 + 1] - a[shared * 2 + 1];
+                    intersects = ix * jy - iy * jx == 0 && ix * jx + iy * jy > 0;
+                }
+
+                if (intersects) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static MonotoneChains chains(double... coords) {
+        LineString ls = new LineString();
+        for (int i = 0; i < coords.length; i += 2) {
+            ls.add(new Point(coords[i], coords[i + 1]));
+        }
+
+        return new MonotoneChains(ls);
+    }
+}
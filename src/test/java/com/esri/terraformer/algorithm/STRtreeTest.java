@@ -0,0 +1,92 @@
+package com.esri.terraformer.algorithm;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class STRtreeTest {
+    @Test
+    public void testQuery() throws Exception {
+        // compare against checking every envelope
+        Random random = new Random(42);
+        List<Envelope> envelopes = new ArrayList<Envelope>();
+        STRtree<Integer> tree = new STRtree<Integer>(4);
+
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Envelope env = new Envelope(x, y, x + random.nextDouble() * 20, y + random.nextDouble() * 20);
+            envelopes.add(env);
+            tree.insert(env, i);
+        }
+        assertEquals(1000, tree.size());
+
+        for (int q = 0; q < 200; q++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Envelope search = new Envelope(x, y, x + random.nextDouble() * 100, y + random.nextDouble() * 100);
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < envelopes.size(); i++) {
+                if (envelopes.get(i).intersects(search)) {
+                    expected.add(i);
+                }
+            }
+
+            // in insertion order
+            assertEquals(expected, tree.query(search));
+        }
+    }
+
+    @Test
+    public void testInsertionOrder() throws Exception {
+        STRtree<String> tree = new STRtree<String>();
+        tree.insert(new Envelope(5d, 5d, 6d, 6d), "c");
+        tree.insert(new Envelope(0d, 0d, 10d, 10d), "a");
+        tree.insert(new Envelope(1d, 1d, 2d, 2d), "b");
+        tree.insert(new Envelope(20d, 20d, 30d, 30d), "d");
+        tree.insert(Envelope.EMPTY, "e");
+
+        assertEquals(Arrays.asList("c", "a", "b"), tree.query(new Envelope(0d, 0d, 10d, 10d)));
+        assertEquals(Arrays.asList("d"), tree.query(new Envelope(25d, 25d, 26d, 26d)));
+        assertEquals(Collections.<String>emptyList(), tree.query(new Envelope(40d, 40d, 50d, 50d)));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        STRtree<String> tree = new STRtree<String>();
+        assertTrue(tree.query(new Envelope(0d, 0d, 10d, 10d)).isEmpty());
+    }
+
+    @Test
+    public void testInsertAfterQuery() throws Exception {
+        STRtree<String> tree = new STRtree<String>();
+        tree.insert(new Envelope(0d, 0d, 1d, 1d), "a");
+        tree.query(new Envelope(0d, 0d, 1d, 1d));
+
+        boolean gotException = false;
+        try {
+            tree.insert(new Envelope(0d, 0d, 1d, 1d), "b");
+        } catch (IllegalStateException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            new STRtree<String>(1);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+}
@@ -2,7 +2,12 @@ package com.esri.terraformer.core;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class BaseGeometryTest {
     @Test
@@ -24,4 +29,148 @@ public class BaseGeometryTest {
         assertEquals(true, BaseGeometry.naiveEquals(pt, pt4));
         assertEquals(null, BaseGeometry.naiveEquals(mp2, mp3));
     }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        // equivalent geometries share a hash
+        List<BaseGeometry<?>[]> equivalents = Arrays.asList(
+                new BaseGeometry<?>[] { LineStringTest.getLineString(), LineStringTest.getLineStringDiffOrder() },
+                new BaseGeometry<?>[] { LineStringTest.getLinearRing(), LineStringTest.getLinearRingRotated() },
+                new BaseGeometry<?>[] { LineStringTest.getLinearRing(), LineStringTest.getLinearRingReversedRotated() },
+                new BaseGeometry<?>[] { MultiPointTest.getMultiPoint(), MultiPointTest.getMultiPointDiffOrder() },
+                new BaseGeometry<?>[] { PolygonTest.getPolygon(), PolygonTest.getPolygonDiffOrder() },
+                new BaseGeometry<?>[] { MultiLineStringTest.getMultiLineString(),
+                        MultiLineStringTest.getMultiLineStringDiffOrder() },
+                new BaseGeometry<?>[] { MultiPolygonTest.getMultiPolygon(), MultiPolygonTest.getMultiPolygonDiffOrder() },
+                new BaseGeometry<?>[] { GeometryCollectionTest.getGeometryCollection(),
+                        GeometryCollectionTest.getGeomCollDiffOrder() },
+                new BaseGeometry<?>[] { FeatureCollectionTest.getFeatureCollection(),
+                        FeatureCollectionTest.fcDiffOrder() });
+
+        for (BaseGeometry<?>[] pair : equivalents) {
+            assertTrue(pair[0].isEquivalentTo(pair[1]));
+            assertEquals(pair[0].fingerprint(), pair[1].fingerprint());
+        }
+
+        // repeated members don't change it
+        Point pt = new Point(100d, 0d);
+        Point pt2 = new Point(0d, 100d);
+        MultiPoint mp = new MultiPoint(pt, pt, pt2);
+        MultiPoint mp2 = new MultiPoint(pt2, pt2, pt);
+        assertTrue(mp.isEquivalentTo(mp2));
+        assertEquals(mp.fingerprint(), mp2.fingerprint());
+
+        // every member goes into it, not only the smallest and largest
+        MultiPoint middle = new MultiPoint(new Point(0d, 0d), new Point(5d, 5d), new Point(10d, 10d));
+        MultiPoint middle2 = new MultiPoint(new Point(0d, 0d), new Point(6d, 6d), new Point(10d, 10d));
+        assertFalse(middle.fingerprint() == middle2.fingerprint());
+
+        LineString first = new LineString(new Point(0d, 0d), new Point(1d, 1d));
+        LineString last = new LineString(new Point(10d, 10d), new Point(11d, 11d));
+        MultiLineString mls = new MultiLineString(first,
+                new LineString(new Point(5d, 5d), new Point(6d, 6d)), last);
+        MultiLineString mls2 = new MultiLineString(first,
+                new LineString(new Point(5d, 5d), new Point(7d, 7d)), last);
+        assertFalse(mls.fingerprint() == mls2.fingerprint());
+    }
+
+    @Test
+    public void testContainsEquivalents() throws Exception {
+        // these two LineStrings have the same fingerprint, but aren't equivalent
+        LineString ls = new LineString(new Point(0d, 0d), new Point(1d, 1d));
+        LineString ls2 = new LineString(new Point(0d, 1d), new Point(1d, 0d));
+        assertEquals(ls.fingerprint(), ls2.fingerprint());
+        assertFalse(ls.isEquivalentTo(ls2));
+
+        LineString reversed = new LineString(new Point(1d, 1d), new Point(0d, 0d));
+        assertTrue(BaseGeometry.containsEquivalents(Arrays.asList(ls), Arrays.asList(ls2, reversed)));
+        assertFalse(BaseGeometry.containsEquivalents(Arrays.asList(ls), Arrays.asList(ls2, ls2)));
+
+        // nulls are skipped in members, and never match in others
+        assertTrue(BaseGeometry.containsEquivalents(Arrays.asList(ls, null), Arrays.asList(reversed)));
+        assertFalse(BaseGeometry.containsEquivalents(Arrays.asList(ls), Arrays.<LineString>asList(null, ls2)));
+    }
+
+    @Test
+    public void testFingerprintAfterChange() throws Exception {
+        LineString ls = LineStringTest.getLineString();
+        int fingerprint = ls.fingerprint();
+        assertEquals(fingerprint, ls.fingerprint());
+
+        // changes made through the geometry's own methods
+        ls.add(new Point(102d, 0d));
+        assertFalse(fingerprint == ls.fingerprint());
+        ls.remove(2);
+        assertEquals(fingerprint, ls.fingerprint());
+        ls.set(1, new Point(0d, 0d));
+        assertFalse(fingerprint == ls.fingerprint());
+        ls.set(1, new Point(101d, 1d));
+        assertEquals(fingerprint, ls.fingerprint());
+
+        // a clone has its own Points
+        LineString empty = new LineString();
+        int emptyFingerprint = empty.fingerprint();
+        empty.add(new Point(1d, 1d));
+        LineString clone = (LineString) empty.clone();
+        assertFalse(emptyFingerprint == clone.fingerprint());
+        assertEquals(empty.fingerprint(), clone.fingerprint());
+
+        // and in collections
+        MultiLineString mls = MultiLineStringTest.getMultiLineString();
+        fingerprint = mls.fingerprint();
+        mls.set(0, new LineString(new Point(0d, 0d), new Point(1d, 1d)));
+        assertFalse(fingerprint == mls.fingerprint());
+
+        Feature feature = new Feature(PolygonTest.getPolygon());
+        fingerprint = feature.fingerprint();
+        feature.set(PolygonTest.getPolygonDiffOrder());
+        assertEquals(fingerprint, feature.fingerprint());
+        feature.set(LineStringTest.getLineString());
+        assertFalse(fingerprint == feature.fingerprint());
+
+        // packing doesn't change it
+        MultiPoint mp = MultiPointTest.getMultiPoint();
+        fingerprint = mp.fingerprint();
+        mp.pack();
+        assertEquals(fingerprint, mp.fingerprint());
+    }
+
+    @Test
+    public void testEquivalentAfterNestedChange() throws Exception {
+        // an earlier comparison must not decide the next one once a member changes in place
+        Polygon p1 = PolygonTest.getPolygon();
+        assertTrue(p1.isEquivalentTo(PolygonTest.getPolygon()));
+        p1.get(0).get(1).setX(1.0);
+        Polygon p2 = PolygonTest.getPolygon();
+        p2.get(0).get(1).setX(1.0);
+        assertEquals(p1, p2);
+        assertTrue(p1.isEquivalentTo(p2));
+        assertTrue(p2.isEquivalentTo(p1));
+
+        p1 = PolygonTest.getPolygon();
+        assertTrue(p1.isEquivalentTo(PolygonTest.getPolygon()));
+        p1.get(0).set(1, new Point(2.0, 2.0));
+        p2 = PolygonTest.getPolygon();
+        p2.get(0).set(1, new Point(2.0, 2.0));
+        assertEquals(p1, p2);
+        assertTrue(p1.isEquivalentTo(p2));
+
+        MultiPolygon mp1 = MultiPolygonTest.getMultiPolygon();
+        assertTrue(mp1.isEquivalentTo(MultiPolygonTest.getMultiPolygon()));
+        mp1.get(0).set(0, new LineString(new Point(0d, 0d), new Point(0d, 1d), new Point(1d, 1d), new Point(0d, 0d)));
+        MultiPolygon mp2 = MultiPolygonTest.getMultiPolygon();
+        mp2.get(0).set(0, new LineString(new Point(0d, 0d), new Point(0d, 1d), new Point(1d, 1d), new Point(0d, 0d)));
+        assertEquals(mp1, mp2);
+        assertTrue(mp1.isEquivalentTo(mp2));
+    }
+
+    @Test
+    public void testFingerprintAfterNestedChange() throws Exception {
+        // nothing is cached, so a member changed in place is seen by the geometries holding it
+        MultiPolygon mp = MultiPolygonTest.getMultiPolygon();
+        int fingerprint = mp.fingerprint();
+        mp.get(0).get(0).get(1).setX(1.0);
+        assertFalse(fingerprint == mp.fingerprint());
+        assertFalse(mp.isEquivalentTo(MultiPolygonTest.getMultiPolygon()));
+    }
 }
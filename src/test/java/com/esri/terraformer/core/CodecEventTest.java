@@ -0,0 +1,107 @@
+package com.esri.terraformer.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CodecEventTest {
+    @Test
+    public void testCounts() throws Exception {
+        CodecEvent point = new CodecEvent("test", PointTest.getPoint(), 10, 20);
+        assertEquals("test", point.getFormat());
+        assertEquals(GeometryType.POINT, point.getGeometryType());
+        assertEquals(10, point.getNanos());
+        assertEquals(20, point.getLength());
+        assertEquals(0, point.getFeatureCount());
+        assertEquals(1, point.getVertexCount());
+
+        assertEquals(0, new CodecEvent("test", new Point(), 0, 0).getVertexCount());
+        assertEquals(2, new CodecEvent("test", LineStringTest.getLineString(), 0, 0).getVertexCount());
+
+        // three rings of five
+        assertEquals(15, new CodecEvent("test", PolygonTest.getPolygon(), 0, 0).getVertexCount());
+
+        CodecEvent feature = new CodecEvent("test", FeatureTest.getPolygonFeature(), 0, 0);
+        assertEquals(1, feature.getFeatureCount());
+        assertEquals(15, feature.getVertexCount());
+
+        FeatureCollection fc = new FeatureCollection(FeatureTest.getPolygonFeature(),
+                FeatureTest.getPolygonFeature(), new Feature());
+        CodecEvent collection = new CodecEvent("test", fc, 0, 0);
+        assertEquals(GeometryType.FEATURECOLLECTION, collection.getGeometryType());
+        assertEquals(3, collection.getFeatureCount());
+        assertEquals(30, collection.getVertexCount());
+
+        CodecEvent none = new CodecEvent("test", null, 0, CodecEvent.UNKNOWN_LENGTH);
+        assertNull(none.getGeometryType());
+        assertEquals(0, none.getFeatureCount());
+        assertEquals(0, none.getVertexCount());
+    }
+
+    @Test
+    public void testAllocatedBytes() throws Exception {
+        assertEquals(CodecEvent.UNKNOWN_ALLOCATED_BYTES, new CodecEvent("test", null, 0, 0).getAllocatedBytes());
+        assertEquals(100, new CodecEvent("test", null, 0, 0, 100).getAllocatedBytes());
+        assertEquals(CodecEvent.UNKNOWN_ALLOCATED_BYTES, CodecEvent.allocatedSince(CodecEvent.UNKNOWN_ALLOCATED_BYTES));
+
+        long start = CodecEvent.threadAllocatedBytes();
+        if (start < 0) {
+            // this JVM can't count them
+            return;
+        }
+
+        byte[] bytes = new byte[1 << 20];
+        assertEquals(1 << 20, bytes.length);
+        assertTrue(CodecEvent.allocatedSince(start) >= 1 << 20);
+    }
+
+    @Test
+    public void testTimer() throws Exception {
+        assertNull(CodecTimer.start(CodecListener.NONE, "test"));
+
+        Recorder recorder = new Recorder();
+        Point point = PointTest.getPoint();
+        CodecTimer.start(recorder, "test").decoded(point, 20);
+        CodecTimer.start(recorder, "test").encoded(null, CodecEvent.UNKNOWN_LENGTH);
+
+        assertEquals(1, recorder.decoded.size());
+        CodecEvent decoded = recorder.decoded.get(0);
+        assertEquals("test", decoded.getFormat());
+        assertTrue(decoded.getGeometry() == point);
+        assertEquals(20, decoded.getLength());
+        assertTrue(decoded.getNanos() >= 0);
+
+        assertEquals(1, recorder.encoded.size());
+        assertNull(recorder.encoded.get(0).getGeometry());
+        assertEquals(CodecEvent.UNKNOWN_LENGTH, recorder.encoded.get(0).getLength());
+    }
+
+    /**
+     * Keeps every event it's given.
+     */
+    public static class Recorder extends CodecListener {
+        public final List<CodecEvent> decoded = new ArrayList<CodecEvent>();
+        public final List<CodecEvent> encoded = new ArrayList<CodecEvent>();
+        public final List<int[]> holesAssigned = new ArrayList<int[]>();
+
+        @Override
+        public synchronized void decoded(CodecEvent event) {
+            decoded.add(event);
+        }
+
+        @Override
+        public synchronized void encoded(CodecEvent event) {
+            encoded.add(event);
+        }
+
+        @Override
+        public synchronized void holesAssigned(int outerRings, int holes, long nanos) {
+            holesAssigned.add(new int[] {outerRings, holes});
+        }
+    }
+}
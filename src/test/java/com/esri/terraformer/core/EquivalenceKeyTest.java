@@ -0,0 +1,52 @@
+package com.esri.terraformer.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EquivalenceKeyTest {
+    @Test
+    public void testHashSet() throws Exception {
+        Set<EquivalenceKey> keys = new HashSet<EquivalenceKey>();
+        assertTrue(keys.add(new EquivalenceKey(LineStringTest.getLinearRing())));
+        assertFalse(keys.add(new EquivalenceKey(LineStringTest.getLinearRingRotated())));
+        assertFalse(keys.add(new EquivalenceKey(LineStringTest.getLinearRingReversed())));
+        assertTrue(keys.add(new EquivalenceKey(LineStringTest.getLinearRingWrongOrder())));
+        assertTrue(keys.add(new EquivalenceKey(MultiPointTest.getMultiPoint())));
+        assertFalse(keys.add(new EquivalenceKey(MultiPointTest.getMultiPointDiffOrder())));
+        assertTrue(keys.add(new EquivalenceKey(PointTest.getPoint())));
+        assertEquals(4, keys.size());
+    }
+
+    @Test
+    public void testHashMap() throws Exception {
+        Map<EquivalenceKey, String> map = new HashMap<EquivalenceKey, String>();
+        Polygon pg = PolygonTest.getPolygon();
+        map.put(new EquivalenceKey(pg), "polygon");
+
+        assertEquals("polygon", map.get(new EquivalenceKey(PolygonTest.getPolygonDiffOrder())));
+        assertEquals(null, map.get(new EquivalenceKey(LineStringTest.getLinearRing())));
+
+        EquivalenceKey key = map.keySet().iterator().next();
+        assertSame(pg, key.getGeometry());
+    }
+
+    @Test
+    public void testNull() throws Exception {
+        boolean gotException = false;
+        try {
+            new EquivalenceKey(null);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+}
@@ -12,6 +12,7 @@ import java.util.List;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class FeatureTest {
@@ -138,6 +139,30 @@ public class FeatureTest {
         assertTrue(feat.getProperties().equals(getProperties()));
     }
 
+    @Test
+    public void testRawProperties() throws Exception {
+        Feature feat = new Feature();
+        assertNull(feat.getRawProperties());
+
+        feat.setRawProperties("{\"a\":1,\"b\":[true,\"c\"]}");
+        assertEquals("{\"a\":1,\"b\":[true,\"c\"]}", feat.getRawProperties());
+
+        // parsed when asked for, and the text is dropped since the object can now be changed
+        JsonObject props = feat.getProperties();
+        assertEquals(1, props.get("a").getAsInt());
+        assertEquals("c", props.getAsJsonArray("b").get(1).getAsString());
+        assertNull(feat.getRawProperties());
+        assertSame(props, feat.getProperties());
+
+        feat.setRawProperties("{}");
+        feat.setProperties(getProperties());
+        assertNull(feat.getRawProperties());
+        assertEquals(getProperties(), feat.getProperties());
+
+        feat.setRawProperties(null);
+        assertNull(feat.getProperties());
+    }
+
     @Test
     public void testGetType() throws Exception {
         assertEquals(GeometryType.FEATURE, getMultiLineStringFeature().getType());
@@ -150,6 +150,23 @@ public class GeometryCollectionTest {
         )));
     }
 
+    @Test
+    public void testIsEquivalentToLarge() throws Exception {
+        GeometryCollection gc = new GeometryCollection();
+        GeometryCollection reversed = new GeometryCollection();
+        for (int i = 0; i < 20000; i++) {
+            LineString ls = new LineString(new Point((double) i, 0d), new Point((double) i, 1d));
+            gc.add(ls);
+            reversed.add(0, new LineString(new Point((double) i, 1d), new Point((double) i, 0d)));
+        }
+
+        assertTrue(gc.isEquivalentTo(reversed));
+        assertTrue(reversed.isEquivalentTo(gc));
+
+        reversed.set(0, new Point(0d, 0d));
+        assertFalse(gc.isEquivalentTo(reversed));
+    }
+
     public static GeometryCollection getGeometryCollection() {
         GeometryCollection geom = geomCollWithoutGeomColl();
         geom.add(geomCollWithoutGeomColl());
@@ -0,0 +1,365 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import com.esri.terraformer.formats.GeoJsonSeqWriter;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Generates synthetic Features for benchmarks and soak tests. The same seed always gives the same geometries, on any
+ * JVM: the only randomness is java.util.Random, and the trigonometry is StrictMath's.
+ *
+ * Features are a mix of Points, long polylines, star-shaped Polygons with holes and MultiPolygons of several such
+ * shells, each with a property bag of {@link #setProperties(int)} attributes. Outer rings are clockwise and holes
+ * counterclockwise, and every hole is inside its shell, so the Polygons are what the Esri JSON decoder expects.
+ *
+ * Besides model objects, the generator writes GeoJSON FeatureCollections, newline-delimited GeoJSON and
+ * newline-delimited Esri JSON straight to a stream, one Feature at a time, until a given number of bytes, so inputs
+ * from a few KB to many GB don't have to fit in memory. The output is ASCII.
+ */
+public class GeometryGenerator {
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final String[] WORDS = {"north", "south", "river", "park", "road", "parcel", "zone", "lake",
+            "county", "tract"};
+
+    private final Random random;
+    private int vertices = 64;
+    private int holes = 2;
+    private int shells = 3;
+    private int properties = 8;
+    private double radius = 0.05;
+    private int nextId;
+
+    public GeometryGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * The number of vertices of each polyline and outer ring, not counting the closing one. The default is 64.
+     *
+     * @param vertices
+     */
+    public void setVertices(int vertices) {
+        if (vertices < 4) {
+            throw new IllegalArgumentException("A star polygon needs at least 4 vertices.");
+        }
+
+        this.vertices = vertices;
+    }
+
+    /**
+     * The number of holes in each Polygon, and in each shell of a MultiPolygon. The default is 2.
+     *
+     * @param holes
+     */
+    public void setHoles(int holes) {
+        if (holes < 0) {
+            throw new IllegalArgumentException("The number of holes cannot be negative.");
+        }
+
+        this.holes = holes;
+    }
+
+    /**
+     * The number of shells in each MultiPolygon. The default is 3.
+     *
+     * @param shells
+     */
+    public void setShells(int shells) {
+        if (shells < 1) {
+            throw new IllegalArgumentException("A MultiPolygon needs at least 1 shell.");
+        }
+
+        this.shells = shells;
+    }
+
+    /**
+     * The number of attributes in each Feature's properties. The default is 8.
+     *
+     * @param properties
+     */
+    public void setProperties(int properties) {
+        if (properties < 0) {
+            throw new IllegalArgumentException("The number of properties cannot be negative.");
+        }
+
+        this.properties = properties;
+    }
+
+    /**
+     * The size of the Polygons, in degrees from their center to their furthest vertex. The default is 0.05.
+     *
+     * @param radius
+     */
+    public void setRadius(double radius) {
+        if (!(radius > 0) || radius > 10) {
+            throw new IllegalArgumentException("The radius must be more than 0 and no more than 10 degrees.");
+        }
+
+        this.radius = radius;
+    }
+
+    /**
+     * @return a Point anywhere in longitude -180 to 180 and latitude -80 to 80
+     */
+    public Point point() {
+        return new Point(x(0), y(0));
+    }
+
+    /**
+     * @return a random walk of {@link #setVertices(int)} vertices, each step a tenth of the radius
+     */
+    public LineString polyline() {
+        double step = radius / 10;
+        double x = x(vertices * step);
+        double y = y(vertices * step);
+        double heading = random.nextDouble() * 2 * Math.PI;
+
+        LineString ls = new LineString(vertices);
+        for (int i = 0; i < vertices; i++) {
+            ls.add(new Point(x, y));
+            heading += (random.nextDouble() - 0.5) * Math.PI / 4;
+            x += step * StrictMath.cos(heading);
+            y += step * StrictMath.sin(heading);
+        }
+        return ls;
+    }
+
+    /**
+     * @return a star-shaped Polygon at a random place, with {@link #setVertices(int)} vertices in its outer ring and
+     * {@link #setHoles(int)} holes
+     */
+    public Polygon starPolygon() {
+        return starPolygon(x(radius), y(radius));
+    }
+
+    /**
+     * @return a MultiPolygon of {@link #setShells(int)} star-shaped Polygons side by side
+     */
+    public MultiPolygon multiPolygon() {
+        double spacing = 2.5 * radius;
+        double x = x(radius + shells * spacing);
+        double y = y(radius);
+
+        MultiPolygon mp = new MultiPolygon(shells);
+        for (int i = 0; i < shells; i++) {
+            mp.add(starPolygon(x + i * spacing, y));
+        }
+        return mp;
+    }
+
+    /**
+     * @return a Point, polyline, Polygon or MultiPolygon, in the proportions 4:2:3:1
+     */
+    public Geometry<?> geometry() {
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            return point();
+        } else if (kind < 6) {
+            return polyline();
+        } else if (kind < 9) {
+            return starPolygon();
+        }
+        return multiPolygon();
+    }
+
+    /**
+     * @return a Feature with a geometry from {@link #geometry()}, an id and properties from {@link #properties()}
+     */
+    public Feature feature() {
+        return new Feature(String.valueOf(nextId++), geometry(), properties());
+    }
+
+    /**
+     * @param count
+     * @return a FeatureCollection of count Features from {@link #feature()}
+     */
+    public FeatureCollection featureCollection(int count) {
+        FeatureCollection fc = new FeatureCollection(count);
+        for (int i = 0; i < count; i++) {
+            fc.add(feature());
+        }
+        return fc;
+    }
+
+    /**
+     * @return {@link #setProperties(int)} attributes: whole numbers, decimals, booleans and short strings, in turn
+     */
+    public JsonObject properties() {
+        JsonObject obj = new JsonObject();
+        for (int i = 0; i < properties; i++) {
+            String key = "field" + i;
+            switch (i % 4) {
+                case 0:
+                    obj.addProperty(key, random.nextInt(1000000));
+                    break;
+                case 1:
+                    obj.addProperty(key, Math.round(random.nextDouble() * 1e6) / 100d);
+                    break;
+                case 2:
+                    obj.addProperty(key, random.nextBoolean());
+                    break;
+                default:
+                    obj.addProperty(key, WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10000));
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * Writes a GeoJSON FeatureCollection of Features from {@link #feature()}, adding Features until at least the
+     * given number of bytes have been written. The stream is flushed but not closed.
+     *
+     * @param out
+     * @param bytes
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    public long writeGeoJson(OutputStream out, long bytes) throws IOException {
+        CountingWriter writer = writer(out);
+        writer.write("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (boolean first = true; writer.count < bytes; first = false) {
+            if (!first) {
+                writer.write(',');
+            }
+            GeoJson.toJson(feature(), writer);
+        }
+        writer.write("]}");
+        writer.flush();
+        return writer.count;
+    }
+
+    /**
+     * Writes newline-delimited GeoJSON Features from {@link #feature()} until at least the given number of bytes
+     * have been written. The stream is flushed but not closed.
+     *
+     * @param out
+     * @param bytes
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    public long writeGeoJsonSeq(OutputStream out, long bytes) throws IOException {
+        CountingWriter writer = writer(out);
+        GeoJsonSeqWriter seq = GeoJson.writeFeatureSequence(writer);
+        while (writer.count < bytes) {
+            seq.write(feature());
+        }
+        seq.flush();
+        return writer.count;
+    }
+
+    /**
+     * Writes newline-delimited Esri JSON Features from {@link #feature()}, as read by
+     * {@link EsriJson#readFeatureFile}, until at least the given number of bytes have been written. The stream is
+     * flushed but not closed.
+     *
+     * @param out
+     * @param bytes
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    public long writeEsriJson(OutputStream out, long bytes) throws IOException {
+        EsriJson esriJson = new EsriJson();
+        CountingWriter writer = writer(out);
+        while (writer.count < bytes) {
+            writer.write(esriJson.encode(feature()));
+            writer.write('\n');
+        }
+        writer.flush();
+        return writer.count;
+    }
+
+    /**
+     * A star-shaped ring has a vertex at each of a set of increasing angles, at a random distance from the center
+     * between half the radius and the radius, so it never crosses itself. The holes are small rings in a grid
+     * inside the circle that no edge of the outer ring can cut into.
+     */
+    private Polygon starPolygon(double x, double y) {
+        Polygon p = new Polygon(holes + 1);
+
+        LineString outer = new LineString(vertices + 1);
+        for (int i = 0; i < vertices; i++) {
+            // clockwise, so the angle decreases
+            double angle = -2 * Math.PI * (i + 0.5 * random.nextDouble()) / vertices;
+            double r = radius * (0.5 + 0.5 * random.nextDouble());
+            outer.add(new Point(x + r * StrictMath.cos(angle), y + r * StrictMath.sin(angle)));
+        }
+        outer.add(new Point(outer.get(0)));
+        p.add(outer);
+
+        // consecutive vertices are at most 1.5 steps apart, so an edge comes no closer to the center than this. The
+        // grid fits in the square inside that circle.
+        double inner = radius * 0.5 * StrictMath.cos(Math.PI * 1.5 / vertices);
+        int grid = (int) Math.ceil(Math.sqrt(holes));
+        double side = inner * Math.sqrt(2);
+        double spacing = side / grid;
+        for (int h = 0; h < holes; h++) {
+            double hx = x - side / 2 + spacing * (h % grid + 0.5);
+            double hy = y - side / 2 + spacing * (h / grid + 0.5);
+            p.add(hole(hx, hy, spacing * 0.4));
+        }
+        return p;
+    }
+
+    private static LineString hole(double x, double y, double r) {
+        LineString ring = new LineString(9);
+        for (int i = 0; i < 8; i++) {
+            double angle = 2 * Math.PI * i / 8;
+            ring.add(new Point(x + r * StrictMath.cos(angle), y + r * StrictMath.sin(angle)));
+        }
+        ring.add(new Point(ring.get(0)));
+        return ring;
+    }
+
+    /** @return a longitude that leaves room for margin degrees to the east and west */
+    private double x(double margin) {
+        double m = Math.min(margin, 170);
+        return -180 + m + random.nextDouble() * (360 - 2 * m);
+    }
+
+    /** @return a latitude between -80 and 80 that leaves room for margin degrees to the north and south */
+    private double y(double margin) {
+        double m = Math.min(margin, 75);
+        return -80 + m + random.nextDouble() * (160 - 2 * m);
+    }
+
+    private static CountingWriter writer(OutputStream out) {
+        return new CountingWriter(new BufferedWriter(new OutputStreamWriter(out, ASCII)));
+    }
+
+    /** Counts the characters written, which are the bytes since the output is ASCII. */
+    private static class CountingWriter extends FilterWriter {
+        long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeometryGeneratorTest {
+    @Test
+    public void testSameSeedSameFeatures() throws Exception {
+        FeatureCollection fc = new GeometryGenerator(42).featureCollection(50);
+        assertEquals(50, fc.size());
+        assertEquals(fc, new GeometryGenerator(42).featureCollection(50));
+        assertFalse(fc.equals(new GeometryGenerator(43).featureCollection(50)));
+    }
+
+    @Test
+    public void testStarPolygon() throws Exception {
+        GeometryGenerator generator = new GeometryGenerator(1);
+        generator.setVertices(1000);
+        generator.setHoles(20);
+
+        Polygon p = generator.starPolygon();
+        assertTrue(p.isValid());
+        assertEquals(21, p.size());
+        assertEquals(1001, p.getOuterRing().size());
+
+        // every hole is inside the outer ring, so the Esri JSON decoder puts them all back in the one Polygon
+        EsriJson esriJson = new EsriJson();
+        BaseGeometry<?> decoded = esriJson.decode(esriJson.encode(p));
+        assertEquals(21, decoded.size());
+        assertTrue(p.isEquivalentTo(decoded));
+    }
+
+    @Test
+    public void testMultiPolygon() throws Exception {
+        GeometryGenerator generator = new GeometryGenerator(2);
+        generator.setVertices(4);
+        generator.setShells(5);
+        generator.setHoles(3);
+
+        MultiPolygon mp = generator.multiPolygon();
+        assertTrue(mp.isValid());
+        assertEquals(5, mp.size());
+
+        EsriJson esriJson = new EsriJson();
+        assertTrue(mp.isEquivalentTo(esriJson.decode(esriJson.encode(mp))));
+    }
+
+    @Test
+    public void testProperties() throws Exception {
+        GeometryGenerator generator = new GeometryGenerator(3);
+        generator.setProperties(100);
+        assertEquals(100, generator.properties().entrySet().size());
+    }
+
+    @Test
+    public void testWriteGeoJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new GeometryGenerator(4).writeGeoJson(out, 64 * 1024);
+        assertEquals(out.size(), written);
+        assertTrue(written >= 64 * 1024);
+
+        FeatureCollection fc = GeoJson.decodeFeatureCollection(out.toString("US-ASCII"));
+        assertTrue(fc.size() > 0);
+        assertEquals(new GeometryGenerator(4).featureCollection(fc.size()), fc);
+    }
+
+    @Test
+    public void testWriteGeoJsonSeq() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new GeometryGenerator(5).writeGeoJsonSeq(out, 16 * 1024);
+        assertEquals(out.size(), written);
+
+        String[] lines = out.toString("US-ASCII").split("\n");
+        GeometryGenerator generator = new GeometryGenerator(5);
+        for (String line : lines) {
+            assertEquals(generator.feature(), GeoJson.decodeFeature(line));
+        }
+    }
+
+    @Test
+    public void testWriteEsriJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new GeometryGenerator(6).writeEsriJson(out, 16 * 1024);
+        assertEquals(out.size(), written);
+
+        EsriJson esriJson = new EsriJson();
+        String[] lines = out.toString("US-ASCII").split("\n");
+        GeometryGenerator generator = new GeometryGenerator(6);
+        for (String line : lines) {
+            Feature expected = generator.feature();
+            Feature actual = (Feature) esriJson.decode(line);
+            assertTrue(expected.get().isEquivalentTo(actual.get()));
+        }
+        assertTrue(lines.length > 1);
+        assertFalse(Arrays.asList(lines).contains(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewVertices() throws Exception {
+        new GeometryGenerator(7).setVertices(3);
+    }
+}
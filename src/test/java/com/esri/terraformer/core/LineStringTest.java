@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class LineStringTest {
@@ -50,6 +51,60 @@ public class LineStringTest {
         assertTrue(LineString.compareLinearRings(lr, getLinearRingReversed()));
         assertTrue(LineString.compareLinearRings(lr, getLinearRingReversedRotated()));
         assertFalse(LineString.compareLinearRings(lr, getLinearRingWrongOrder()));
+
+        // every rotation, in both directions
+        LineString ring = ring(0, 1, 2, 3, 4, 5, 6);
+        for (int i = 0; i < 7; i++) {
+            int[] rotated = new int[7];
+            int[] reversed = new int[7];
+            for (int j = 0; j < 7; j++) {
+                rotated[j] = (i + j) % 7;
+                reversed[j] = (i + 7 - j) % 7;
+            }
+
+            assertTrue(LineString.compareLinearRings(ring, ring(rotated)));
+            assertTrue(LineString.compareLinearRings(ring, ring(reversed)));
+        }
+
+        // repeated Points, where a naive match has to back up
+        assertTrue(LineString.compareLinearRings(ring(0, 1, 0, 1, 0, 2), ring(0, 2, 0, 1, 0, 1)));
+        assertTrue(LineString.compareLinearRings(ring(0, 0, 0, 1), ring(0, 1, 0, 0)));
+        assertFalse(LineString.compareLinearRings(ring(0, 1, 0, 1, 0, 2), ring(0, 1, 0, 2, 0, 2)));
+        assertFalse(LineString.compareLinearRings(ring(0, 0, 1, 1), ring(0, 1, 0, 1)));
+
+        // packed
+        LineString packed = getLinearRingReversedRotated();
+        packed.pack();
+        assertTrue(LineString.compareLinearRings(lr, packed));
+        assertTrue(packed.isPacked());
+
+        // not rings
+        assertNull(LineString.compareLinearRings(getLineString(), getLineStringDiffOrder()));
+        assertFalse(LineString.compareLinearRings(lr, getLineString()));
+        assertFalse(LineString.compareLinearRings(lr, ring(0, 1, 2, 3, 4)));
+    }
+
+    @Test
+    public void testIsEquivalentToReversed() throws Exception {
+        LineString ls = new LineString(new Point(100d, 0d), new Point(101d, 1d), new Point(102d, 0d));
+        LineString reversed = new LineString(new Point(102d, 0d), new Point(101d, 1d), new Point(100d, 0d));
+        assertTrue(ls.isEquivalentTo(reversed));
+        reversed.pack();
+        assertTrue(ls.isEquivalentTo(reversed));
+        assertFalse(ls.isEquivalentTo(new LineString(new Point(101d, 1d), new Point(100d, 0d), new Point(102d, 0d))));
+    }
+
+    /**
+     * A ring through Points on the x axis, closed back to the first.
+     */
+    private static LineString ring(int... xs) {
+        LineString ring = new LineString();
+        for (int x : xs) {
+            ring.add(new Point((double) x, 0d));
+        }
+        ring.add(new Point((double) xs[0], 0d));
+
+        return ring;
     }
 
     public static LineString getLinearRing() {
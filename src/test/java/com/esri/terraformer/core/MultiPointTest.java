@@ -33,6 +33,28 @@ public class MultiPointTest {
         assertFalse(mp.isEquivalentTo(new MultiPoint()));
         assertFalse(mp.isEquivalentTo(new MultiPoint(new Point(100d, 0d))));
         assertFalse(mp.isEquivalentTo(new MultiPoint(new Point(100d, 0d), new Point(100d, 1d))));
+
+        // Points that appear a different number of times
+        MultiPoint repeated = new MultiPoint(new Point(100d, 0d), new Point(100d, 0d), new Point(101d, 1d));
+        MultiPoint repeated2 = new MultiPoint(new Point(101d, 1d), new Point(100d, 0d), new Point(101d, 1d));
+        assertTrue(repeated.isEquivalentTo(repeated2));
+        assertFalse(repeated.isEquivalentTo(new MultiPoint(new Point(100d, 0d), new Point(100d, 0d),
+                new Point(102d, 1d))));
+
+        // packed, and a lot of Points
+        MultiPoint large = new MultiPoint();
+        MultiPoint largeReversed = new MultiPoint();
+        for (int i = 0; i < 20000; i++) {
+            large.add(new Point((double) i, (double) (i % 7)));
+            largeReversed.add(0, new Point((double) i, (double) (i % 7)));
+        }
+        largeReversed.pack();
+        assertTrue(large.isEquivalentTo(largeReversed));
+        assertTrue(largeReversed.isEquivalentTo(large));
+        assertTrue(largeReversed.isPacked());
+
+        largeReversed.set(0, new Point(-1d, 0d));
+        assertFalse(large.isEquivalentTo(largeReversed));
     }
 
     public static MultiPoint getMultiPoint() {
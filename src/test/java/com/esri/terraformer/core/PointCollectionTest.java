@@ -0,0 +1,361 @@
+package com.esri.terraformer.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PointCollectionTest {
+    @Test
+    public void testPack() throws Exception {
+        LineString ls = getLineStringZ();
+        LineString original = new LineString(ls);
+
+        ls.pack();
+        assertTrue(ls.isPacked());
+        assertEquals(3, ls.getDimension());
+        assertEquals(3, ls.size());
+        assertEquals(102d, ls.getOrdinate(2, 0), 0);
+        assertEquals(2d, ls.getOrdinate(2, 1), 0);
+        assertEquals(7d, ls.getOrdinate(2, 2), 0);
+
+        // packing twice is harmless
+        ls.pack();
+        assertTrue(ls.isPacked());
+
+        ls.unpack();
+        assertFalse(ls.isPacked());
+        assertEquals(original, ls);
+
+        // points that can't be packed
+        LineString mixed = new LineString(new Point(100d, 0d), new Point(101d, 1d, 2d));
+        mixed.pack();
+        assertFalse(mixed.isPacked());
+
+        LineString withNull = new LineString(new Point(100d, 0d), null);
+        withNull.pack();
+        assertFalse(withNull.isPacked());
+
+        LineString withNullCoord = new LineString(new Point(100d, 0d), new Point(101d, null));
+        withNullCoord.pack();
+        assertFalse(withNullCoord.isPacked());
+
+        LineString tooBig = new LineString(new Point(100d, 0d, 1d, 2d, 3d), new Point(101d, 1d, 2d, 3d, 4d));
+        tooBig.pack();
+        assertFalse(tooBig.isPacked());
+
+        LineString empty = new LineString();
+        empty.pack();
+        assertFalse(empty.isPacked());
+        assertEquals(0, empty.getDimension());
+    }
+
+    @Test
+    public void testListMethodsUnpack() throws Exception {
+        LineString ls = getLineStringZ();
+        ls.pack();
+
+        assertEquals(new Point(101d, 1d, 6d), ls.get(1));
+        assertFalse(ls.isPacked());
+
+        ls.pack();
+        List<Point> points = new ArrayList<Point>();
+        for (Point p : ls) {
+            points.add(p);
+        }
+        assertFalse(ls.isPacked());
+        assertEquals(getLineStringZ(), points);
+
+        ls.pack();
+        ls.add(new Point(103d, 3d, 8d));
+        assertFalse(ls.isPacked());
+        assertEquals(4, ls.size());
+
+        ls.pack();
+        ls.clear();
+        assertFalse(ls.isPacked());
+        assertTrue(ls.isEmpty());
+    }
+
+    @Test
+    public void testJava8MethodsUnpack() throws Exception {
+        // ArrayList implements these against its own array, which is empty while the coordinates are packed
+        final List<Point> seen = new ArrayList<Point>();
+        packedLineStringZ().forEach(new Consumer<Point>() {
+            @Override
+            public void accept(Point p) {
+                seen.add(p);
+            }
+        });
+        assertEquals(getLineStringZ(), seen);
+
+        LineString ls = packedLineStringZ();
+        assertTrue(ls.removeIf(new Predicate<Point>() {
+            @Override
+            public boolean test(Point p) {
+                return p.getX() == 101d;
+            }
+        }));
+        assertEquals(new LineString(new Point(100d, 0d, 5d), new Point(102d, 2d, 7d)), ls);
+
+        ls = packedLineStringZ();
+        ls.replaceAll(new UnaryOperator<Point>() {
+            @Override
+            public Point apply(Point p) {
+                return new Point(p.getY(), p.getX());
+            }
+        });
+        assertEquals(new LineString(new Point(0d, 100d), new Point(1d, 101d), new Point(2d, 102d)), ls);
+
+        ls = packedLineStringZ();
+        ls.sort(new Comparator<Point>() {
+            @Override
+            public int compare(Point p1, Point p2) {
+                return Double.compare(p2.getX(), p1.getX());
+            }
+        });
+        assertEquals(new Point(102d, 2d, 7d), ls.get(0));
+        assertEquals(3, ls.size());
+
+        ls = packedLineStringZ();
+        assertEquals(3, ls.spliterator().getExactSizeIfKnown());
+        assertEquals(3, packedLineStringZ().stream().count());
+        assertEquals(3, packedLineStringZ().parallelStream().count());
+
+        ls = packedLineStringZ();
+        assertEquals(new Point(100d, 0d, 5d), ls.getFirst());
+        assertEquals(new Point(102d, 2d, 7d), packedLineStringZ().getLast());
+        assertEquals(new Point(100d, 0d, 5d), ls.removeFirst());
+        assertEquals(new Point(102d, 2d, 7d), ls.removeLast());
+        assertEquals(1, ls.size());
+
+        boolean gotException = false;
+        try {
+            new LineString().getFirst();
+        } catch (NoSuchElementException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testPackedReads() throws Exception {
+        LineString lr = LineStringTest.getLinearRing();
+        lr.pack();
+        assertTrue(lr.isLinearRing());
+        assertTrue(lr.isValid());
+        assertFalse(lr.isEmpty());
+        assertTrue(lr.isPacked());
+
+        MultiPoint mp = MultiPointTest.getMultiPoint();
+        mp.pack();
+        assertTrue(mp.isValid());
+        assertTrue(mp.isPacked());
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        LineString packed = getLineStringZ();
+        packed.pack();
+        LineString otherPacked = getLineStringZ();
+        otherPacked.pack();
+        LineString unpacked = getLineStringZ();
+
+        assertEquals(packed, otherPacked);
+        assertEquals(packed, unpacked);
+        assertEquals(unpacked, packed);
+        assertTrue(packed.isPacked());
+        assertTrue(otherPacked.isPacked());
+
+        assertEquals(unpacked.hashCode(), packed.hashCode());
+        assertTrue(packed.isPacked());
+
+        // the same as a plain list of the same points
+        List<Point> list = new ArrayList<Point>(getLineStringZ());
+        assertEquals(list, packed);
+        assertEquals(packed, list);
+
+        LineString xy = LineStringTest.getLineString();
+        xy.pack();
+        assertFalse(packed.equals(xy));
+        assertFalse(packed.equals(new LineString(new Point(100d, 0d, 5d), new Point(101d, 1d, 6d),
+                new Point(102d, 2d, 8d))));
+        assertFalse(packed.equals(Arrays.asList(new Point(100d, 0d, 5d), new Point(101d, 1d, 6d),
+                new Point(102d, 2d, 7d, 1d))));
+        assertFalse(packed.equals(new Point(100d, 0d, 5d)));
+
+        // Double.equals semantics
+        LineString zeros = new LineString(new Point(0d, 0d), new Point(Double.NaN, 1d));
+        LineString negativeZeros = new LineString(new Point(-0d, 0d), new Point(Double.NaN, 1d));
+        assertEquals(new LineString(zeros), zeros);
+        assertFalse(zeros.equals(negativeZeros));
+        zeros.pack();
+        negativeZeros.pack();
+        assertEquals(new LineString(new Point(0d, 0d), new Point(Double.NaN, 1d)), zeros);
+        assertFalse(zeros.equals(negativeZeros));
+
+        assertTrue(LineStringTest.getLinearRing().isEquivalentTo(packedCopy(LineStringTest.getLinearRingRotated())));
+        assertTrue(packedCopy(MultiPointTest.getMultiPoint()).isEquivalentTo(MultiPointTest.getMultiPointDiffOrder()));
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        LineString packed = getLineStringZ();
+        packed.pack();
+
+        LineString copy = new LineString(packed);
+        assertTrue(copy.isPacked());
+        assertEquals(packed, copy);
+
+        // changing the copy doesn't change the original
+        copy.get(0).setX(99d);
+        assertEquals(getLineStringZ(), packed);
+        assertTrue(packed.isPacked());
+
+        LineString clone = (LineString) packed.clone();
+        clone.set(1, new Point(0d, 0d));
+        assertEquals(getLineStringZ(), packed);
+
+        MultiPoint mp = new MultiPoint(packed);
+        assertTrue(mp.isPacked());
+        assertEquals(getLineStringZ(), mp);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        LineString packed = getLineStringZ();
+        packed.pack();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(packed);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(getLineStringZ(), in.readObject());
+    }
+
+    @Test
+    public void testPackGeometry() throws Exception {
+        MultiPolygon mpg = MultiPolygonTest.getMultiPolygon();
+        mpg.pack();
+        for (Polygon pg : mpg) {
+            for (LineString ring : pg) {
+                assertTrue(ring.isPacked());
+            }
+        }
+        assertEquals(MultiPolygonTest.getMultiPolygon(), mpg);
+
+        Feature feature = new Feature(LineStringTest.getLineString());
+        feature.pack();
+        assertTrue(((LineString) feature.get()).isPacked());
+
+        // nothing to pack, but still safe
+        PointTest.getPoint().pack();
+        new Feature().pack();
+    }
+
+    @Test
+    public void testCoordinateSequence() throws Exception {
+        LineString ls = new LineString(new Point(100d, 0d, 5d, 9d), new Point(101d, 1d, 6d, 8d));
+        CoordinateSequence unpacked = new LineString(ls);
+        ls.pack();
+        CoordinateSequence packed = ls;
+
+        for (CoordinateSequence seq : new CoordinateSequence[] { unpacked, packed }) {
+            assertEquals(2, seq.size());
+            assertEquals(4, seq.getDimension());
+            assertEquals(4, seq.getDimension(1));
+            assertEquals(101d, seq.getX(1), 0);
+            assertEquals(1d, seq.getY(1), 0);
+            assertEquals(6d, seq.getZ(1), 0);
+            assertEquals(8d, seq.getM(1), 0);
+            assertEquals(9d, seq.getOrdinate(0, 3), 0);
+        }
+        assertTrue(ls.isPacked());
+
+        boolean gotException = false;
+        try {
+            packed.getX(2);
+        } catch (IndexOutOfBoundsException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            LineStringTest.getLineString().getZ(0);
+        } catch (IndexOutOfBoundsException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        CoordinateSequence mixed = new MultiPoint(new Point(1d, 2d), new Point(1d, 2d, 3d));
+        assertEquals(2, mixed.getDimension());
+        assertEquals(3, mixed.getDimension(1));
+        assertEquals(0, new MultiPoint().getDimension());
+    }
+
+    @Test
+    public void testSetCoordinates() throws Exception {
+        LineString ls = new LineString(new Point(1d, 1d));
+        double[] coords = new double[] { 100d, 0d, 5d, 101d, 1d, 6d, 102d, 2d, 7d, 0d };
+        ls.setCoordinates(coords, 3, 3);
+        assertTrue(ls.isPacked());
+        assertEquals(getLineStringZ(), ls);
+
+        // the array is copied
+        coords[0] = 0d;
+        assertEquals(100d, ls.getX(0), 0);
+
+        ls.setCoordinates(coords, 0, 2);
+        assertFalse(ls.isPacked());
+        assertTrue(ls.isEmpty());
+
+        boolean gotException = false;
+        try {
+            ls.setCoordinates(coords, 2, 5);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            ls.setCoordinates(coords, 4, 3);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    private static <T extends PointCollection> T packedCopy(T points) {
+        points.pack();
+        return points;
+    }
+
+    private static LineString packedLineStringZ() {
+        LineString ls = getLineStringZ();
+        ls.pack();
+        assertTrue(ls.isPacked());
+        return ls;
+    }
+
+    private static LineString getLineStringZ() {
+        return new LineString(new Point(100d, 0d, 5d), new Point(101d, 1d, 6d), new Point(102d, 2d, 7d));
+    }
+}
@@ -0,0 +1,245 @@
+package com.esri.terraformer.core;
+
+import com.esri.terraformer.formats.EsriJson;
+import com.esri.terraformer.formats.GeoJson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyTableTest {
+    @Test
+    public void testColumnTypes() throws Exception {
+        FeatureCollection fc = new FeatureCollection(
+                feature("{\"id\":1,\"area\":2.5,\"open\":true,\"name\":\"a\",\"tags\":[1,2],\"mixed\":1}"),
+                feature("{\"id\":-9007199254740993,\"area\":3,\"open\":false,\"name\":\"b\",\"mixed\":\"x\"}"),
+                feature("{\"id\":null,\"area\":1e3,\"name\":\"a\",\"nothing\":null}"));
+        PropertyTable table = fc.packProperties();
+        assertSame(table, fc.getPropertyTable());
+        assertEquals(3, table.getRowCount());
+        assertEquals(7, table.getColumnCount());
+        assertEquals(-1, table.getColumn("missing"));
+
+        int id = table.getColumn("id");
+        assertEquals("id", table.getKey(id));
+        assertEquals(PropertyTable.ColumnType.LONG, table.getType(id));
+        assertEquals(1, table.getLong(0, id));
+        assertEquals(-9007199254740993L, table.getLong(1, id));
+        assertTrue(table.has(2, id));
+        assertTrue(table.isNull(2, id));
+        assertEquals(JsonNull.INSTANCE, table.get(2, id));
+
+        int area = table.getColumn("area");
+        assertEquals(PropertyTable.ColumnType.DOUBLE, table.getType(area));
+        assertEquals(2.5, table.getDouble(0, area), 0);
+        assertEquals(3, table.getDouble(1, area), 0);
+        assertEquals(1000, table.getDouble(2, area), 0);
+
+        int open = table.getColumn("open");
+        assertEquals(PropertyTable.ColumnType.BOOLEAN, table.getType(open));
+        assertTrue(table.getBoolean(0, open));
+        assertFalse(table.getBoolean(1, open));
+        assertFalse(table.has(2, open));
+        assertTrue(table.isNull(2, open));
+        assertNull(table.get(2, open));
+
+        // strings share one copy per distinct value
+        int name = table.getColumn("name");
+        assertEquals(PropertyTable.ColumnType.STRING, table.getType(name));
+        assertEquals("b", table.getString(1, name));
+        assertSame(table.getString(0, name), table.getString(2, name));
+
+        int tags = table.getColumn("tags");
+        assertEquals(PropertyTable.ColumnType.JSON, table.getType(tags));
+        assertEquals("[1,2]", table.getString(0, tags));
+        assertEquals(parse("[1,2]"), table.get(0, tags));
+        assertEquals(PropertyTable.ColumnType.JSON, table.getType(table.getColumn("mixed")));
+        assertEquals(new JsonPrimitive("x"), table.get(1, table.getColumn("mixed")));
+        assertEquals(PropertyTable.ColumnType.JSON, table.getType(table.getColumn("nothing")));
+    }
+
+    @Test
+    public void testWideLongs() throws Exception {
+        // a long that a double can't hold keeps the column from becoming a DOUBLE column
+        PropertyTable table = new FeatureCollection(
+                feature("{\"n\":9007199254740993}"),
+                feature("{\"n\":0.5}")).packProperties();
+        assertEquals(PropertyTable.ColumnType.JSON, table.getType(0));
+        assertEquals(new JsonPrimitive(9007199254740993L), table.get(0, 0));
+
+        table = new FeatureCollection(feature("{\"n\":9007199254740992}"), feature("{\"n\":0.5}")).packProperties();
+        assertEquals(PropertyTable.ColumnType.DOUBLE, table.getType(0));
+    }
+
+    @Test
+    public void testExactNumbers() throws Exception {
+        // numbers that a long or double can't hold without losing digits are kept as their text
+        String[] inexact = {"12345678901234567890123", "0.123456789012345678901", "1e400"};
+        for (String number : inexact) {
+            PropertyTable table = new FeatureCollection(feature("{\"n\":" + number + "}"), feature("{\"n\":0.5}"))
+                    .packProperties();
+            assertEquals(number, PropertyTable.ColumnType.JSON, table.getType(0));
+            assertEquals(number, table.getString(0, 0));
+            assertEquals(parse(number), table.get(0, 0));
+        }
+
+        // -0 isn't a long, but a double keeps its sign
+        PropertyTable table = new FeatureCollection(feature("{\"n\":-0}"), feature("{\"n\":1}")).packProperties();
+        assertEquals(PropertyTable.ColumnType.DOUBLE, table.getType(0));
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(table.getDouble(0, 0)));
+
+        // decimals written in more digits than they need are still exact
+        table = new FeatureCollection(feature("{\"n\":0.10}"), feature("{\"n\":1.2345678901234567}"))
+                .packProperties();
+        assertEquals(PropertyTable.ColumnType.DOUBLE, table.getType(0));
+        assertEquals(0.1, table.getDouble(0, 0), 0);
+        assertEquals(1.2345678901234567, table.getDouble(1, 0), 0);
+    }
+
+    @Test
+    public void testWrongType() throws Exception {
+        PropertyTable table = new FeatureCollection(feature("{\"s\":\"a\",\"d\":0.5}")).packProperties();
+
+        boolean gotException = false;
+        try {
+            table.getLong(0, table.getColumn("d"));
+        } catch (IllegalStateException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            table.getDouble(0, table.getColumn("s"));
+        } catch (IllegalStateException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            table.get(1, 0);
+        } catch (IndexOutOfBoundsException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testFeatureProperties() throws Exception {
+        GeometryGenerator generator = new GeometryGenerator(8);
+        generator.setProperties(20);
+        FeatureCollection fc = generator.featureCollection(200);
+
+        Feature noProperties = new Feature(new Point(1.0, 2.0));
+        noProperties.setProperties(null);
+        fc.add(noProperties);
+        Feature rawProperties = new Feature(new Point(1.0, 2.0));
+        rawProperties.setRawProperties("{\"field0\":5,\"extra\":{\"a\":[true]}}");
+        fc.add(rawProperties);
+
+        List<JsonObject> before = new ArrayList<JsonObject>();
+        for (Feature f : fc) {
+            before.add(f.getProperties());
+        }
+        String geoJson = GeoJson.toJson(fc);
+        String esriJson = new EsriJson().encode(fc);
+
+        PropertyTable table = fc.packProperties();
+        assertEquals(fc.size(), table.getRowCount());
+        assertEquals(21, table.getColumnCount());
+        assertFalse(table.hasProperties(200));
+        assertNull(table.toJsonObject(200));
+        assertNull(noProperties.getPropertyTable());
+        assertSame(table, rawProperties.getPropertyTable());
+        assertNull(rawProperties.getRawProperties());
+
+        // encoding reads the rows without taking them out of the table
+        assertEquals(geoJson, GeoJson.toJson(fc));
+        assertEquals(esriJson, new EsriJson().encode(fc));
+        for (int i = 0; i < fc.size(); i++) {
+            assertEquals(before.get(i), table.toJsonObject(i));
+            if (fc.get(i).getPropertyTable() != null) {
+                assertSame(table, fc.get(i).getPropertyTable());
+                assertEquals(i, fc.get(i).getPropertyRow());
+            }
+        }
+
+        // asking for the properties takes the Feature out of the table
+        Feature first = fc.get(0);
+        JsonObject props = first.getProperties();
+        assertEquals(before.get(0), props);
+        assertNull(first.getPropertyTable());
+        assertSame(props, first.getProperties());
+        props.addProperty("field0", -1);
+        assertEquals(before.get(0).get("field0"), table.get(0, 0));
+
+        Feature second = fc.get(1);
+        second.setProperties(new JsonObject());
+        assertNull(second.getPropertyTable());
+        assertEquals(new JsonObject(), second.getProperties());
+    }
+
+    @Test
+    public void testColumnScan() throws Exception {
+        FeatureCollection fc = new FeatureCollection();
+        long expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            JsonObject props = new JsonObject();
+            if (i % 3 != 0) {
+                props.addProperty("n", i);
+                expected += i;
+            }
+            props.addProperty("even", i % 2 == 0);
+            fc.add(new Feature(new Point((double) i, 0.0), props));
+        }
+
+        PropertyTable table = fc.packProperties();
+        int n = table.getColumn("n");
+        int even = table.getColumn("even");
+        long total = 0;
+        int evens = 0;
+        for (int row = 0; row < table.getRowCount(); row++) {
+            if (!table.isNull(row, n)) {
+                total += table.getLong(row, n);
+            }
+            if (table.getBoolean(row, even)) {
+                evens++;
+            }
+        }
+        assertEquals(expected, total);
+        assertEquals(500, evens);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        PropertyTable table = new FeatureCollection().packProperties();
+        assertEquals(0, table.getRowCount());
+        assertEquals(0, table.getColumnCount());
+
+        table = new FeatureCollection(new Feature(), null).packProperties();
+        assertEquals(2, table.getRowCount());
+        assertEquals(0, table.getColumnCount());
+        assertEquals(new JsonObject(), table.toJsonObject(0));
+        assertFalse(table.hasProperties(1));
+    }
+
+    private static Feature feature(String properties) {
+        return new Feature(new Point(0.0, 0.0), parse(properties).getAsJsonObject());
+    }
+
+    private static JsonElement parse(String json) {
+        return JsonParser.parseString(json);
+    }
+}
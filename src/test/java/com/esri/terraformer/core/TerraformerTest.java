@@ -1,11 +1,34 @@
 package com.esri.terraformer.core;
 
+import com.esri.terraformer.formats.EsriJson;
 import com.esri.terraformer.formats.FormatUtils;
 import com.esri.terraformer.formats.GeoJson;
 import com.esri.terraformer.formats.GeoJsonTest;
+import com.esri.terraformer.formats.Wkb;
 import com.google.gson.JsonElement;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertEquals;
@@ -111,4 +134,367 @@ public class TerraformerTest {
 
         assertEquals(in, out);
     }
+
+    @Test
+    public void testConvertBytes() throws Exception {
+        Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        String expected = t.convert(GeoJsonTest.VALID_MULTI_POLYGON);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t.convert(ByteBuffer.wrap(GeoJsonTest.VALID_MULTI_POLYGON.getBytes("UTF-8")), out);
+        assertEquals(expected, out.toString("UTF-8"));
+
+        // binary to text
+        Wkb wkb = new Wkb();
+        t = new Terraformer(wkb, new GeoJson());
+        out = new ByteArrayOutputStream();
+        t.convert(ByteBuffer.wrap(wkb.encodeBytes(MultiPolygonTest.getMultiPolygon())), out);
+        assertEquals(new GeoJson().encode(MultiPolygonTest.getMultiPolygon()), out.toString("UTF-8"));
+
+        // a decoder and encoder that only know Strings are given and give UTF-8
+        Terraformer.Decoder stringDecoder = new Terraformer.Decoder() {
+            @Override
+            public BaseGeometry decode(String in) throws TerraformerException {
+                return new GeoJson().decode(in);
+            }
+        };
+        Terraformer.Encoder stringEncoder = new Terraformer.Encoder() {
+            @Override
+            public String encode(BaseGeometry geo) {
+                return new GeoJson().encode(geo);
+            }
+        };
+        t = new Terraformer(stringDecoder, stringEncoder);
+        String json = "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[8.5,47.4]}," +
+                "\"properties\":{\"name\":\"Z\u00fcrich\"}}";
+        out = new ByteArrayOutputStream();
+        t.convert(ByteBuffer.wrap(json.getBytes("UTF-8")), out);
+        assertEquals(t.convert(json), out.toString("UTF-8"));
+
+        boolean gotException = false;
+        try {
+            new Terraformer().convert(ByteBuffer.wrap(json.getBytes("UTF-8")), out);
+        } catch (TerraformerException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testConvertShared() throws Exception {
+        // one Terraformer used by several threads at once
+        final Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        final String[] inputs = new String[] {
+                GeoJsonTest.VALID_POINT, GeoJsonTest.VALID_MULTIPOINT, GeoJsonTest.VALID_LINE_STRING,
+                GeoJsonTest.VALID_MULTI_LINE_STRING, GeoJsonTest.VALID_POLYGON, GeoJsonTest.VALID_MULTI_POLYGON
+        };
+
+        final String[] expected = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            expected[i] = t.convert(inputs[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int task = 0; task < 32; task++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int n = 0; n < 200; n++) {
+                            int i = n % inputs.length;
+                            if (!expected[i].equals(t.convert(inputs[i]))) {
+                                return false;
+                            }
+                        }
+
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConvertAll() throws Exception {
+        Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        List<String> inputs = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            inputs.add(i % 7 == 3 ? "{\"type\":\"Point\"}" : GeoJsonTest.VALID_LINE_STRING);
+        }
+
+        String expected = t.convert(GeoJsonTest.VALID_LINE_STRING);
+
+        List<Terraformer.ConversionResult> results = t.convertAll(inputs);
+        checkResults(expected, results);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            checkResults(expected, t.convertAll(inputs, executor));
+            checkResults(expected, t.convertAll(inputs, executor, 1));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, t.convertAll(Collections.<String>emptyList()).size());
+    }
+
+    @Test
+    public void testConvertAllInForkJoinPool() throws Exception {
+        // a batch started from a task of the common pool mustn't wait on that pool's threads
+        final Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        final List<String> inputs = Collections.nCopies(100, GeoJsonTest.VALID_LINE_STRING);
+        final String expected = t.convert(GeoJsonTest.VALID_LINE_STRING);
+
+        ForkJoinTask<List<Terraformer.ConversionResult>> task = ForkJoinPool.commonPool().submit(
+                new Callable<List<Terraformer.ConversionResult>>() {
+                    @Override
+                    public List<Terraformer.ConversionResult> call() throws Exception {
+                        return t.convertAll(inputs);
+                    }
+                });
+
+        List<Terraformer.ConversionResult> results = task.get(30, TimeUnit.SECONDS);
+        assertEquals(100, results.size());
+        for (Terraformer.ConversionResult result : results) {
+            assertEquals(expected, result.getOutput());
+        }
+    }
+
+    @Test
+    public void testConvertAllBounded() throws Exception {
+        final Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        final List<String> inputs = Collections.nCopies(10, GeoJsonTest.VALID_MULTI_POLYGON);
+
+        // holds the conversions until they are run below
+        final BlockingQueue<Runnable> queued = new LinkedBlockingQueue<Runnable>();
+        final Executor holding = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        };
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Terraformer.ConversionResult>> batch = caller.submit(
+                    new Callable<List<Terraformer.ConversionResult>>() {
+                        @Override
+                        public List<Terraformer.ConversionResult> call() throws Exception {
+                            return t.convertAll(inputs, holding, 3);
+                        }
+                    });
+
+            // only 3 are handed over until one of them finishes
+            while (queued.size() < 3) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            assertEquals(3, queued.size());
+            assertFalse(batch.isDone());
+
+            int run = 0;
+            while (!batch.isDone()) {
+                Runnable next = queued.poll(10, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    next.run();
+                    run++;
+                }
+            }
+
+            assertEquals(10, run);
+            assertEquals(10, batch.get().size());
+        } finally {
+            caller.shutdown();
+        }
+    }
+
+    @Test
+    public void testConvertAllFailures() throws Exception {
+        // no decoder: every input fails, but the batch still completes
+        List<Terraformer.ConversionResult> results = new Terraformer().convertAll(
+                Arrays.asList(GeoJsonTest.VALID_POINT, GeoJsonTest.VALID_POINT));
+        assertEquals(2, results.size());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getError() instanceof TerraformerException);
+
+        // a rejected input fails, the rest are converted
+        final AtomicInteger calls = new AtomicInteger();
+        Executor rejectsSecond = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (calls.incrementAndGet() == 2) {
+                    throw new RejectedExecutionException();
+                }
+
+                command.run();
+            }
+        };
+
+        Terraformer t = new Terraformer(new GeoJson(), new GeoJson());
+        results = t.convertAll(Arrays.asList(GeoJsonTest.VALID_POINT, GeoJsonTest.VALID_POINT,
+                GeoJsonTest.VALID_POINT), rejectsSecond, 1);
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).getError() instanceof RejectedExecutionException);
+        assertEquals(GeoJsonTest.VALID_POINT, results.get(2).getOutput());
+
+        boolean gotException = false;
+        try {
+            t.convertAll(Arrays.asList(GeoJsonTest.VALID_POINT), rejectsSecond, 0);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testConvertAllErrors() throws Exception {
+        // an Error fails only its own input, and gives back its permit
+        final GeoJson geoJson = new GeoJson();
+        Terraformer t = new Terraformer(new Terraformer.Decoder() {
+            @Override
+            public BaseGeometry decode(String in) throws TerraformerException {
+                if (in.isEmpty()) {
+                    throw new StackOverflowError();
+                }
+                return geoJson.decode(in);
+            }
+        }, geoJson);
+
+        List<String> inputs = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            inputs.add(i % 4 == 1 ? "" : GeoJsonTest.VALID_POINT);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            checkErrors(t.convertAll(inputs, executor, 1));
+            checkErrors(t.convertAll(inputs));
+        } finally {
+            executor.shutdown();
+        }
+
+        // an executor that fails with an Error fails that input and gives back its permit
+        final AtomicInteger calls = new AtomicInteger();
+        Executor failsSecond = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (calls.incrementAndGet() == 2) {
+                    throw new OutOfMemoryError("unable to create new native thread");
+                }
+
+                command.run();
+            }
+        };
+        List<Terraformer.ConversionResult> results = new Terraformer(new GeoJson(), new GeoJson()).convertAll(
+                Arrays.asList(GeoJsonTest.VALID_POINT, GeoJsonTest.VALID_POINT, GeoJsonTest.VALID_POINT),
+                failsSecond, 1);
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getError() instanceof OutOfMemoryError);
+        assertEquals(GeoJsonTest.VALID_POINT, results.get(2).getOutput());
+    }
+
+    private static void checkErrors(List<Terraformer.ConversionResult> results) {
+        assertEquals(20, results.size());
+        for (Terraformer.ConversionResult result : results) {
+            if (result.getIndex() % 4 == 1) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getOutput());
+                assertTrue(result.getError() instanceof StackOverflowError);
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals(GeoJsonTest.VALID_POINT, result.getOutput());
+            }
+        }
+    }
+
+    private static void checkResults(String expected, List<Terraformer.ConversionResult> results) {
+        assertEquals(500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Terraformer.ConversionResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i % 7 == 3) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getOutput());
+                assertTrue(result.getError() instanceof TerraformerException);
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals(expected, result.getOutput());
+                assertNull(result.getError());
+            }
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        Terraformer t = new Terraformer(new GeoJson(), new EsriJson());
+        assertEquals(CodecListener.NONE, t.getListener());
+
+        CodecEventTest.Recorder recorder = new CodecEventTest.Recorder();
+        t.setListener(recorder);
+        String output = t.convert(GeoJsonTest.VALID_MULTI_POLYGON);
+
+        assertEquals(1, recorder.decoded.size());
+        CodecEvent decoded = recorder.decoded.get(0);
+        assertEquals(GeoJson.FORMAT_NAME, decoded.getFormat());
+        assertEquals(GeometryType.MULTIPOLYGON, decoded.getGeometryType());
+        assertEquals(GeoJsonTest.VALID_MULTI_POLYGON.length(), decoded.getLength());
+        assertEquals(30, decoded.getVertexCount());
+        assertTrue(decoded.getNanos() >= 0);
+        if (CodecEvent.threadAllocatedBytes() >= 0) {
+            assertTrue(decoded.getAllocatedBytes() > 0);
+        }
+
+        assertEquals(1, recorder.encoded.size());
+        assertEquals(EsriJson.FORMAT_NAME, recorder.encoded.get(0).getFormat());
+        assertEquals(output.length(), recorder.encoded.get(0).getLength());
+
+        // bytes, through the codecs' byte interfaces and through Strings
+        byte[] input = GeoJsonTest.VALID_MULTI_POLYGON.getBytes("UTF-8");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t.convert(ByteBuffer.wrap(input), out);
+        assertEquals(input.length, recorder.decoded.get(1).getLength());
+        assertEquals(out.size(), recorder.encoded.get(1).getLength());
+
+        t.setEncoder(new Terraformer.Encoder() {
+            @Override
+            public String encode(BaseGeometry geo) {
+                return "\u00e9";
+            }
+        });
+        out = new ByteArrayOutputStream();
+        t.convert(ByteBuffer.wrap(input), out);
+        assertEquals(2, recorder.encoded.get(2).getLength());
+        assertEquals(t.getEncoder().getClass().getName(), recorder.encoded.get(2).getFormat());
+
+        t.convertAll(Collections.nCopies(10, GeoJsonTest.VALID_MULTI_POLYGON));
+        assertEquals(13, recorder.decoded.size());
+        assertEquals(13, recorder.encoded.size());
+
+        // failures aren't reported
+        try {
+            t.convert("{}");
+        } catch (TerraformerException e) {
+            // expected
+        }
+        assertEquals(13, recorder.decoded.size());
+
+        t.setListener(null);
+        t.convert(GeoJsonTest.VALID_MULTI_POLYGON);
+        assertEquals(CodecListener.NONE, t.getListener());
+        assertEquals(13, recorder.decoded.size());
+
+        t.setListener(recorder);
+        t.setEncoder(new Wkb());
+        t.convert(GeoJsonTest.VALID_MULTI_POLYGON);
+        assertEquals(Wkb.FORMAT_NAME, recorder.encoded.get(13).getFormat());
+    }
 }
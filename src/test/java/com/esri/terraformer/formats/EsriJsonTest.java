@@ -1,22 +1,40 @@
 package com.esri.terraformer.formats;
 
+import com.esri.terraformer.algorithm.MonotoneChains;
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.CodecEventTest;
 import com.esri.terraformer.core.Feature;
 import com.esri.terraformer.core.FeatureCollection;
+import com.esri.terraformer.core.FeatureTest;
 import com.esri.terraformer.core.GeometryCollection;
+import com.esri.terraformer.core.GeometryType;
 import com.esri.terraformer.core.LineString;
 import com.esri.terraformer.core.MultiLineString;
 import com.esri.terraformer.core.MultiPoint;
 import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.MultiPolygonTest;
 import com.esri.terraformer.core.Point;
 import com.esri.terraformer.core.Polygon;
 import com.esri.terraformer.core.Terraformer;
+import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class EsriJsonTest {
@@ -114,6 +132,119 @@ public class EsriJsonTest {
         assertEquals(mp.get(1).getHoles().size(), 0);
     }
 
+    @Test
+    public void testDecodePacked() throws Exception {
+        EsriJson packing = new EsriJson();
+        packing.setPackCoordinates(true);
+
+        String[] fixtures = new String[] {
+                "{\"points\":[[41.8,87.6],[42.1,87.7]],\"spatialReference\":{\"wkid\":4326}}",
+                "{\"hasM\":true,\"paths\":[[[0,0,1],[1,0,2],[1,1,3]],[[2,2,4],[3,3,5]]]}",
+                "{\"rings\":[[[100,0],[100,4],[104,4],[104,0],[100,0]],[[101,0.5],[103,0.5],[103,1],[101,1],[101,0.5]]]}",
+                "{\"rings\":[[[0,0],[0,1],[1,1],[1,0]],[[5,5],[5,6],[6,6]]]}",
+                "{\"geometry\":{\"hasZ\":true,\"paths\":[[[0,0,1],[1,0,2],[1,1,3]]]},\"attributes\":{\"foo\":\"bar\"}}"
+        };
+
+        for (String fixture : fixtures) {
+            BaseGeometry<?> expected = e.decode(fixture);
+            BaseGeometry<?> packed = packing.decode(fixture);
+            assertEquals(expected, packed);
+            assertEquals(e.encode(expected), packing.encode(packed));
+        }
+
+        Polygon p = (Polygon) packing.decode(fixtures[2]);
+        assertTrue(p.getOuterRing().isPacked());
+        assertTrue(p.get(1).isPacked());
+
+        // encoding orients the rings without reversing them in place, so they stay packed
+        packing.encode(p);
+        assertTrue(p.getOuterRing().isPacked());
+
+        // unclosed rings are closed
+        MultiPolygon mp = (MultiPolygon) packing.decode(fixtures[3]);
+        assertEquals(new Point(0d, 0d), mp.get(0).getOuterRing().get(4));
+        assertEquals(new Point(5d, 5d), mp.get(1).getOuterRing().get(3));
+    }
+
+    @Test
+    public void testDecodePolygonHoles() throws Exception {
+        // a grid of shells, each with holes, plus holes that aren't in any shell and holes inside those
+        StringBuilder json = new StringBuilder("{\"rings\":[");
+        List<LineString> rings = new ArrayList<LineString>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                rings.add(square(i * 10, j * 10, 8, true));
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                rings.add(square(i * 10 + 1, j * 10 + 1, 2, false));
+                rings.add(square(i * 10 + 4, j * 10 + 4, 3, false));
+            }
+        }
+        rings.add(square(200, 200, 10, false));
+        rings.add(square(202, 202, 2, false));
+        rings.add(square(205, 205, 2, false));
+        // crosses the edge of a shell
+        rings.add(square(7, 7, 2, false));
+
+        for (int i = 0; i < rings.size(); i++) {
+            json.append(i > 0 ? "," : "").append(new Gson().toJson(rings.get(i)));
+        }
+        json.append("]}");
+
+        MultiPolygon mp = (MultiPolygon) e.decode(json.toString());
+        assertEquals(expectedPolygons(rings), mp);
+        assertEquals(102, mp.size());
+        assertEquals(3, mp.get(0).size());
+        assertEquals(square(200, 200, 10, false), mp.get(100).getOuterRing());
+        assertEquals(3, mp.get(100).size());
+        assertEquals(square(7, 7, 2, false), mp.get(101).getOuterRing());
+    }
+
+    /**
+     * Assigns holes by checking every outer ring, the way polygon decoding always used to.
+     */
+    private static MultiPolygon expectedPolygons(List<LineString> rings) {
+        MultiPolygon outerRings = new MultiPolygon();
+        List<LineString> holes = new ArrayList<LineString>();
+        for (LineString r : rings) {
+            if (r.get(0).getX() == r.get(1).getX()) {
+                outerRings.add(new Polygon(r));
+            } else {
+                holes.add(r);
+            }
+        }
+
+        for (LineString h : holes) {
+            boolean contained = false;
+            for (Polygon p : outerRings) {
+                if (!intersect(p.getOuterRing(), h) &&
+                        EsriJson.ringContainsPoint(p.getOuterRing(), h.get(0))) {
+                    p.add(h);
+                    contained = true;
+                    break;
+                }
+            }
+
+            if (!contained) {
+                outerRings.add(new Polygon(h));
+            }
+        }
+
+        return outerRings;
+    }
+
+    private static LineString square(double x, double y, double size, boolean clockwise) {
+        if (clockwise) {
+            return new LineString(new Point(x, y), new Point(x, y + size), new Point(x + size, y + size),
+                    new Point(x + size, y), new Point(x, y));
+        }
+
+        return new LineString(new Point(x, y), new Point(x + size, y), new Point(x + size, y + size),
+                new Point(x, y + size), new Point(x, y));
+    }
+
     @Test
     public void testDecodeFeature() throws Exception {
         Feature f = (Feature) e.decode("{\"geometry\":{\"hasZ\":true,\"paths\":[[[0,0,1],[1,0,2],[1,1,3]]]},\"attributes\":{\"foo\":\"bar\"}}");
@@ -289,6 +420,115 @@ public class EsriJsonTest {
         assertEquals(e.encode(f), "[{\"geometry\":{\"spatialReference\":{\"wkid\":4326},\"x\":0.0,\"y\":0.0},\"attributes\":{}},{\"geometry\":{\"spatialReference\":{\"wkid\":4326},\"x\":1.0,\"y\":1.0},\"attributes\":{}}]");
     }
 
+    @Test
+    public void testBytes() throws Exception {
+        EsriJson esri = new EsriJson();
+
+        Feature tricky = new Feature(new Polygon(new LineString(new Point(0d, 0d), new Point(0d, 1d),
+                new Point(1d, 1d), new Point(0d, 0d))));
+        JsonObject p = new JsonObject();
+        p.addProperty("html", "<a href='#'>&</a>");
+        p.addProperty("name", "Z\u00fcrich \ud83c\udf0d");
+        p.add("nothing", null);
+        tricky.setProperties(p);
+
+        BaseGeometry<?>[] geometries = new BaseGeometry<?>[] {
+                new Point(1d, 2d, 3d, 4d),
+                new MultiPoint(new Point(0d, 0d), new Point(1d, 1d)),
+                new LineString(new Point(0d, 0d), new Point(1d, 1d)),
+                new GeometryCollection(new Point(0d, 0d), new LineString(new Point(0d, 0d), new Point(1d, 1d))),
+                tricky,
+                new FeatureCollection(new Feature(new Point(0d, 0d)), tricky)
+        };
+
+        for (BaseGeometry<?> geo : geometries) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            esri.encode(geo, out);
+            assertEquals(esri.encode(geo), out.toString("UTF-8"));
+
+            if (geo instanceof GeometryCollection || geo instanceof FeatureCollection) {
+                // arrays, which don't decode
+                continue;
+            }
+
+            assertEquals(esri.decode(esri.encode(geo)), esri.decode(ByteBuffer.wrap(out.toByteArray())));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        esri.encode(null, out);
+        assertEquals(0, out.size());
+
+        // the stream is flushed even when nothing is written
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        buffered.write('x');
+        esri.encode(null, buffered);
+        assertEquals("x", out.toString("UTF-8"));
+
+        boolean gotException = false;
+        try {
+            esri.decode(ByteBuffer.wrap("{\"x\":1".getBytes("UTF-8")));
+        } catch (TerraformerException e) {
+            assertTrue(e.getMessage().contains(TerraformerException.NOT_A_JSON_OBJECT));
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            esri.decode(ByteBuffer.wrap("[1]".getBytes("UTF-8")));
+        } catch (TerraformerException e) {
+            assertTrue(e.getMessage().contains(TerraformerException.NOT_A_JSON_OBJECT));
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testCoordinatePrecision() throws Exception {
+        EsriJson esri = new EsriJson();
+        Point p = new Point(-117.16251234, 34.05223, 0.125, 1e-9);
+        assertEquals("{\"spatialReference\":{\"wkid\":4326},\"x\":-117.16251234,\"y\":34.05223,\"z\":0.125," +
+                "\"hasZ\":true,\"m\":1.0E-9,\"hasM\":true}", esri.encode(p));
+        assertEquals(p, esri.decode(esri.encode(p)));
+
+        esri.setCoordinatePrecision(2);
+        assertEquals("{\"spatialReference\":{\"wkid\":4326},\"x\":-117.16,\"y\":34.05,\"z\":0.13," +
+                "\"hasZ\":true,\"m\":0.0,\"hasM\":true}", esri.encode(p));
+
+        MultiPolygon mp = new MultiPolygon(new Polygon(new LineString(new Point(0.001, 0.004), new Point(0.001, 1.006),
+                new Point(1.004, 1.006), new Point(0.001, 0.004))));
+        assertEquals("{\"hasZ\":false,\"hasM\":false,\"spatialReference\":{\"wkid\":4326}," +
+                "\"rings\":[[[0.0,0.0],[1.0,1.01],[0.0,1.01],[0.0,0.0]]]}", esri.encode(mp));
+
+        MultiLineString mls = new MultiLineString(new LineString(new Point(1.555, 2.0), new Point(3.0, 4.444)));
+        assertEquals("{\"hasZ\":false,\"hasM\":false,\"spatialReference\":{\"wkid\":4326}," +
+                "\"paths\":[[[1.56,2.0],[3.0,4.44]]]}", esri.encode(mls));
+
+        esri.setCoordinatePrecision(-1);
+        assertEquals(p, esri.decode(esri.encode(p)));
+    }
+
+    @Test
+    public void testDropCollapsedVertices() throws Exception {
+        EsriJson esri = new EsriJson();
+        esri.setCoordinatePrecision(2);
+        esri.setDropCollapsedVertices(true);
+
+        // counter clockwise, so written in reverse
+        Polygon pg = new Polygon(new LineString(new Point(0.0, 0.0), new Point(0.001, 0.0), new Point(1.0, 0.0),
+                new Point(1.0, 1.0), new Point(0.0, 1.0), new Point(0.0, 0.0)));
+        assertEquals("{\"hasZ\":false,\"hasM\":false,\"spatialReference\":{\"wkid\":4326}," +
+                "\"rings\":[[[0.0,0.0],[0.0,1.0],[1.0,1.0],[1.0,0.0],[0.0,0.0]]]}", esri.encode(pg));
+
+        LineString ls = new LineString(new Point(1.0, 2.0), new Point(1.001, 2.0), new Point(3.0, 4.0));
+        assertEquals("{\"hasZ\":false,\"hasM\":false,\"spatialReference\":{\"wkid\":4326}," +
+                "\"paths\":[[[1.0,2.0],[3.0,4.0]]]}", esri.encode(ls));
+
+        MultiPoint mp = new MultiPoint(new Point(1.0, 2.0), new Point(1.001, 2.0));
+        assertEquals("{\"hasZ\":false,\"hasM\":false,\"spatialReference\":{\"wkid\":4326}," +
+                "\"points\":[[1.0,2.0],[1.0,2.0]]}", esri.encode(mp));
+    }
+
     @Test
     public void testRingContainsPoint() throws Exception {
         LineString ring = new LineString(
@@ -302,6 +542,11 @@ public class EsriJsonTest {
 
         assertTrue(EsriJson.ringContainsPoint(ring, center));
         assertFalse(EsriJson.ringContainsPoint(ring, outside));
+
+        ring.pack();
+        assertTrue(EsriJson.ringContainsPoint(ring, center));
+        assertFalse(EsriJson.ringContainsPoint(ring, outside));
+        assertTrue(ring.isPacked());
     }
 
     @Test
@@ -330,6 +575,12 @@ public class EsriJsonTest {
         LineString overlappingVert2 = new LineString(
                 new Point(0d, 0d), new Point(0d, 2d)
         );
+        LineString overlappingVert3 = new LineString(
+                new Point(-10d, -10d), new Point(-10d, 5d)
+        );
+        LineString overlappingVert4 = new LineString(
+                new Point(-10d, 20d), new Point(-10d, 0d)
+        );
         LineString ls = new LineString(
                 new Point(-10d, 2d), new Point(10d, 2d)
         );
@@ -340,23 +591,135 @@ public class EsriJsonTest {
                 new Point(-8d, 20d), new Point(-8d, 20d)
         );
 
-        assertTrue(EsriJson.lineStringsIntersect(horizontal, vertical));
-        assertTrue(EsriJson.lineStringsIntersect(horizontal, overlapping));
-        assertTrue(EsriJson.lineStringsIntersect(horizontal, overlapping2));
-        assertFalse(EsriJson.lineStringsIntersect(horizontal, parallel));
-        assertFalse(EsriJson.lineStringsIntersect(horizontal, ls));
-
-        assertTrue(EsriJson.lineStringsIntersect(vertical, horizontal));
-        assertTrue(EsriJson.lineStringsIntersect(vertical, overlappingVert));
-        assertTrue(EsriJson.lineStringsIntersect(horizontal, overlappingVert2));
-        assertFalse(EsriJson.lineStringsIntersect(horizontal, parallelVert));
-        assertFalse(EsriJson.lineStringsIntersect(vertical, ls));
-
-        assertFalse(EsriJson.lineStringsIntersect(ls, horizontal));
-        assertFalse(EsriJson.lineStringsIntersect(ls, vertical));
-        assertTrue(EsriJson.lineStringsIntersect(ls, pointOnLS));
-        assertTrue(EsriJson.lineStringsIntersect(pointOnLS, ls));
-        assertFalse(EsriJson.lineStringsIntersect(ls, pointOffLS));
-        assertFalse(EsriJson.lineStringsIntersect(pointOffLS, ls));
+        assertTrue(intersect(horizontal, vertical));
+        assertTrue(intersect(horizontal, overlapping));
+        assertTrue(intersect(horizontal, overlapping2));
+        assertFalse(intersect(horizontal, parallel));
+        assertFalse(intersect(horizontal, ls));
+
+        assertTrue(intersect(vertical, horizontal));
+        assertTrue(intersect(vertical, overlappingVert));
+        assertTrue(intersect(horizontal, overlappingVert2));
+        assertFalse(intersect(horizontal, parallelVert));
+        assertFalse(intersect(vertical, ls));
+        assertTrue(intersect(overlappingVert3, overlappingVert4));
+        assertTrue(intersect(overlappingVert4, overlappingVert3));
+
+        assertFalse(intersect(ls, horizontal));
+        assertFalse(intersect(ls, vertical));
+        assertTrue(intersect(ls, pointOnLS));
+        assertTrue(intersect(pointOnLS, ls));
+        assertFalse(intersect(ls, pointOffLS));
+        assertFalse(intersect(pointOffLS, ls));
+    }
+
+    private static boolean intersect(LineString lineString, LineString other) {
+        return EsriJson.lineStringsIntersect(new MonotoneChains(lineString), new MonotoneChains(other));
+    }
+
+    @Test
+    public void testReadFeatureFile() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("{\"geometry\":{\"x\":").append(i).append(",\"y\":").append(-i)
+                    .append("},\"attributes\":{\"id\":").append(i).append("}}\n");
+        }
+
+        File file = File.createTempFile("features", ".json");
+        file.deleteOnExit();
+        GeoJsonTest.writeFile(file, lines.toString());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Feature> features = GeoJsonTest.readAll(new EsriJson().readFeatureFile(file, executor));
+            assertEquals(1000, features.size());
+            for (int i = 0; i < features.size(); i++) {
+                assertEquals(new Point((double) i, (double) -i), features.get(i).get());
+                assertEquals("{\"id\":" + i + "}", features.get(i).getRawProperties());
+                assertEquals(i, features.get(i).getProperties().get("id").getAsInt());
+            }
+
+            // not a Feature
+            GeoJsonTest.writeFile(file, lines + "{\"x\":1,\"y\":2}\n");
+            FeatureFileReader reader = new EsriJson().readFeatureFile(file, executor);
+            GeoJsonTest.assertIterationFails(reader, TerraformerException.ELEMENT_NOT_FEATURE);
+            reader.close();
+
+            GeoJsonTest.writeFile(file, lines + "{\"geometry\":");
+            reader = new EsriJson().readFeatureFile(file, executor);
+            GeoJsonTest.assertIterationFails(reader, TerraformerException.NOT_VALID_JSON);
+            reader.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRawAttributesNulls() throws Exception {
+        String json = "{\"geometry\":{\"x\":1,\"y\":2},\"attributes\":{\"a\":null,\"b\":1,\"c\":\"<x>\"}}";
+        EsriJson esriJson = new EsriJson();
+        String eager = esriJson.encode(esriJson.decode(json));
+        assertTrue(eager.contains("\"attributes\":{\"a\":null,\"b\":1,\"c\":\"<x>\"}"));
+
+        File file = File.createTempFile("features", ".json");
+        file.deleteOnExit();
+        GeoJsonTest.writeFile(file, json + "\n");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Feature> features = GeoJsonTest.readAll(esriJson.readFeatureFile(file, executor));
+            Feature raw = features.get(0);
+            assertEquals("{\"a\":null,\"b\":1,\"c\":\"<x>\"}", raw.getRawProperties());
+
+            // encoding reads the text without parsing it into the Feature
+            assertEquals(eager, esriJson.encode(raw));
+            assertNotNull(raw.getRawProperties());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        EsriJson esriJson = new EsriJson();
+        CodecEventTest.Recorder recorder = new CodecEventTest.Recorder();
+        esriJson.setListener(recorder);
+
+        String json = esriJson.encode(MultiPolygonTest.getMultiPolygon());
+        assertEquals(1, recorder.encoded.size());
+        assertEquals(EsriJson.FORMAT_NAME, recorder.encoded.get(0).getFormat());
+        assertEquals(json.length(), recorder.encoded.get(0).getLength());
+        assertEquals(GeometryType.MULTIPOLYGON, recorder.encoded.get(0).getGeometryType());
+
+        esriJson.decode(json);
+        assertEquals(1, recorder.decoded.size());
+        assertEquals(json.length(), recorder.decoded.get(0).getLength());
+        assertEquals(30, recorder.decoded.get(0).getVertexCount());
+
+        // two outer rings with two holes each
+        assertEquals(1, recorder.holesAssigned.size());
+        assertEquals(2, recorder.holesAssigned.get(0)[0]);
+        assertEquals(4, recorder.holesAssigned.get(0)[1]);
+
+        byte[] bytes = json.getBytes("UTF-8");
+        esriJson.decode(ByteBuffer.wrap(bytes));
+        assertEquals(bytes.length, recorder.decoded.get(1).getLength());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        esriJson.encode(FeatureTest.getPolygonFeature(), out);
+        assertEquals(out.size(), recorder.encoded.get(1).getLength());
+        assertEquals(1, recorder.encoded.get(1).getFeatureCount());
+
+        // Features in a file report their polygons' hole assignment
+        File file = File.createTempFile("features", ".json");
+        file.deleteOnExit();
+        GeoJsonTest.writeFile(file, "{\"geometry\":" + json + ",\"attributes\":{}}\n");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            GeoJsonTest.readAll(esriJson.readFeatureFile(file, executor));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(3, recorder.holesAssigned.size());
     }
 }
@@ -1,9 +1,13 @@
 package com.esri.terraformer.formats;
 
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.CodecEvent;
+import com.esri.terraformer.core.CodecEventTest;
 import com.esri.terraformer.core.Feature;
 import com.esri.terraformer.core.FeatureCollection;
 import com.esri.terraformer.core.FeatureCollectionTest;
 import com.esri.terraformer.core.FeatureTest;
+import com.esri.terraformer.core.Geometry;
 import com.esri.terraformer.core.GeometryCollection;
 import com.esri.terraformer.core.GeometryCollectionTest;
 import com.esri.terraformer.core.GeometryType;
@@ -21,13 +25,37 @@ import com.esri.terraformer.core.Polygon;
 import com.esri.terraformer.core.PolygonTest;
 import com.esri.terraformer.core.Terraformer;
 import com.esri.terraformer.core.TerraformerException;
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class GeoJsonTest {
@@ -971,4 +999,771 @@ public class GeoJsonTest {
 
         assertTrue(gotException);
     }
+
+    @Test
+    public void testDecodeReader() throws Exception {
+        GeoJson gj = new GeoJson();
+
+        // every fixture, valid or not, must decode to the same thing (or fail with the same message) either way
+        for (Field field : GeoJsonTest.class.getFields()) {
+            if (field.getType() != String.class) {
+                continue;
+            }
+
+            String json = (String) field.get(null);
+            assertEquals(field.getName(), decodeString(gj, json), decodeReader(gj, json));
+        }
+
+        // members before "type"
+        assertEquals(VALID_POINT, t.encode(gj.decode(new StringReader(
+                "{\"coordinates\":[100.0,0.0,90.0,90.0],\"type\":\"Point\"}"))));
+        assertEquals(EMPTY_GEOMETRY_FEATURE, t.encode(gj.decode(new StringReader(
+                "{\"properties\":{},\"geometry\":{},\"type\":\"Feature\"}"))));
+
+        // the first of several "type" members is used, whether or not it comes before the content
+        assertEquals(VALID_POINT, t.encode(gj.decode(new StringReader(
+                "{\"type\":\"Point\",\"coordinates\":[100.0,0.0,90.0,90.0],\"type\":\"LineString\"}"))));
+        assertEquals(VALID_POINT, t.encode(gj.decode(new StringReader(
+                "{\"coordinates\":[100.0,0.0,90.0,90.0],\"type\":\"Point\",\"type\":\"LineString\"}"))));
+
+        assertEquals(VALID_MULTI_POLYGON, t.encode(gj.decode(
+                new ByteArrayInputStream(VALID_MULTI_POLYGON.getBytes("UTF-8")))));
+
+        boolean gotException = false;
+        try {
+            gj.decode(new StringReader("{\"type\":\"Point\",\"coordinates\":[100.0,0.0]"));
+        } catch (TerraformerException e) {
+            assertTrue(e.getMessage().contains(TerraformerException.NOT_VALID_JSON));
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+        gotException = false;
+
+        try {
+            gj.decode(new StringReader(VALID_POINT + VALID_POINT));
+        } catch (TerraformerException e) {
+            assertTrue(e.getMessage().contains(TerraformerException.NOT_VALID_JSON));
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+        gotException = false;
+
+        try {
+            gj.decode(new StringReader(""));
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testDecodeByteBuffer() throws Exception {
+        GeoJson gj = new GeoJson();
+
+        for (Field field : GeoJsonTest.class.getFields()) {
+            if (field.getType() != String.class) {
+                continue;
+            }
+
+            String json = (String) field.get(null);
+            assertEquals(field.getName(), decodeString(gj, json), decodeByteBuffer(gj, json));
+        }
+
+        // multi-byte chars, some of them split across the reader's blocks
+        Feature feature = FeatureTest.getPolygonFeature();
+        JsonObject props = new JsonObject();
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            name.append("\u00e9\ud83c\udf0d");
+        }
+        props.addProperty("name", name.toString());
+        feature.setProperties(props);
+
+        String json = gj.encode(feature);
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.getBytes("UTF-8").length);
+        direct.put(json.getBytes("UTF-8"));
+        direct.flip();
+        assertEquals(json, gj.encode(gj.decode(direct)));
+        assertFalse(direct.hasRemaining());
+
+        // only from the position to the limit
+        byte[] bytes = ("xx" + VALID_POINT + "yy").getBytes("UTF-8");
+        assertEquals(VALID_POINT, gj.encode(gj.decode(ByteBuffer.wrap(bytes, 2, bytes.length - 4))));
+
+        boolean gotException = false;
+        try {
+            gj.decode(ByteBuffer.allocate(0));
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    static String decodeByteBuffer(GeoJson gj, String json) {
+        try {
+            return t.encode(gj.decode(ByteBuffer.wrap(json.getBytes("UTF-8"))));
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    static String decodeString(GeoJson gj, String json) {
+        try {
+            return t.encode(gj.decode(json));
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    static String decodeReader(GeoJson gj, String json) {
+        try {
+            return t.encode(gj.decode(new StringReader(json)));
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void testIterateFeatureCollection() throws Exception {
+        FeatureCollection expected = GeoJson.decodeFeatureCollection(VALID_FEATURE_COLLECTION);
+
+        FeatureIterator it = GeoJson.iterateFeatureCollection(new StringReader(VALID_FEATURE_COLLECTION));
+        int i = 0;
+        while (it.hasNext()) {
+            assertEquals(t.encode(expected.get(i++)), t.encode(it.next()));
+        }
+        it.close();
+        assertEquals(expected.size(), i);
+
+        it = GeoJson.iterateFeatureCollection(new ByteArrayInputStream(
+                EMPTY_FEATURES_FEATURE_COLLECTION.getBytes("UTF-8")));
+        assertFalse(it.hasNext());
+        it.close();
+
+        // features before the input is broken off are still handed out
+        String firstFeature = t.encode(expected.get(0));
+        String truncated = VALID_FEATURE_COLLECTION.substring(0,
+                VALID_FEATURE_COLLECTION.indexOf(firstFeature) + firstFeature.length() + 10);
+        it = GeoJson.iterateFeatureCollection(new StringReader(truncated));
+        assertEquals(firstFeature, t.encode(it.next()));
+        assertIterationFails(it, TerraformerException.NOT_VALID_JSON);
+        assertFalse(it.hasNext());
+
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(WRONG_TYPE_FEATURE_COLLECTION)),
+                TerraformerException.NOT_OF_TYPE);
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(NO_TYPE_FEATURE_COLLECTION)),
+                TerraformerException.NOT_OF_TYPE);
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(NOT_AN_OBJECT_FEATURE_COLLECTION)),
+                TerraformerException.NOT_A_JSON_OBJECT);
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(INVALID_INNER_TYPE_FEATURE_COLLECTION)),
+                TerraformerException.COORDINATE_ARRAY_TOO_SHORT);
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(NO_FEATURES_FEATURE_COLLECTION)),
+                TerraformerException.FEATURES_KEY_NOT_FOUND);
+        assertIterationFails(GeoJson.iterateFeatureCollection(new StringReader(FEATURES_NOT_ARRAY_FEATURE_COLLECTION)),
+                TerraformerException.ELEMENT_NOT_ARRAY);
+    }
+
+    @Test
+    public void testFeatureSequence() throws Exception {
+        FeatureCollection expected = GeoJson.decodeFeatureCollection(VALID_FEATURE_COLLECTION);
+
+        StringWriter ndjson = new StringWriter();
+        GeoJsonSeqWriter writer = GeoJson.writeFeatureSequence(ndjson);
+        for (Feature f : expected) {
+            writer.write(f);
+        }
+        writer.write(null);
+        writer.close();
+
+        String[] lines = ndjson.toString().split("\n");
+        assertEquals(expected.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(t.encode(expected.get(i)), lines[i]);
+        }
+
+        ByteArrayOutputStream seq = new ByteArrayOutputStream();
+        writer = GeoJson.writeFeatureSequence(seq);
+        writer.setRecordSeparators(true);
+        for (Feature f : expected) {
+            writer.write(f);
+        }
+        writer.flush();
+        assertEquals("\u001e" + lines[0] + "\n", new String(seq.toByteArray(), "UTF-8").substring(0,
+                lines[0].length() + 2));
+
+        // both forms read back, with blank lines in between
+        assertSequence(expected, GeoJson.readFeatureSequence(new StringReader(ndjson + "\n\r\n")));
+        assertSequence(expected, GeoJson.readFeatureSequence(new ByteArrayInputStream(seq.toByteArray())));
+
+        GeoJsonSeqReader reader = GeoJson.readFeatureSequence(new StringReader(""));
+        assertFalse(reader.hasNext());
+        reader.close();
+
+        // Features before a bad line are still handed out
+        reader = GeoJson.readFeatureSequence(new StringReader(lines[0] + "\n" + VALID_POINT + "\n" + lines[1]));
+        assertEquals(lines[0], t.encode(reader.next()));
+        assertIterationFails(reader, TerraformerException.ELEMENT_NOT_FEATURE);
+        assertFalse(reader.hasNext());
+
+        assertIterationFails(GeoJson.readFeatureSequence(new StringReader(lines[0] + "\n{\"type\":")),
+                TerraformerException.NOT_VALID_JSON);
+    }
+
+    @Test
+    public void testDecodeFeatureSequence() throws Exception {
+        // enough lines for several chunks, and one line longer than a chunk
+        StringBuilder properties = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            properties.append(",\"p").append(i).append("\":").append(i);
+        }
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            ndjson.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(i).append(",").append(-i).append("]},\"properties\":{\"id\":").append(i);
+            if (i == 2500) {
+                ndjson.append(properties);
+            }
+            ndjson.append("}}\n");
+        }
+
+        List<Feature> expected = new ArrayList<Feature>();
+        GeoJsonSeqReader reader = GeoJson.readFeatureSequence(new StringReader(ndjson.toString()));
+        while (reader.hasNext()) {
+            expected.add(reader.next());
+        }
+        assertEquals(5000, expected.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, GeoJson.decodeFeatureSequence(new StringReader(ndjson.toString()), executor));
+            assertEquals(0, GeoJson.decodeFeatureSequence(new StringReader(""), executor).size());
+
+            // a bad Feature part way through fails the whole sequence
+            ndjson.insert(ndjson.length() / 2, "{\"type\":\"Feature\"}\n");
+            boolean gotException = false;
+            try {
+                GeoJson.decodeFeatureSequence(new StringReader(ndjson.toString()), executor);
+            } catch (TerraformerException e) {
+                gotException = true;
+            }
+
+            assertTrue(gotException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadFeatureFile() throws Exception {
+        // non-ASCII properties, so that chunks are cut in the middle of multi-byte chars
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            ndjson.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(i).append(",").append(-i).append("]},\"properties\":{\"name\":\"")
+                    .append("\u00e9t\u00e9 \u6771\u4eac \ud83c\udf0d ").append(i).append("\"}}\n");
+        }
+
+        File file = File.createTempFile("features", ".geojsonl");
+        file.deleteOnExit();
+        writeFile(file, ndjson.toString());
+
+        List<Feature> expected = new ArrayList<Feature>();
+        GeoJsonSeqReader.readFeatures(new StringReader(ndjson.toString()), false, expected);
+
+        FeatureFileReader.ChunkDecoder decoder = new FeatureFileReader.ChunkDecoder() {
+            @Override
+            public void decode(Reader in, List<Feature> out) throws IOException, TerraformerException {
+                GeoJsonSeqReader.readFeatures(in, false, out);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, readAll(new GeoJson().readFeatureFile(file, executor)));
+
+            // small chunks; some lines are longer than a chunk
+            for (int chunkSize : new int[] {16, 100, 1000}) {
+                assertEquals(expected, readAll(new FeatureFileReader(file, executor, decoder, chunkSize)));
+            }
+
+            // Features before a bad one are still handed out
+            writeFile(file, ndjson.substring(0, ndjson.indexOf("\n") + 1) + VALID_POINT + "\n" + ndjson);
+            FeatureFileReader reader = new GeoJson().readFeatureFile(file, executor);
+            assertEquals(expected.get(0), reader.next());
+            assertIterationFails(reader, TerraformerException.ELEMENT_NOT_FEATURE);
+            assertFalse(reader.hasNext());
+            reader.close();
+
+            writeFile(file, "");
+            reader = new GeoJson().readFeatureFile(file, executor);
+            assertFalse(reader.hasNext());
+            reader.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static void writeFile(File file, String contents) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+    }
+
+    static List<Feature> readAll(FeatureFileReader reader) throws IOException {
+        List<Feature> features = new ArrayList<Feature>();
+        try {
+            while (reader.hasNext()) {
+                features.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+
+        return features;
+    }
+
+    private static void assertSequence(FeatureCollection expected, GeoJsonSeqReader reader) throws Exception {
+        int i = 0;
+        while (reader.hasNext()) {
+            assertEquals(t.encode(expected.get(i++)), t.encode(reader.next()));
+        }
+        reader.close();
+        assertEquals(expected.size(), i);
+    }
+
+    static void assertIterationFails(Iterator<Feature> it, String error) {
+        boolean gotException = false;
+        try {
+            while (it.hasNext()) {
+                it.next();
+            }
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof TerraformerException);
+            assertTrue(e.getMessage().contains(error));
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testEncodeWriter() throws Exception {
+        GeoJson gj = new GeoJson();
+
+        Feature tricky = FeatureTest.getPolygonFeature();
+        JsonObject props = new JsonObject();
+        props.addProperty("html", "<a href='#'>&</a>");
+        props.add("nothing", null);
+        props.addProperty("number", 1.5);
+        tricky.setProperties(props);
+
+        Feature noGeometry = new Feature();
+        noGeometry.setProperties(null);
+
+        BaseGeometry<?>[] geometries = new BaseGeometry<?>[] {
+                FeatureCollectionTest.getFeatureCollection(),
+                FeatureTest.getMultiLineStringFeature(),
+                FeatureTest.getGeometryCollectionFeature(),
+                tricky,
+                noGeometry,
+                GeometryCollectionTest.getGeometryCollection(),
+                MultiPolygonTest.getMultiPolygon(),
+                PolygonTest.getPolygon(),
+                MultiLineStringTest.getMultiLineString(),
+                LineStringTest.getLineString(),
+                MultiPointTest.getMultiPoint(),
+                PointTest.getPoint(),
+                new Point(1.0, null)
+        };
+
+        for (BaseGeometry<?> geo : geometries) {
+            StringWriter writer = new StringWriter();
+            gj.encode(geo, writer);
+            assertEquals(gj.encode(geo), writer.toString());
+
+            StringBuilder builder = new StringBuilder();
+            gj.encode(geo, builder);
+            assertEquals(gj.encode(geo), builder.toString());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            gj.encode(geo, out);
+            assertEquals(gj.encode(geo), out.toString("UTF-8"));
+        }
+
+        StringWriter writer = new StringWriter();
+        gj.encode(null, writer);
+        assertEquals("", writer.toString());
+
+        boolean gotException = false;
+        try {
+            gj.encode(new Point(Double.NaN, 0.0), new StringWriter());
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testEncodeCoordinates() throws Exception {
+        // the hand written coordinate arrays must match what Gson's reflective serialization produced
+        Gson gson = new Gson();
+        Geometry<?>[] geometries = new Geometry<?>[] {
+                MultiPolygonTest.getMultiPolygon(),
+                new MultiPolygon(PolygonTest.getPolygon(), null),
+                PolygonTest.getPolygon(),
+                new Polygon(LineStringTest.getLineString(), null),
+                MultiLineStringTest.getMultiLineString(),
+                LineStringTest.getLineString(),
+                new LineString(PointTest.getPoint(), null, new Point(1.0, null, -0.0, 1e-7, 1e21)),
+                MultiPointTest.getMultiPoint(),
+                PointTest.getPoint()
+        };
+
+        for (Geometry<?> geo : geometries) {
+            StringWriter writer = new StringWriter();
+            GeoJsonWriter.writeCoordinates(geo, new JsonWriter(writer), CoordinateFormat.SHORTEST);
+            assertEquals(gson.toJson(gson.toJsonTree(geo)), writer.toString());
+        }
+    }
+
+    @Test
+    public void testEncodePacked() throws Exception {
+        GeoJson geoJson = new GeoJson();
+        BaseGeometry<?>[] geometries = new BaseGeometry<?>[] {
+                MultiPolygonTest.getMultiPolygon(),
+                LineStringTest.getLineString(),
+                new LineString(new Point(1.0, 2.0, -0.0, 1e-7), new Point(1e21, 3.0, 4.0, 5.0)),
+                MultiPointTest.getMultiPoint(),
+                FeatureCollectionTest.getFeatureCollection()
+        };
+
+        for (BaseGeometry<?> geo : geometries) {
+            String unpacked = geoJson.encode(geo);
+            geo.pack();
+            assertEquals(unpacked, geoJson.encode(geo));
+        }
+
+        // encoding doesn't unpack
+        LineString ls = LineStringTest.getLineString();
+        ls.pack();
+        geoJson.encode(ls);
+        assertTrue(ls.isPacked());
+
+        boolean gotException = false;
+        LineString nan = new LineString(new Point(1.0, Double.NaN), new Point(2.0, 3.0));
+        nan.pack();
+        try {
+            geoJson.encode(nan);
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testDecodePacked() throws Exception {
+        GeoJson gj = new GeoJson();
+        GeoJson packing = new GeoJson();
+        packing.setPackCoordinates(true);
+
+        // packing doesn't change what is decoded, or the errors
+        for (Field field : GeoJsonTest.class.getFields()) {
+            if (field.getType() != String.class) {
+                continue;
+            }
+
+            String json = (String) field.get(null);
+            assertEquals(field.getName(), decodeString(gj, json), decodeReader(packing, json));
+            assertEquals(field.getName(), decodeString(gj, json), decodeString(packing, json));
+        }
+
+        String polygon = "{\"type\":\"Polygon\",\"coordinates\":[[[100.0,0.0,1.0],[101.0,0.0,1.0],[101.0,1.0,1.0]," +
+                "[100.0,0.0,1.0]]]}";
+        Polygon pg = (Polygon) packing.decode(new StringReader(polygon));
+        assertTrue(pg.get(0).isPacked());
+        assertEquals(3, pg.get(0).getDimension());
+        assertEquals(gj.decode(polygon), pg);
+        assertTrue(((Polygon) packing.decode(polygon)).get(0).isPacked());
+        assertFalse(((Polygon) gj.decode(new StringReader(polygon))).get(0).isPacked());
+
+        // Points with differing dimensions stay Points
+        String mixed = "{\"type\":\"LineString\",\"coordinates\":[[100.0,0.0],[101.0,1.0,2.0]]}";
+        LineString ls = (LineString) packing.decode(new StringReader(mixed));
+        assertFalse(ls.isPacked());
+        assertEquals(gj.decode(mixed), ls);
+
+        String fiveD = "{\"type\":\"MultiPoint\",\"coordinates\":[[1,2,3,4,5],[1,2,3,4,5]]}";
+        MultiPoint mp = (MultiPoint) packing.decode(new StringReader(fiveD));
+        assertFalse(mp.isPacked());
+        assertEquals(gj.decode(fiveD), mp);
+
+        FeatureIterator it = GeoJson.iterateFeatureCollection(new StringReader(VALID_FEATURE_COLLECTION));
+        it.setPackCoordinates(true);
+        FeatureCollection expected = GeoJson.decodeFeatureCollection(VALID_FEATURE_COLLECTION);
+        int i = 0;
+        while (it.hasNext()) {
+            assertEquals(expected.get(i++), it.next());
+        }
+        assertEquals(expected.size(), i);
+    }
+
+    @Test
+    public void testParseNumbers() throws Exception {
+        String[] numbers = new String[] {
+                "0", "-0", "0.0", "1", "-1.5", "100.0", "0.1", "0.3", "-117.1625", "34.05223", "1e-7", "1E21",
+                "1e+21", "2.2250738585072014E-308", "4.9E-324", "1.7976931348623157E308", "1.7976931348623159E308",
+                "9007199254740993", "9223372036854775807", "9999999999999999999", "123456789012345678901234",
+                "0.00000000000000000000000000001", "2.5e-324", "2.4e-324", "1e400", "-1e400", "1e-400", ".5", "5.",
+                "NaN", "-Infinity", "0x1p3", " 1"
+        };
+        for (String n : numbers) {
+            assertEquals(n, Double.doubleToLongBits(Double.parseDouble(n)),
+                    Double.doubleToLongBits(DoubleParser.parse(n)));
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            String n = Double.toString(d);
+            assertEquals(n, Double.doubleToLongBits(d), Double.doubleToLongBits(DoubleParser.parse(n)));
+
+            n = (random.nextInt(360) - 180) + "." + random.nextInt(1000000000);
+            assertEquals(n, Double.doubleToLongBits(Double.parseDouble(n)),
+                    Double.doubleToLongBits(DoubleParser.parse(n)));
+        }
+
+        for (String n : new String[] {"", "-", "1e", "1.2.3", "--1", "1x", "e5"}) {
+            boolean gotException = false;
+            try {
+                DoubleParser.parse(n);
+            } catch (NumberFormatException e) {
+                gotException = true;
+            }
+
+            assertTrue(n, gotException);
+        }
+    }
+
+    @Test
+    public void testFormatNumbers() throws Exception {
+        assertEquals("0.0", DoubleFormatter.format(0.0));
+        assertEquals("-0.0", DoubleFormatter.format(-0.0));
+        assertEquals("1.0", DoubleFormatter.format(1.0));
+        assertEquals("-117.1625", DoubleFormatter.format(-117.1625));
+        assertEquals("0.3", DoubleFormatter.format(0.3));
+        assertEquals("0.001", DoubleFormatter.format(0.001));
+        assertEquals("1.0E-4", DoubleFormatter.format(0.0001));
+        assertEquals("1000000.0", DoubleFormatter.format(1e6));
+        assertEquals("1.0E7", DoubleFormatter.format(1e7));
+        assertEquals("1.0E21", DoubleFormatter.format(1e21));
+        assertEquals("4.9E-324", DoubleFormatter.format(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308", DoubleFormatter.format(Double.MAX_VALUE));
+        assertEquals("NaN", DoubleFormatter.format(Double.NaN));
+        // Double.toString gives 2.0000000000000004E-3 before Java 19
+        assertEquals("0.002", DoubleFormatter.format(2.0E-3));
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d)) {
+                continue;
+            }
+
+            String n = DoubleFormatter.format(d);
+            assertEquals(n, Double.doubleToLongBits(d), Double.doubleToLongBits(Double.parseDouble(n)));
+            assertTrue(n, n.length() <= Double.toString(d).length());
+
+            d = random.nextDouble() * 360 - 180;
+            n = DoubleFormatter.format(d);
+            assertEquals(n, d, Double.parseDouble(n), 0);
+            assertTrue(n, n.length() <= Double.toString(d).length());
+        }
+
+        assertEquals("0.13", DoubleFormatter.format(0.125, 2));
+        assertEquals("-0.13", DoubleFormatter.format(-0.125, 2));
+        assertEquals("1.001", DoubleFormatter.format(1.0005, 3));
+        assertEquals("-117.163", DoubleFormatter.format(-117.1625, 3));
+        assertEquals("1.5", DoubleFormatter.format(1.5, 6));
+        assertEquals("2.0", DoubleFormatter.format(1.96, 1));
+        assertEquals("10.0", DoubleFormatter.format(9.99, 1));
+        assertEquals("1.0E22", DoubleFormatter.format(1e22, 6));
+        assertEquals("0.0", DoubleFormatter.format(0.0004, 3));
+        assertEquals("0.0", DoubleFormatter.format(-0.0004, 3));
+        assertEquals("0.001", DoubleFormatter.format(0.0005, 3));
+        assertEquals("3.0", DoubleFormatter.format(Math.PI, 0));
+        assertEquals("0.0", DoubleFormatter.format(Double.MIN_VALUE, 6));
+    }
+
+    @Test
+    public void testCoordinatePrecision() throws Exception {
+        GeoJson geoJson = new GeoJson();
+        LineString ls = new LineString(new Point(-117.16251234, 34.05223), new Point(0.125, 1e-9, 1234.5678));
+        String full = "{\"type\":\"LineString\",\"coordinates\":[[-117.16251234,34.05223],[0.125,1.0E-9,1234.5678]]}";
+        assertEquals(full, geoJson.encode(ls));
+
+        geoJson.setCoordinatePrecision(2);
+        String rounded = "{\"type\":\"LineString\",\"coordinates\":[[-117.16,34.05],[0.13,0.0,1234.57]]}";
+        assertEquals(rounded, geoJson.encode(ls));
+        StringWriter writer = new StringWriter();
+        geoJson.encode(ls, writer);
+        assertEquals(rounded, writer.toString());
+
+        ls.pack();
+        assertEquals(rounded, geoJson.encode(ls));
+
+        geoJson.setCoordinatePrecision(-1);
+        assertEquals(full, geoJson.encode(ls));
+        assertEquals(ls, geoJson.decode(full));
+
+        StringWriter seq = new StringWriter();
+        GeoJsonSeqWriter seqWriter = GeoJson.writeFeatureSequence(seq);
+        seqWriter.setCoordinatePrecision(1);
+        seqWriter.write(new Feature(new Point(1.25, -2.75)));
+        seqWriter.flush();
+        assertTrue(seq.toString(), seq.toString().contains("\"coordinates\":[1.3,-2.8]"));
+    }
+
+    @Test
+    public void testDropCollapsedVertices() throws Exception {
+        GeoJson geoJson = new GeoJson();
+        geoJson.setCoordinatePrecision(2);
+        geoJson.setDropCollapsedVertices(true);
+
+        LineString ls = new LineString(new Point(1.001, 2.0), new Point(1.002, 2.001), new Point(1.5, 2.5),
+                new Point(3.0, 4.0), new Point(3.001, 4.0));
+        String line = "{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[1.5,2.5],[3.0,4.0]]}";
+        assertEquals(line, geoJson.encode(ls));
+        ls.pack();
+        assertEquals(line, geoJson.encode(ls));
+
+        // the ring stays closed
+        Polygon pg = new Polygon(new LineString(new Point(0.0, 0.0), new Point(0.001, 0.0), new Point(1.0, 0.0),
+                new Point(1.0, 1.0), new Point(0.0, 1.0), new Point(0.0, 0.001), new Point(0.0, 0.0)));
+        assertEquals("{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,1.0],[0.0,0.0]]]}",
+                geoJson.encode(pg));
+
+        // too few would be left
+        LineString tiny = new LineString(new Point(0.0, 0.0), new Point(0.001, 0.001), new Point(0.002, 0.0));
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[0.0,0.0],[0.0,0.0]]}",
+                geoJson.encode(tiny));
+        Polygon sliver = new Polygon(new LineString(new Point(0.0, 0.0), new Point(1.0, 0.0),
+                new Point(1.0, 0.001), new Point(0.0, 0.0)));
+        assertEquals("{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[1.0,0.0],[1.0,0.0],[0.0,0.0]]]}",
+                geoJson.encode(sliver));
+
+        // MultiPoints are written whole, and Points with different dimensions don't collapse
+        MultiPoint mp = new MultiPoint(new Point(1.0, 2.0), new Point(1.0, 2.0));
+        assertEquals("{\"type\":\"MultiPoint\",\"coordinates\":[[1.0,2.0],[1.0,2.0]]}", geoJson.encode(mp));
+        LineString mixed = new LineString(new Point(1.0, 2.0), new Point(1.0, 2.0, 3.0), new Point(4.0, 5.0));
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[1.0,2.0,3.0],[4.0,5.0]]}",
+                geoJson.encode(mixed));
+
+        // exact duplicates are dropped at any precision
+        geoJson.setCoordinatePrecision(-1);
+        LineString duplicates = new LineString(new Point(1.0, 2.0), new Point(1.0, 2.0), new Point(1.001, 2.0));
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[1.001,2.0]]}",
+                geoJson.encode(duplicates));
+
+        geoJson.setDropCollapsedVertices(false);
+        assertEquals(GeoJson.toJson(duplicates), geoJson.encode(duplicates));
+
+        assertTrue(DoubleFormatter.sameWhenFormatted(0.0, 0.004, 2));
+        assertTrue(DoubleFormatter.sameWhenFormatted(0.125, 0.134, 2));
+        assertFalse(DoubleFormatter.sameWhenFormatted(0.124, 0.125, 2));
+        assertFalse(DoubleFormatter.sameWhenFormatted(0.0, -0.0, 2));
+        assertFalse(DoubleFormatter.sameWhenFormatted(0.1, Math.nextUp(0.1), DoubleFormatter.SHORTEST));
+        assertTrue(DoubleFormatter.sameWhenFormatted(0.1, Math.nextUp(0.1), 16));
+    }
+
+    @Test
+    public void testRawProperties() throws Exception {
+        GeoJson gj = new GeoJson();
+        String json = "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]},"
+                + "\"properties\":{\"html\":\"<a href='#'>&</a>\",\"nothing\":null,\"n\":1.50,"
+                + "\"nested\":{\"list\":[1e3,false,null]}}}";
+
+        // the properties are kept as text, and encoding them as they are gives what encoding the parsed object does
+        Feature raw = (Feature) gj.decode(json);
+        assertNotNull(raw.getRawProperties());
+        String passedThrough = gj.encode(raw);
+        assertNotNull(raw.getRawProperties());
+
+        Feature parsed = (Feature) gj.decode(json);
+        parsed.getProperties();
+        assertNull(parsed.getRawProperties());
+        assertEquals(gj.encode(parsed), passedThrough);
+        assertEquals(raw.getProperties(), parsed.getProperties());
+
+        FeatureCollection fc = (FeatureCollection) gj.decode(new StringReader(VALID_FEATURE_COLLECTION));
+        for (Feature f : fc) {
+            assertNotNull(f.getRawProperties());
+        }
+        FeatureCollection parsedFc = (FeatureCollection) gj.decode(VALID_FEATURE_COLLECTION);
+        for (Feature f : parsedFc) {
+            f.getProperties();
+        }
+        assertEquals(gj.encode(parsedFc), gj.encode(fc));
+    }
+
+    @Test
+    public void testRawPropertiesNulls() throws Exception {
+        GeoJson gj = new GeoJson();
+        String json = "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]},"
+                + "\"properties\":{\"a\":null,\"b\":1,\"c\":\"<x>\"}}";
+
+        // the text keeps the null, as the parsed object does
+        Feature raw = (Feature) gj.decode(json);
+        assertEquals("{\"a\":null,\"b\":1,\"c\":\"<x>\"}", raw.getRawProperties());
+        String passedThrough = gj.encode(raw);
+        assertNotNull(raw.getRawProperties());
+
+        Feature parsed = (Feature) gj.decode(json);
+        assertTrue(parsed.getProperties().has("a"));
+        assertEquals(gj.encode(parsed), passedThrough);
+        assertEquals(parsed.getProperties(), raw.getProperties());
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        GeoJson geoJson = new GeoJson();
+        CodecEventTest.Recorder recorder = new CodecEventTest.Recorder();
+        geoJson.setListener(recorder);
+
+        geoJson.decode(VALID_FEATURE_COLLECTION);
+        assertEquals(1, recorder.decoded.size());
+        CodecEvent event = recorder.decoded.get(0);
+        assertEquals(GeoJson.FORMAT_NAME, event.getFormat());
+        assertEquals(GeometryType.FEATURECOLLECTION, event.getGeometryType());
+        assertEquals(VALID_FEATURE_COLLECTION.length(), event.getLength());
+        assertEquals(4, event.getFeatureCount());
+        if (CodecEvent.threadAllocatedBytes() >= 0) {
+            assertTrue(event.getAllocatedBytes() > 0);
+        }
+
+        byte[] bytes = VALID_MULTI_POLYGON.getBytes("UTF-8");
+        geoJson.decode(ByteBuffer.wrap(bytes));
+        geoJson.decode(new ByteArrayInputStream(bytes));
+        assertEquals(3, recorder.decoded.size());
+        assertEquals(bytes.length, recorder.decoded.get(1).getLength());
+        assertEquals(CodecEvent.UNKNOWN_LENGTH, recorder.decoded.get(2).getLength());
+
+        String json = geoJson.encode(MultiPolygonTest.getMultiPolygon());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        geoJson.encode(MultiPolygonTest.getMultiPolygon(), out);
+        geoJson.encode(MultiPolygonTest.getMultiPolygon(), new StringWriter());
+        assertEquals(3, recorder.encoded.size());
+        assertEquals(json.length(), recorder.encoded.get(0).getLength());
+        assertEquals(out.size(), recorder.encoded.get(1).getLength());
+        assertEquals(CodecEvent.UNKNOWN_LENGTH, recorder.encoded.get(2).getLength());
+    }
 }
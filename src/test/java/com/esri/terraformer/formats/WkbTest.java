@@ -0,0 +1,267 @@
+package com.esri.terraformer.formats;
+
+import com.esri.terraformer.core.BaseGeometry;
+import com.esri.terraformer.core.FeatureCollectionTest;
+import com.esri.terraformer.core.FeatureTest;
+import com.esri.terraformer.core.GeometryCollection;
+import com.esri.terraformer.core.GeometryCollectionTest;
+import com.esri.terraformer.core.GeometryType;
+import com.esri.terraformer.core.LineString;
+import com.esri.terraformer.core.LineStringTest;
+import com.esri.terraformer.core.MultiLineString;
+import com.esri.terraformer.core.MultiLineStringTest;
+import com.esri.terraformer.core.MultiPoint;
+import com.esri.terraformer.core.MultiPointTest;
+import com.esri.terraformer.core.MultiPolygon;
+import com.esri.terraformer.core.MultiPolygonTest;
+import com.esri.terraformer.core.Point;
+import com.esri.terraformer.core.PointTest;
+import com.esri.terraformer.core.Polygon;
+import com.esri.terraformer.core.PolygonTest;
+import com.esri.terraformer.core.Terraformer;
+import com.esri.terraformer.core.TerraformerException;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WkbTest {
+    // as printed by PostGIS for ST_AsBinary / ST_AsEWKB
+    public static final String POINT_XY = "0101000000000000000000F03F0000000000000040";
+    public static final String POINT_XY_BIG_ENDIAN = "00000000013FF00000000000004000000000000000";
+    public static final String POINT_XYZ_ISO = "01E9030000000000000000F03F00000000000000400000000000000840";
+    public static final String POINT_XYM_ISO = "01D1070000000000000000F03F00000000000000400000000000001040";
+    public static final String POINT_XYZM_ISO =
+            "01B90B0000000000000000F03F000000000000004000000000000008400000000000001040";
+    public static final String POINT_XYZ_EWKB_SRID =
+            "01010000A0E6100000000000000000F03F00000000000000400000000000000840";
+    public static final String POINT_EMPTY = "0101000000000000000000F87F000000000000F87F";
+    public static final String LINESTRING_XY =
+            "010200000002000000000000000000F03F000000000000004000000000000008400000000000001040";
+    public static final String MULTIPOINT_MIXED_ORDER =
+            "0104000000020000000101000000000000000000F03F0000000000000040" +
+            "000000000140080000000000004010000000000000";
+
+    @Test
+    public void testDecode() throws Exception {
+        Wkb wkb = new Wkb();
+        assertEquals(new Point(1d, 2d), wkb.decode(POINT_XY));
+        assertEquals(new Point(1d, 2d), wkb.decode(POINT_XY.toLowerCase()));
+        assertEquals(new Point(1d, 2d), wkb.decode(POINT_XY_BIG_ENDIAN));
+        assertEquals(new Point(1d, 2d, 3d), wkb.decode(POINT_XYZ_ISO));
+        assertEquals(new Point(1d, 2d, Double.NaN, 4d), wkb.decode(POINT_XYM_ISO));
+        assertEquals(new Point(1d, 2d, 3d, 4d), wkb.decode(POINT_XYZM_ISO));
+        assertEquals(new Point(1d, 2d, 3d), wkb.decode(POINT_XYZ_EWKB_SRID));
+        assertEquals(new Point(), wkb.decode(POINT_EMPTY));
+
+        LineString ls = (LineString) wkb.decode(LINESTRING_XY);
+        assertEquals(new LineString(new Point(1d, 2d), new Point(3d, 4d)), ls);
+        assertFalse(ls.isPacked());
+
+        assertEquals(new MultiPoint(new Point(1d, 2d), new Point(3d, 4d)), wkb.decode(MULTIPOINT_MIXED_ORDER));
+
+        assertEquals(4326, Wkb.getSrid(hexBytes(POINT_XYZ_EWKB_SRID)));
+        assertEquals(0, Wkb.getSrid(hexBytes(POINT_XYZ_ISO)));
+
+        Terraformer t = new Terraformer();
+        t.setDecoder(new Wkb());
+        t.setEncoder(new GeoJson());
+        assertEquals("{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}", t.convert(POINT_XY));
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        Wkb wkb = new Wkb();
+        assertEquals(POINT_XY, wkb.encode(new Point(1d, 2d)));
+        assertEquals(POINT_XYZ_ISO, wkb.encode(new Point(1d, 2d, 3d)));
+        assertEquals(POINT_XYZM_ISO, wkb.encode(new Point(1d, 2d, 3d, 4d)));
+        assertEquals(POINT_EMPTY, wkb.encode(new Point()));
+        assertEquals(LINESTRING_XY, wkb.encode(new LineString(new Point(1d, 2d), new Point(3d, 4d))));
+        assertEquals(null, wkb.encode(null));
+
+        wkb.setSrid(4326);
+        assertEquals(POINT_XYZ_EWKB_SRID, wkb.encode(new Point(1d, 2d, 3d)));
+        wkb.setSrid(null);
+
+        wkb.setByteOrder(ByteOrder.BIG_ENDIAN);
+        assertEquals(POINT_XY_BIG_ENDIAN, wkb.encode(new Point(1d, 2d)));
+
+        // the longest Point decides the dimension of all of them
+        wkb.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        LineString mixed = new LineString(new Point(1d, 2d), new Point(3d, 4d, 5d));
+        assertEquals(new LineString(new Point(1d, 2d, Double.NaN), new Point(3d, 4d, 5d)),
+                wkb.decode(wkb.encodeBytes(mixed)));
+
+        boolean gotException = false;
+        try {
+            wkb.encode(FeatureTest.getPolygonFeature());
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        gotException = false;
+        try {
+            wkb.encode(FeatureCollectionTest.getFeatureCollection());
+        } catch (IllegalArgumentException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BaseGeometry<?>[] geometries = new BaseGeometry<?>[] {
+                PointTest.getPoint(),
+                new Point(1d, 2d),
+                LineStringTest.getLineString(),
+                new LineString(),
+                MultiPointTest.getMultiPoint(),
+                PolygonTest.getPolygon(),
+                new Polygon(),
+                MultiLineStringTest.getMultiLineString(),
+                MultiPolygonTest.getMultiPolygon(),
+                GeometryCollectionTest.getGeometryCollection(),
+                new GeometryCollection(GeometryCollectionTest.getGeometryCollection(), new Point(1d, 2d, 3d, 4d))
+        };
+
+        Wkb wkb = new Wkb();
+        Wkb packed = new Wkb();
+        packed.setPackCoordinates(true);
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            for (Integer srid : new Integer[] {null, 3857}) {
+                wkb.setByteOrder(order);
+                wkb.setSrid(srid);
+                for (BaseGeometry<?> geo : geometries) {
+                    byte[] bytes = wkb.encodeBytes(geo);
+                    assertEquals(bytes.length, wkb.encodedSize(geo));
+                    assertEquals(srid == null ? 0 : srid, Wkb.getSrid(bytes));
+                    assertRoundTrip(geo, wkb.decode(bytes));
+                    assertRoundTrip(geo, packed.decode(bytes));
+                    assertRoundTrip(geo, wkb.decode(wkb.encode(geo)));
+                }
+            }
+        }
+
+        LineString ls = (LineString) packed.decode(LINESTRING_XY);
+        assertTrue(ls.isPacked());
+        assertTrue(((Polygon) packed.decode(wkb.encodeBytes(PolygonTest.getPolygon()))).get(0).isPacked());
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        Wkb wkb = new Wkb();
+        Point p = new Point(1d, 2d);
+        MultiPolygon mp = MultiPolygonTest.getMultiPolygon();
+        MultiLineString mls = MultiLineStringTest.getMultiLineString();
+
+        ByteBuffer out = ByteBuffer.allocate(3 + wkb.encodedSize(p) + wkb.encodedSize(mp) + wkb.encodedSize(mls));
+        out.order(ByteOrder.BIG_ENDIAN);
+        out.put(new byte[3]);
+        wkb.encode(p, out);
+        wkb.encode(mp, out);
+        wkb.encode(mls, out);
+        assertFalse(out.hasRemaining());
+        assertEquals(ByteOrder.BIG_ENDIAN, out.order());
+
+        boolean gotException = false;
+        try {
+            wkb.encode(p, out);
+        } catch (BufferOverflowException e) {
+            gotException = true;
+        }
+        assertTrue(gotException);
+
+        out.position(3);
+        ByteBuffer in = out.slice();
+        assertEquals(p, wkb.decode(in));
+        assertEquals(mp, wkb.decode(in));
+        assertEquals(mls, wkb.decode(in));
+        assertFalse(in.hasRemaining());
+        assertEquals(ByteOrder.BIG_ENDIAN, in.order());
+
+        // direct buffers work too
+        ByteBuffer direct = ByteBuffer.allocateDirect(wkb.encodedSize(mp));
+        wkb.encode(mp, direct);
+        direct.flip();
+        assertEquals(mp, wkb.decode(direct));
+    }
+
+    @Test
+    public void testDecodeErrors() throws Exception {
+        Wkb wkb = new Wkb();
+        assertDecodeFails(wkb, "0101000000000000000000F03F00000000000000", TerraformerException.WKB_TRUNCATED);
+        assertDecodeFails(wkb, POINT_XY + "00", TerraformerException.WKB_TRAILING_BYTES);
+        assertDecodeFails(wkb, "02" + POINT_XY.substring(2), TerraformerException.WKB_BAD_BYTE_ORDER);
+        assertDecodeFails(wkb, "0108000000", TerraformerException.WKB_UNKNOWN_TYPE);
+        assertDecodeFails(wkb, "01A10F0000", TerraformerException.WKB_UNKNOWN_TYPE);
+        assertDecodeFails(wkb, "XY", TerraformerException.WKB_NOT_HEX);
+        assertDecodeFails(wkb, "010", TerraformerException.WKB_NOT_HEX);
+        // a count far bigger than what follows, which mustn't be allocated
+        assertDecodeFails(wkb, "0102000000FFFFFF7F", TerraformerException.WKB_TRUNCATED);
+        assertDecodeFails(wkb, "0102000000FFFFFFFF", TerraformerException.WKB_TRUNCATED);
+        // a LineString inside a MultiPoint
+        assertDecodeFails(wkb, "010400000001000000" + LINESTRING_XY, TerraformerException.WKB_WRONG_MEMBER_TYPE);
+
+        boolean gotException = false;
+        try {
+            wkb.decode(new byte[0]);
+        } catch (IllegalArgumentException e) {
+            assertEquals(TerraformerException.WKB_EMPTY, e.getMessage());
+            gotException = true;
+        }
+        assertTrue(gotException);
+    }
+
+    @Test
+    public void testNestingDepth() throws Exception {
+        Wkb wkb = new Wkb();
+        assertEquals(GeometryType.GEOMETRYCOLLECTION, wkb.decode(nestedCollections(100)).getType());
+        assertDecodeFails(wkb, nestedCollections(101), TerraformerException.WKB_TOO_DEEP);
+        // deep enough to overflow the stack if it were followed
+        assertDecodeFails(wkb, nestedCollections(100000), TerraformerException.WKB_TOO_DEEP);
+    }
+
+    /**
+     * @return a Point inside that many GeometryCollections of one member each
+     */
+    private static String nestedCollections(int depth) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            hex.append("010700000001000000");
+        }
+        return hex.append(POINT_XY).toString();
+    }
+
+    private static void assertDecodeFails(Wkb wkb, String hex, String error) {
+        boolean gotException = false;
+        try {
+            wkb.decode(hex);
+        } catch (TerraformerException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(Wkb.WKB_ERROR_PREFIX));
+            assertTrue(e.getMessage(), e.getMessage().contains(error));
+            gotException = true;
+        }
+        assertTrue(hex, gotException);
+    }
+
+    private static void assertRoundTrip(BaseGeometry<?> expected, BaseGeometry<?> actual) {
+        // shorter Points come back padded with NaN to the dimension of the longest, so compare what they encode to
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new Wkb().encode(expected), new Wkb().encode(actual));
+    }
+
+    private static byte[] hexBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}